@@ -0,0 +1,160 @@
+package com.example.ClassDiagram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from the elements of a diagram to the connections leaving and entering them, so that
+ * the connections of one element are found in time proportional to their number instead of
+ * scanning every connection of the model.
+ *
+ * <p>Elements and connections are compared by identity. The index does not look into the
+ * connections: their ends are given when a connection is added, and must not change while the
+ * connection is indexed.</p>
+ *
+ * @param <N> the type of the connected elements
+ * @param <E> the type of the connections
+ */
+public class AdjacencyIndex<N, E> {
+
+    /** Connections leaving every element, in the order they were added. */
+    private final Map<N, List<E>> outgoing = new IdentityHashMap<>();
+
+    /** Connections entering every element, in the order they were added. */
+    private final Map<N, List<E>> incoming = new IdentityHashMap<>();
+
+    /** Start element of every indexed connection. */
+    private final Map<E, N> sources = new IdentityHashMap<>();
+
+    /** End element of every indexed connection. */
+    private final Map<E, N> targets = new IdentityHashMap<>();
+
+    /**
+     * Adds a connection. Does nothing if it is already indexed.
+     *
+     * @param edge  the connection
+     * @param start the element the connection leaves
+     * @param end   the element the connection enters
+     */
+    public void add(E edge, N start, N end) {
+        if (sources.containsKey(edge)) {
+            return;
+        }
+        sources.put(edge, start);
+        targets.put(edge, end);
+        outgoing.computeIfAbsent(start, n -> new ArrayList<>(2)).add(edge);
+        incoming.computeIfAbsent(end, n -> new ArrayList<>(2)).add(edge);
+    }
+
+    /**
+     * Removes a connection.
+     *
+     * @param edge the connection
+     * @return {@code true} if the connection was indexed
+     */
+    public boolean remove(E edge) {
+        if (!sources.containsKey(edge)) {
+            return false;
+        }
+        N start = sources.remove(edge);
+        N end = targets.remove(edge);
+        removeFrom(outgoing, start, edge);
+        removeFrom(incoming, end, edge);
+        return true;
+    }
+
+    /**
+     * Removes every connection leaving or entering an element.
+     *
+     * @param node the element
+     * @return the removed connections, each once
+     */
+    public List<E> removeAll(N node) {
+        List<E> removed = incident(node);
+        for (E edge : removed) {
+            remove(edge);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every connection.
+     */
+    public void clear() {
+        outgoing.clear();
+        incoming.clear();
+        sources.clear();
+        targets.clear();
+    }
+
+    /**
+     * Returns the connections leaving an element.
+     *
+     * @param node the element
+     * @return the connections, in the order they were added; must not be modified
+     */
+    public List<E> outgoing(N node) {
+        return outgoing.getOrDefault(node, Collections.emptyList());
+    }
+
+    /**
+     * Returns the connections entering an element.
+     *
+     * @param node the element
+     * @return the connections, in the order they were added; must not be modified
+     */
+    public List<E> incoming(N node) {
+        return incoming.getOrDefault(node, Collections.emptyList());
+    }
+
+    /**
+     * Returns the connections leaving or entering an element. A connection from the element
+     * to itself is returned once.
+     *
+     * @param node the element
+     * @return a new list with the outgoing connections followed by the incoming ones
+     */
+    public List<E> incident(N node) {
+        List<E> leaving = outgoing(node);
+        List<E> entering = incoming(node);
+        List<E> result = new ArrayList<>(leaving.size() + entering.size());
+        result.addAll(leaving);
+        for (E edge : entering) {
+            if (sources.get(edge) != node) {
+                result.add(edge);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed connections.
+     *
+     * @return the number of connections
+     */
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * Removes a connection from the list of an element, dropping the list once it is empty.
+     */
+    private void removeFrom(Map<N, List<E>> lists, N node, E edge) {
+        List<E> edges = lists.get(node);
+        if (edges != null) {
+            // By identity, as everywhere in the index
+            for (int i = 0; i < edges.size(); i++) {
+                if (edges.get(i) == edge) {
+                    edges.remove(i);
+                    break;
+                }
+            }
+            if (edges.isEmpty()) {
+                lists.remove(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ClassDiagram;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdjacencyIndex_Testing {
+    private AdjacencyIndex<String, String> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AdjacencyIndex<>();
+    }
+
+    @Test
+    void testAddListsTheConnectionAtBothEnds() {
+        index.add("a->b", "a", "b");
+        index.add("a->c", "a", "c");
+        index.add("c->a", "c", "a");
+
+        assertEquals(3, index.size());
+        assertEquals(List.of("a->b", "a->c"), index.outgoing("a"));
+        assertEquals(List.of("c->a"), index.incoming("a"));
+        assertEquals(List.of("a->b", "a->c", "c->a"), index.incident("a"));
+        assertEquals(List.of("a->b"), index.incoming("b"));
+        assertTrue(index.outgoing("b").isEmpty());
+        assertTrue(index.incident("unknown").isEmpty());
+    }
+
+    @Test
+    void testAddTwiceIndexesOnce() {
+        index.add("a->b", "a", "b");
+        index.add("a->b", "a", "b");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("a->b"), index.outgoing("a"));
+    }
+
+    @Test
+    void testRemoveForgetsBothEnds() {
+        index.add("a->b", "a", "b");
+        index.add("b->a", "b", "a");
+
+        assertTrue(index.remove("a->b"));
+        assertFalse(index.remove("a->b"), "A connection is removed only once.");
+        assertEquals(1, index.size());
+        assertTrue(index.outgoing("a").isEmpty());
+        assertTrue(index.incoming("b").isEmpty());
+        assertEquals(List.of("b->a"), index.incident("a"));
+    }
+
+    @Test
+    void testSelfLoopIsIncidentOnce() {
+        index.add("a->a", "a", "a");
+        index.add("a->b", "a", "b");
+
+        assertEquals(List.of("a->a", "a->b"), index.outgoing("a"));
+        assertEquals(List.of("a->a"), index.incoming("a"));
+        assertEquals(List.of("a->a", "a->b"), index.incident("a"));
+
+        assertTrue(index.remove("a->a"));
+        assertTrue(index.incoming("a").isEmpty());
+        assertEquals(List.of("a->b"), index.incident("a"));
+    }
+
+    @Test
+    void testRemoveAllCascadesToTheOtherEnds() {
+        index.add("a->b", "a", "b");
+        index.add("c->a", "c", "a");
+        index.add("a->a", "a", "a");
+        index.add("b->c", "b", "c");
+
+        // Deleting a removes every connection touching it, each once
+        List<String> removed = index.removeAll("a");
+        assertEquals(3, removed.size());
+        assertTrue(removed.containsAll(List.of("a->b", "c->a", "a->a")));
+
+        assertEquals(1, index.size());
+        assertTrue(index.incident("a").isEmpty());
+        assertTrue(index.incoming("b").isEmpty(), "b must no longer list the connection from a.");
+        assertTrue(index.outgoing("c").isEmpty(), "c must no longer list the connection to a.");
+        assertEquals(List.of("b->c"), index.outgoing("b"));
+        assertEquals(List.of("b->c"), index.incoming("c"));
+        assertTrue(index.removeAll("a").isEmpty());
+    }
+
+    @Test
+    void testConnectionsAreComparedByIdentity() {
+        String first = new String("a->b");
+        String second = new String("a->b");
+        index.add(first, "a", "b");
+        index.add(second, "a", "b");
+        assertEquals(2, index.size());
+
+        assertTrue(index.remove(second));
+        assertSame(first, index.outgoing("a").getFirst());
+        assertSame(first, index.incoming("b").getFirst());
+    }
+
+    @Test
+    void testClear() {
+        index.add("a->b", "a", "b");
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertTrue(index.incident("a").isEmpty());
+        assertTrue(index.incident("b").isEmpty());
+    }
+}
@@ -21,7 +21,6 @@ import org.testfx.framework.junit5.ApplicationTest;
 import org.testfx.util.WaitForAsyncUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,11 +58,9 @@ public class ClassDiagram_Testing extends ApplicationTest {
         double right=386;
         // Verify the diagram creation
         assertEquals(1, controller.diagrams.size());
-        String expectedKey = String.format("Interface%.1f,%.1f", 150.0+left, 250.0+right);
-        assertTrue(controller.diagrams.containsKey(expectedKey));
-
-        Controller.ClassDiagram diagram = controller.diagrams.get(expectedKey);
-        assertNotNull(diagram);
+        Controller.ClassDiagram diagram = controller.diagrams.values().iterator().next();
+        assertNotEquals(IdMap.NO_ID, diagram.id);
+        assertSame(diagram, controller.diagrams.get(diagram.id));
         assertTrue(diagram instanceof Controller.InterfaceDiagram);
         assertEquals(150+left, diagram.x);
         assertEquals(250+right, diagram.y);
@@ -85,11 +82,9 @@ public class ClassDiagram_Testing extends ApplicationTest {
         double right=386;
         // Verify the diagram creation
         assertEquals(1, controller.diagrams.size());
-        String expectedKey = String.format("Class%.1f,%.1f", 150.0+left, 250.0+right);
-        assertTrue(controller.diagrams.containsKey(expectedKey));
-
-        Controller.ClassDiagram diagram = controller.diagrams.get(expectedKey);
-        assertNotNull(diagram);
+        Controller.ClassDiagram diagram = controller.diagrams.values().iterator().next();
+        assertNotEquals(IdMap.NO_ID, diagram.id);
+        assertSame(diagram, controller.diagrams.get(diagram.id));
         assertEquals(150+left, diagram.x);
         assertEquals(250+right, diagram.y);
     }
@@ -124,15 +119,15 @@ public class ClassDiagram_Testing extends ApplicationTest {
         type(KeyCode.DOWN); // Select 'private'
         type(KeyCode.ENTER);
         clickOn(controller.addAttributeButton);
-        System.out.println("Existing keys in diagrams: " + controller.diagrams.keySet());
         // Step 6: Verify the attribute was added correctly
 
-        String expectedKey = String.format("Class%.1f,%.1f", 530.4,636.0);//passed changing the logic
-        assertTrue(controller.diagrams.containsKey(expectedKey));
-        Controller.ClassDiagram classDiagram = controller.diagrams.get(expectedKey);
+        assertTrue(controller.diagrams.containsKey(controller.selectedDiagramId));
+        Controller.ClassDiagram classDiagram = controller.diagrams.get(controller.selectedDiagramId);
         assertNotNull(classDiagram);
+        assertEquals(530.4, classDiagram.x);
+        assertEquals(636.0, classDiagram.y);
         assertEquals(1, classDiagram.attributes.size());
-        assertEquals("+ attributeName", classDiagram.attributes.getFirst());
+        assertEquals("+ attributeName", classDiagram.attributes.getFirst().getText());
 
     }
     @Test
@@ -165,15 +160,16 @@ public class ClassDiagram_Testing extends ApplicationTest {
         type(KeyCode.DOWN); // Select 'public'
         type(KeyCode.ENTER);
         clickOn(controller.addOperationButton);
-        ///System.out.println("Existing keys in diagrams: " + controller.diagrams.keySet());
+        ///System.out.println("Selected diagram ID: " + controller.selectedDiagramId);
         // Step 6: Verify the attribute was added correctly
 
-        String expectedKey = String.format("Class%.1f,%.1f", 530.4,636.0);//passed changing the logic
-        assertTrue(controller.diagrams.containsKey(expectedKey));
-        Controller.ClassDiagram classDiagram = controller.diagrams.get(expectedKey);
+        assertTrue(controller.diagrams.containsKey(controller.selectedDiagramId));
+        Controller.ClassDiagram classDiagram = controller.diagrams.get(controller.selectedDiagramId);
         assertNotNull(classDiagram);
+        assertEquals(530.4, classDiagram.x);
+        assertEquals(636.0, classDiagram.y);
         assertEquals(1, classDiagram.operations.size());
-        assertEquals("+ operationName", classDiagram.operations.getFirst());
+        assertEquals("+ operationName", classDiagram.operations.getFirst().getText());
 
 
     }
@@ -188,6 +184,7 @@ public class ClassDiagram_Testing extends ApplicationTest {
         moveTo(canvas);
         moveBy(150, 250); // Move to the desired location on the canvas
         clickOn(); // Create the class diagram
+        int createdId = controller.diagrams.values().iterator().next().id;
 
         // Step 3: Deselect the class button by clicking an empty area in the toolbox
         moveTo(controller.toolboxVBox); // Move to the toolbox VBox
@@ -204,27 +201,26 @@ public class ClassDiagram_Testing extends ApplicationTest {
 
         // Step 6: Add assertions to verify that the diagram was deleted
         // The controller's diagrams map should no longer contain the deleted diagram
-        String expectedKey = String.format("Class%.1f,%.1f", 530.4, 636.0); // Adjust logic as needed
-        assertFalse(controller.diagrams.containsKey(expectedKey), "Diagram should be removed from the controller!");
+        assertFalse(controller.diagrams.containsKey(createdId), "Diagram should be removed from the controller!");
 
     }
     @Test
     void testClearSelection() {
-        controller.selectedComponent = controller.diagrams.get("Class1");
-        controller.selectedDiagramKey = "Class1";
+        controller.selectedComponent = controller.diagrams.get(1);
+        controller.selectedDiagramId = 1;
 
         controller.clearSelection();
 
         assertNull(controller.selectedComponent);
-        assertNull(controller.selectedDiagramKey);
+        assertEquals(IdMap.NO_ID, controller.selectedDiagramId);
     }
 
     @Test
     void testGetMaxTextWidth() {
         Controller.ClassDiagram diagram = new Controller.ClassDiagram(100, 100);
         diagram.className = "TestClass";
-        diagram.attributes.add("public String name");
-        diagram.operations.add("public void testMethod()");
+        diagram.attributes.add(Member.attribute("public String name"));
+        diagram.operations.add(Member.operation("public void testMethod()"));
 
         double maxWidth = controller.getMaxTextWidth(null, diagram);
 
@@ -260,16 +256,25 @@ public class ClassDiagram_Testing extends ApplicationTest {
     }
     @Test
     public void testAddClassDiagram() {
-        Controller.ClassDiagram newDiagram = new Controller.ClassDiagram(300, 300);
-        controller.diagrams.put("Class3", newDiagram);
-
-        assertTrue(controller.diagrams.containsKey("Class3"), "The new class diagram should be added.");
-        assertEquals(1, controller.diagrams.size(), "There should be three diagrams after adding a new one.");
+        GraphicsContext gc = ((Canvas) controller.canvasContainer.getChildren().get(0)).getGraphicsContext2D();
+        interact(() -> controller.createClassDiagram(gc, 300, 300));
+        interact(() -> controller.createClassDiagram(gc, 600, 300));
+
+        // The controller allocates a new, higher ID for every diagram and stores it under it
+        List<Controller.ClassDiagram> created = new ArrayList<>(controller.diagrams.values());
+        assertEquals(2, created.size(), "There should be two diagrams after adding them.");
+        Controller.ClassDiagram first = created.get(0), second = created.get(1);
+        assertNotEquals(IdMap.NO_ID, first.id);
+        assertTrue(second.id > first.id, "IDs are allocated in increasing order.");
+        assertSame(first, controller.diagrams.get(first.id), "The new class diagram should be added.");
+        assertSame(second, controller.diagrams.get(second.id));
+        assertEquals(300, first.x);
+        assertEquals(600, second.x);
     }
 
     @Test
     public void testDeleteSelectedComponent() {
-        Controller.ClassDiagram toDelete = controller.diagrams.get("Class1");
+        Controller.ClassDiagram toDelete = controller.diagrams.get(1);
         controller.selectedComponent = toDelete;
 
         controller.deleteSelectedComponent();
@@ -278,18 +283,52 @@ public class ClassDiagram_Testing extends ApplicationTest {
         assertNull(controller.selectedComponent, "Selected component should be cleared after deletion.");
     }
 
+    @Test
+    void testDeleteDiagramRemovesItsConnections() {
+        GraphicsContext gc = ((Canvas) controller.canvasContainer.getChildren().get(0)).getGraphicsContext2D();
+        interact(() -> {
+            controller.createClassDiagram(gc, 100, 100);
+            controller.createClassDiagram(gc, 400, 100);
+            controller.createClassDiagram(gc, 100, 400);
+        });
+        List<Controller.ClassDiagram> created = new ArrayList<>(controller.diagrams.values());
+        Controller.ClassDiagram a = created.get(0), b = created.get(1), c = created.get(2);
+
+        Controller.LineConnection ab = new Controller.LineConnection(a, 1, b, 3, controller.associationButton);
+        Controller.LineConnection ca = new Controller.LineConnection(c, 0, a, 2, controller.associationButton);
+        Controller.LineConnection aa = new Controller.LineConnection(a, 0, a, 1, controller.associationButton);
+        Controller.LineConnection bc = new Controller.LineConnection(b, 2, c, 1, controller.associationButton);
+        interact(() -> {
+            for (Controller.LineConnection line : List.of(ab, ca, aa, bc)) {
+                controller.addLineConnection(line);
+                controller.markLineDirty(line);
+            }
+            controller.removeDiagram(a);
+        });
+
+        // Every connection of a is gone from the model and from the indexes of the other diagrams
+        assertEquals(List.of(bc), new ArrayList<>(controller.lineConnections));
+        assertEquals(List.of(bc), controller.connectionIndex.incident(b));
+        assertEquals(List.of(bc), controller.connectionIndex.incident(c));
+        assertTrue(controller.connectionIndex.incident(a).isEmpty());
+        assertFalse(controller.lineIndex.contains(ab));
+        assertFalse(controller.lineIndex.contains(aa));
+        assertTrue(controller.lineIndex.contains(bc));
+    }
+
     @Test
     public void testGenerateClassCodeForClassDiagram() {
         // Initialize the Controller
         Controller controller = new Controller();
 
         // Initialize diagrams map and add a ClassDiagram instance
-        controller.diagrams = new HashMap<>();
+        controller.diagrams = new IdMap<>();
         Controller.ClassDiagram classDiagram = new Controller.ClassDiagram(50, 50);
         classDiagram.className = "SampleClass";
-        classDiagram.attributes.add("+ name:String");
-        classDiagram.operations.add("+ getName():String");
-        controller.diagrams.put("Class1", classDiagram);
+        classDiagram.attributes.add(Member.attribute("+ name:String"));
+        classDiagram.operations.add(Member.operation("+ getName():String"));
+        classDiagram.id = controller.diagrams.allocateId();
+        controller.diagrams.put(classDiagram.id, classDiagram);
 
         // Generate the code for the ClassDiagram
         String generatedCode = controller.generateClassCode(classDiagram);
@@ -306,7 +345,7 @@ public class ClassDiagram_Testing extends ApplicationTest {
     public void testGenerateClassCodeForInterfaceDiagram() {
         Controller.InterfaceDiagram interfaceDiagram = new Controller.InterfaceDiagram(100, 100);
         interfaceDiagram.interfaceName = "SampleInterface";
-        interfaceDiagram.operations.add("+ executeTask():void");
+        interfaceDiagram.operations.add(Member.operation("+ executeTask():void"));
 
         String generatedCode = controller.generateClassCode(interfaceDiagram);
 
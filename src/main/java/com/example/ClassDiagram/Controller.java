@@ -1,5 +1,20 @@
 package com.example.ClassDiagram;
 
+import com.example.Rendering.AnchorGrid;
+import com.example.Rendering.BackgroundRecorder;
+import com.example.Rendering.DisplayList;
+import com.example.Rendering.ElementImageCache;
+import com.example.Rendering.GridLayer;
+import com.example.Rendering.LevelOfDetail;
+import com.example.Rendering.Minimap;
+import com.example.Rendering.QuadTree;
+import com.example.Rendering.RenderScheduler;
+import com.example.Rendering.RetainedDisplayList;
+import com.example.Rendering.SegmentGrid;
+import com.example.Rendering.TextMeasureCache;
+import com.example.Rendering.TileCache;
+import com.example.Rendering.ViewTransform;
+import com.example.Rendering.VisibleRegion;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -16,14 +31,13 @@ import javafx.scene.image.PixelReader;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
-import javafx.scene.transform.Scale;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -69,9 +83,6 @@ public class Controller {
     /** Container pane for the canvas where diagrams are drawn. */
     public Pane canvasContainer;
 
-    /** Scale transformation object for zoom functionality. */
-    public Scale scaleTransform;
-
     /** VBox container for the toolbox buttons. */
     @FXML
     VBox toolboxVBox;
@@ -119,6 +130,14 @@ public class Controller {
     @FXML
     MenuItem GenerateCode;
 
+    /** Menu item for drawing the selected diagram above all others. */
+    @FXML
+    MenuItem bringToFrontItem;
+
+    /** Menu item for drawing the selected diagram below all others. */
+    @FXML
+    MenuItem sendToBackItem;
+
     /** TreeView to display the class hierarchy. */
     @FXML
     public TreeView<String> classHierarchyView;
@@ -126,6 +145,9 @@ public class Controller {
     /** Root item of the class hierarchy view. */
     public TreeItem<String> rootItem;
 
+    /** Nodes of the class hierarchy, by the ID of the diagram they show. */
+    final IdMap<TreeItem<String>> hierarchyItems = new IdMap<>();
+
     /** MenuItem for the "Save As" functionality to save the current project. */
     @FXML
     public MenuItem SaveAs;
@@ -150,6 +172,10 @@ public class Controller {
     @FXML
     public VBox propertiesPanel;
 
+    /** Section of the properties panel holding the {@link #minimap}. */
+    @FXML
+    VBox overviewSection;
+
     /** TextField for entering or displaying attributes of the selected UML component. */
     @FXML
     TextField attributesField;
@@ -157,6 +183,24 @@ public class Controller {
     /** Currently selected component in the editor, used for context-specific actions. */
     public Object selectedComponent = null;
 
+    /**
+     * Diagrams selected together with the {@link #selectedComponent} by shift-clicking or with the
+     * marquee. Only meaningful while the selected component is one of them, see {@link #getSelectedDiagrams()}.
+     */
+    final Set<ClassDiagram> selectedDiagrams = new LinkedHashSet<>();
+
+    /** Flag indicating whether a selection rectangle is being dragged over the canvas. */
+    boolean isSelectingArea = false;
+
+    /** Corners of the selection rectangle in world coordinates: where it started and where the mouse is. */
+    double marqueeStartX, marqueeStartY, marqueeEndX, marqueeEndY;
+
+    /**
+     * Diagram of a multiple selection that was pressed without shift. The selection is reduced to
+     * it when the mouse is released without dragging, so a plain click still selects a single diagram.
+     */
+    ClassDiagram collapseSelectionTo = null;
+
     /** TextField for entering or displaying operations of the selected UML component. */
     @FXML
     TextField operationsField;
@@ -179,14 +223,29 @@ public class Controller {
     /** For storing the mouse offset while dragging. */
     public double offsetX, offsetY;
 
-    /** Key for storing the currently selected UML diagram in the project. */
-    public String selectedDiagramKey = null;
+    /** ID of the currently selected UML diagram in the project, or {@link IdMap#NO_ID}. */
+    public int selectedDiagramId = IdMap.NO_ID;
 
     /** Default width for class diagrams in the editor. */
     public final double classDiagramWidth = 120;
 
-    /** Map for storing UML class diagrams, identified by their unique keys. */
-    Map<String, ClassDiagram> diagrams = new HashMap<>();
+    /** Map for storing UML class diagrams, identified by their unique numeric IDs. */
+    IdMap<ClassDiagram> diagrams = new IdMap<>();
+
+    /** Spatial index over the bounds of the {@link #diagrams}, used to find the diagram under the mouse. */
+    final QuadTree<ClassDiagram> diagramIndex = new QuadTree<>();
+
+    /**
+     * The {@link #diagrams} keyed by their {@link ClassDiagram#zOrder}. Diagrams are drawn in the
+     * order of this map, so the last one is on top, and picking returns the topmost diagram.
+     */
+    final TreeMap<Long, ClassDiagram> drawingOrder = new TreeMap<>();
+
+    /** Largest horizontal and vertical distance at which the mouse snaps to a connection point. */
+    public static final double SNAP_TOLERANCE = 10;
+
+    /** Grid over the connection points of the {@link #diagrams}, used to snap the ends of a line being drawn. */
+    final AnchorGrid<ClassDiagram> anchorIndex = new AnchorGrid<>();
 
     /** Flag indicating whether a line is currently being drawn between components. */
     public boolean isDrawingLine = false;
@@ -197,8 +256,156 @@ public class Controller {
     /** Reference to the starting and ending diagram of a line connection. */
     public ClassDiagram startDiagram, endDiagram;
 
-    /** List of all line connections created in the diagram editor. */
-    List<LineConnection> lineConnections = new ArrayList<>();
+    /** All line connections created in the diagram editor, in the order they are drawn. */
+    Set<LineConnection> lineConnections = new LinkedHashSet<>();
+
+    /** Line connections leaving and entering every diagram, so the lines of a diagram are found without a scan. */
+    final AdjacencyIndex<ClassDiagram, LineConnection> connectionIndex = new AdjacencyIndex<>();
+
+    /** Distance from a line within which a click hits it, including the snap box of its control points. */
+    public static final double LINE_HIT_TOLERANCE = 15;
+
+    /** Grid over the segments of the {@link #lineConnections}, used to find the lines near the mouse. */
+    final SegmentGrid<LineConnection> lineIndex = new SegmentGrid<>(LINE_HIT_TOLERANCE);
+
+    /** Cached background grid, rebuilt only when the canvas is resized. */
+    final GridLayer gridLayer = new GridLayer();
+
+    /** Measured text sizes, shared with the use case editor, so labels are not re-measured on every redraw. */
+    final TextMeasureCache textMeasureCache = TextMeasureCache.getShared();
+
+    /** Smallest zoom factor reachable with the mouse wheel or the keyboard. */
+    public static final double MIN_ZOOM = 0.25;
+
+    /** Largest zoom factor reachable with the mouse wheel or the keyboard. */
+    public static final double MAX_ZOOM = 5;
+
+    /** Zoom thresholds below which members, connection points and end shapes are no longer drawn. */
+    final LevelOfDetail levelOfDetail = new LevelOfDetail();
+
+    /** Zoom and pan of the view onto the unbounded world the diagrams are placed in. */
+    final ViewTransform viewTransform = new ViewTransform(MIN_ZOOM, MAX_ZOOM);
+
+    /** Rendered tiles of the world; only tiles touched by a change are rendered again. */
+    final TileCache tileCache = new TileCache();
+
+    /** Rendered images of unchanged class and interface boxes, copied instead of drawn again. */
+    final ElementImageCache<Object> diagramImageCache = new ElementImageCache<>();
+
+    /**
+     * Recording of everything on the diagram canvas, one fragment per box and per group of lines.
+     * Only the fragments of changed elements are recorded again.
+     */
+    final RetainedDisplayList displayList = new RetainedDisplayList(2);
+
+    /** Level of detail of the latest recording requested for {@link #displayList}, or {@code null} if none. */
+    LevelOfDetail.Tier displayListTier;
+
+    /** Computes the geometry of a frame from a {@link SceneSnapshot} or {@link SceneChange} and records it. */
+    final SceneRecorder sceneRecorder = new SceneRecorder(textMeasureCache);
+
+    /** Records large changes of the display list on a worker thread. */
+    final BackgroundRecorder<SceneChange, ScenePatch> backgroundRecorder =
+            new BackgroundRecorder<>(sceneRecorder::record, this::onDisplayListRecorded);
+
+    /** Changes of at least this many diagrams and lines are recorded on the worker thread. */
+    public static final int BACKGROUND_RECORDING_THRESHOLD = 200;
+
+    /** World areas changed since the recording that is still running on the worker thread was requested. */
+    final DirtyRegion pendingRegion = new DirtyRegion();
+
+    /** Diagrams marked dirty since the display list was last recorded. */
+    final Set<ClassDiagram> dirtyDiagrams = new LinkedHashSet<>();
+
+    /** Line connections marked dirty since the display list was last recorded. */
+    final Set<LineConnection> dirtyLines = new LinkedHashSet<>();
+
+    /** Diagrams changed since the last recording was installed; every new recording copies them again. */
+    final Set<ClassDiagram> pendingDiagrams = new LinkedHashSet<>();
+
+    /** Groups of lines changed since the last recording was installed; every new recording copies them again. */
+    final Set<Long> pendingLineGroups = new LinkedHashSet<>();
+
+    /** Flag indicating whether the whole display list is recorded again and the recording is not installed yet. */
+    boolean pendingFullRecording;
+
+    /** Flag indicating whether every fragment is recorded again at another level of detail and the recording is not installed yet. */
+    boolean pendingTierChange;
+
+    /** Line connections in every group of the {@link #displayList}, by the key of the group. */
+    final Map<Long, Set<LineConnection>> lineGroups = new HashMap<>();
+
+    /** Key of the group of the {@link #displayList} every drawn line connection is in. */
+    final Map<LineConnection, Long> lineGroupOfLine = new HashMap<>();
+
+    /** Bounds of everything in {@link #displayList}, or {@code null} if it is empty. */
+    double[] displayListBounds;
+
+    /** Width and height of the minimap in pixels. */
+    public static final double MINIMAP_WIDTH = 200, MINIMAP_HEIGHT = 150;
+
+    /** Overview of the whole model in the properties panel, patched only where the model changed. */
+    final Minimap minimap = new Minimap(MINIMAP_WIDTH, MINIMAP_HEIGHT);
+
+    /** Recording of the overlay, cleared and recorded again on every overlay redraw. */
+    final DisplayList overlayList = new DisplayList();
+
+    /** Visible part of the world; elements outside of it are not drawn. */
+    final VisibleRegion visibleRegion = new VisibleRegion();
+
+    /** World areas that changed since the last paint and still have to be repainted. */
+    final DirtyRegion dirtyRegion = new DirtyRegion();
+
+    /** Flag indicating whether the view was zoomed or panned since the last paint. */
+    boolean viewChanged = false;
+
+    /** Screen position of the mouse during the last event of a pan with the middle button. */
+    double panLastX, panLastY;
+
+    /** Coalesces repaint requests, so the canvas is painted at most once per pulse. */
+    final RenderScheduler renderScheduler = new RenderScheduler(this::paintFrame);
+
+    /** Line connection owning the control point that is currently selected, if any. */
+    LineConnection selectedControlPointLine = null;
+
+    /** End point of the line preview while a new line is being dragged. */
+    double previewEndX, previewEndY;
+
+    /**
+     * Transparent canvas stacked above the diagram canvas. It holds everything that changes
+     * on every mouse event: selection highlights, the element being dragged and the line preview.
+     */
+    Canvas overlayCanvas;
+
+    /**
+     * Diagrams currently being dragged, in drawing order; they are drawn on the overlay instead of
+     * the diagram canvas.
+     */
+    final Set<ClassDiagram> draggedDiagrams = new LinkedHashSet<>();
+
+    /**
+     * Distance the dragged diagrams still have to move. Drag events only accumulate it; it is
+     * applied to the whole group once per frame by {@link #applyDragMove()}.
+     */
+    double dragDeltaX, dragDeltaY;
+
+    /** Colour of the selection rectangle. */
+    static final Color MARQUEE_COLOR = Color.web("#5DADE2");
+
+    /** Colour of the outline of the element under the mouse and of the connection point a line snaps to. */
+    static final Color HOVER_COLOR = Color.web("#F5B041");
+
+    /** Diagram or line connection under the mouse, outlined on the overlay; {@code null} if there is none. */
+    Object hoveredComponent = null;
+
+    /** Connection point a new line would start or end at if the mouse were pressed or released now. */
+    AnchorGrid.Anchor<ClassDiagram> hoveredAnchor = null;
+
+    /** Line connection currently being moved or reshaped; it is drawn on the overlay as well. */
+    LineConnection draggedLine = null;
+
+    /** Reused list collecting the line connections drawn together by {@link #drawLineConnections}. */
+    final List<LineConnection> lineBatch = new ArrayList<>();
 
 
     /**
@@ -217,19 +424,22 @@ public class Controller {
         Canvas canvas = new Canvas(910, 780);
         GraphicsContext gc = canvas.getGraphicsContext2D();
         canvasContainer.getChildren().add(canvas);
+
+        // The overlay lets mouse events through to the container below it
+        overlayCanvas = new Canvas(910, 780);
+        overlayCanvas.setMouseTransparent(true);
+        canvasContainer.getChildren().add(overlayCanvas);
         rootItem = new TreeItem<>("Model");
         rootItem.setExpanded(true);
         classHierarchyView.setRoot(rootItem);
 
-        scaleTransform = new Scale(1, 1, 0, 0);  // Initialize with no scaling
-        canvasContainer.getTransforms().add(scaleTransform);
         canvasContainer.setFocusTraversable(true);
         canvasContainer.requestFocus();
 
         // Request focus when the user clicks on the canvasContainer
         canvasContainer.setOnMouseClicked(event -> canvasContainer.requestFocus());
 
-        // Add event listeners for zooming
+        // Add event listeners for zooming and panning
         canvasContainer.addEventFilter(ScrollEvent.SCROLL, this::handleZoom);
 
         // Wait until the Scene is set before adding the KeyEvent filter
@@ -241,19 +451,19 @@ public class Controller {
 
 
         canvasContainer.widthProperty().addListener((observable, oldValue, newValue) -> {
-            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
             canvas.setWidth(newValue.doubleValue());
-            drawGrid(gc);  // Redraw the grid with the new width
-            redrawCanvas(gc);  // Redraw class diagrams and connections
+            overlayCanvas.setWidth(newValue.doubleValue());
+            viewChanged = true;  // Show more or less of the world, cached tiles stay valid
+            requestRepaint();    // on the next pulse, once for all resize events
         });
 
 
 
         canvasContainer.heightProperty().addListener((observable, oldValue, newValue) -> {
-            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
             canvas.setHeight(newValue.doubleValue());
-            drawGrid(gc);  // Redraw the grid with the new height
-            redrawCanvas(gc);  // Redraw class diagrams and connections
+            overlayCanvas.setHeight(newValue.doubleValue());
+            viewChanged = true;  // Show more or less of the world, cached tiles stay valid
+            requestRepaint();    // on the next pulse, once for all resize events
         });
 
         canvasContainer.focusedProperty().addListener((obs, oldVal, newVal) -> {
@@ -278,6 +488,10 @@ public class Controller {
         // Draw the grid once
         drawGrid(gc);
 
+        // Show the overview of the model above the class hierarchy; a click centres the view on that point
+        overviewSection.getChildren().add(minimap.getNode());
+        minimap.setOnNavigate(this::centerViewOn);
+
         List<Button> buttons = new ArrayList<>();
         buttons.add(classButton);
         buttons.add(associationButton);
@@ -292,12 +506,15 @@ public class Controller {
 
         // Set an event on the canvas container to create the class diagram when clicked
         canvasContainer.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.MIDDLE) {
+                return; // The middle button pans the view
+            }
             if (activeButton == classButton) {
                 // Create a new class diagram if the Class button is active
-                createClassDiagram(gc, event.getX(), event.getY());
+                createClassDiagram(gc, worldX(event), worldY(event));
             } else if (activeButton == interfaceButton) {
                 // Create a new interface diagram if the Interface button is active
-                createInterfaceDiagram(gc, event.getX(), event.getY());
+                createInterfaceDiagram(gc, worldX(event), worldY(event));
             } else {
                 // Handle selection and inline editing of a class or interface diagram
                 handleClassEditing(event, gc);
@@ -309,6 +526,10 @@ public class Controller {
         canvasContainer.setOnMouseDragged(this::onMouseDragged);
         canvasContainer.setOnMouseReleased(this::onMouseReleased);
 
+        // Hover feedback, repainted on the overlay at most once per pulse
+        canvasContainer.setOnMouseMoved(this::onMouseMoved);
+        canvasContainer.setOnMouseExited(event -> setHover(null, null));
+
         // Attach handlers for adding attributes and operations
         addAttributeButton.setOnAction(event -> onAddAttribute(gc));
         addOperationButton.setOnAction(event -> onAddOperation(gc));
@@ -389,7 +610,8 @@ public class Controller {
     public void updateClassHierarchy() {
         Platform.runLater(() -> {
             rootItem.getChildren().clear(); // Clear the hierarchy
-            for (ClassDiagram diagram : diagrams.values()) {
+            hierarchyItems.clear();
+            for (ClassDiagram diagram : diagrams.values()) { // In the order of creation
                 TreeItem<String> node;
 
                 if (diagram instanceof InterfaceDiagram) {
@@ -403,22 +625,38 @@ public class Controller {
 
                 // Add attributes as children (only for ClassDiagram)
                 if (!(diagram instanceof InterfaceDiagram)) {
-                    for (String attribute : diagram.attributes) {
-                        node.getChildren().add(new TreeItem<>("Attribute: " + attribute));
+                    for (Member attribute : diagram.attributes) {
+                        node.getChildren().add(new TreeItem<>("Attribute: " + attribute.getText()));
                     }
                 }
 
                 // Add operations as children (for both ClassDiagram and InterfaceDiagram)
-                for (String operation : diagram.operations) {
-                    node.getChildren().add(new TreeItem<>("Operation: " + operation));
+                for (Member operation : diagram.operations) {
+                    node.getChildren().add(new TreeItem<>("Operation: " + operation.getText()));
                 }
 
                 // Add the node to the root item
                 rootItem.getChildren().add(node);
+                if (diagram.id != IdMap.NO_ID) {
+                    hierarchyItems.put(diagram.id, node);
+                }
             }
+            revealSelectionInHierarchy();
         });
     }
 
+    /**
+     * Selects the node of the selected diagram in the class hierarchy, looked up by the diagram ID.
+     */
+    public void revealSelectionInHierarchy() {
+        TreeItem<String> item = hierarchyItems.get(selectedDiagramId);
+        if (item != null) {
+            classHierarchyView.getSelectionModel().select(item);
+        } else {
+            classHierarchyView.getSelectionModel().clearSelection();
+        }
+    }
+
     /**
      * Creates a styled Label with italic text.
      *
@@ -433,19 +671,21 @@ public class Controller {
 
     /**
      * Creates a new Interface Diagram at the specified coordinates.
-     * If a diagram at the location doesn't already exist, it is created, drawn, and added to the hierarchy.
+     * It gets a new ID, is drawn, and added to the hierarchy.
      *
      * @param gc the GraphicsContext for drawing the diagram
      * @param x the x-coordinate for the diagram
      * @param y the y-coordinate for the diagram
      */
     public void createInterfaceDiagram(GraphicsContext gc, double x, double y) {
-        String key = "Interface" + x + "," + y;
-        if (!diagrams.containsKey(key)) {
-            diagrams.put(key, new InterfaceDiagram(x, y)); // Create and store a new interface diagram
-            drawInterfaceDiagram(gc, (InterfaceDiagram) diagrams.get(key));
-            updateClassHierarchy();
-        }
+        InterfaceDiagram diagram = new InterfaceDiagram(x, y);
+        diagram.id = diagrams.allocateId();
+        indexDiagram(diagram);
+        diagrams.put(diagram.id, diagram); // Create and store a new interface diagram
+        placeOnTop(diagram);
+        markDiagramDirty(diagram);
+        requestRepaint();
+        updateClassHierarchy();
     }
 
     /**
@@ -455,6 +695,8 @@ public class Controller {
      */
     @FXML
     public void updateUIForSelection() {
+        revealSelectionInHierarchy();
+
         if (selectedComponent instanceof InterfaceDiagram) {
             // Disable the "Add Attribute" button
             addAttributeButton.setDisable(true);
@@ -480,91 +722,614 @@ public class Controller {
     }
 
     /**
-     * Handles changes to the selected component, updating the UI and redrawing the canvas.
+     * Handles changes to the selected component, updating the UI and the selection highlight.
      */
     public void handleSelectionChange() {
         updateUIForSelection();
-        redrawCanvas(((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D());
+        requestRepaint();
     }
 
     /**
-     * Draws an Interface Diagram at its specified location with a rectangle, labels, and operations.
-     * Highlights the diagram if selected and draws connection points.
+     * Requests a repaint of the areas marked as dirty and of the overlay on the next pulse.
      *
-     * @param gc the GraphicsContext used for drawing
-     * @param interfaceDiagram the InterfaceDiagram to draw
+     * <p>Event handlers call this instead of painting directly, so that several mouse events
+     * arriving within one frame result in a single paint. If nothing was marked as dirty,
+     * only the overlay is redrawn, e.g. after the selection changed or the dragged element moved.</p>
      */
-    public void drawInterfaceDiagram(GraphicsContext gc, InterfaceDiagram interfaceDiagram) {
-        double x = interfaceDiagram.x;
-        double y = interfaceDiagram.y;
+    public void requestRepaint() {
+        renderScheduler.requestRender();
+    }
 
-        // Calculate the required width based on the widest text
-        double maxTextWidth = getMaxTextWidth(gc, interfaceDiagram);
-        double width = Math.max(classDiagramWidth, maxTextWidth + 40); // Add more padding
+    /**
+     * Paints everything requested since the last pulse. Called by the {@link RenderScheduler}
+     * at most once per pulse.
+     */
+    public void paintFrame() {
+        GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
+        applyDragMove();
+        if (!dirtyRegion.isEmpty() || viewChanged) {
+            repaintDirtyRegion(gc); // Redraws the overlay as well
+        } else {
+            redrawOverlay();
+        }
+    }
 
-        double rowHeight = 30; // Row height for each section
-        double baseHeight = rowHeight * 2; // Height for <<interface>> and name rows
-        double operationHeight = Math.max(rowHeight, rowHeight * interfaceDiagram.operations.size()); // At least one row for operations
-        double height = baseHeight + operationHeight; // Total height of the interface diagram
-
-        // Update the interface diagram dimensions
-        interfaceDiagram.width = width;
-        interfaceDiagram.height = height;
-
-        // Check if this diagram is selected
-        boolean isSelected = selectedComponent == interfaceDiagram;
-
-        // Draw the interface rectangle with a light green fill and green border if selected
-        gc.setFill(isSelected ? Color.LIGHTBLUE : Color.WHITE); // Light blue for selected
-        gc.fillRect(x, y, width, height);
-        gc.setStroke(isSelected ? Color.BLUE : Color.BLACK); // Blue border for selected
-        gc.setLineWidth(isSelected ? 3 : 2); // Thicker border for selected
-        gc.strokeRect(x, y, width, height);
-
-        // Draw <<interface>> label
-        gc.setFill(Color.BLACK);
-        gc.setFont(Font.font("Arial", 12));
-        String interfaceLabel = "<<interface>>";
-        Text labelHelper = new Text(interfaceLabel);
-        labelHelper.setFont(gc.getFont());
-        double labelWidth = labelHelper.getBoundsInLocal().getWidth();
-        double labelX = x + (width - labelWidth) / 2; // Center horizontally
-        gc.fillText(interfaceLabel, labelX, y + 15);
-
-        // Draw interface name
-        gc.setFont(Font.font("Arial", 14));
-        String interfaceName = interfaceDiagram.interfaceName;
-        Text nameHelper = new Text(interfaceName);
-        nameHelper.setFont(gc.getFont());
-        double nameWidth = nameHelper.getBoundsInLocal().getWidth();
-        double nameX = x + (width - nameWidth) / 2; // Center horizontally
-        gc.fillText(interfaceName, nameX, y + 40);
-
-        // Draw separator line below <<interface>> and name
-        gc.strokeLine(x, y + baseHeight, x + width, y + baseHeight);
-
-        // Draw operations (leave space if empty)
-        gc.setFont(Font.font("Arial", 12));
-        if (interfaceDiagram.operations.isEmpty()) {
-            gc.fillText(" ", x + 10, y + baseHeight + rowHeight / 2 + 5); // Placeholder for empty operations
+    /**
+     * Redraws the interaction overlay above the diagram canvas.
+     *
+     * <p>The overlay holds the selection highlight, the diagram or line being dragged together
+     * with its attached lines, and the preview of a line being drawn. Redrawing it costs one
+     * clear and a handful of shapes, so selecting or dragging an element never requires the
+     * diagram canvas below to be repainted.</p>
+     */
+    public void redrawOverlay() {
+        GraphicsContext gc = overlayCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, overlayCanvas.getWidth(), overlayCanvas.getHeight());
+
+        // Element being dragged, lifted off the diagram canvas, with its unselected lines
+        overlayList.clear();
+        lineBatch.clear();
+        if (!draggedDiagrams.isEmpty()) {
+            Collection<ClassDiagram> selection = getSelectedDiagrams();
+            for (ClassDiagram diagram : draggedDiagrams) {
+                drawDiagram(overlayList, diagram, selection.contains(diagram));
+            }
+            for (ClassDiagram diagram : draggedDiagrams) {
+                // Lines leaving a dragged diagram, then those entering it from a diagram that stays,
+                // so that a line between two dragged diagrams is added once
+                for (LineConnection line : connectionIndex.outgoing(diagram)) {
+                    if (line != selectedComponent && line != draggedLine) {
+                        lineBatch.add(line);
+                    }
+                }
+                for (LineConnection line : connectionIndex.incoming(diagram)) {
+                    if (!draggedDiagrams.contains(line.startDiagram) && line != selectedComponent && line != draggedLine) {
+                        lineBatch.add(line);
+                    }
+                }
+            }
+        }
+        if (draggedLine != null && draggedLine != selectedComponent) {
+            lineBatch.add(draggedLine);
+        }
+        drawLineConnections(overlayList, lineBatch, false);
+
+        // Selection highlight drawn over the unselected elements on the diagram canvas
+        if (selectedComponent instanceof ClassDiagram) {
+            for (ClassDiagram diagram : getSelectedDiagrams()) {
+                if (!draggedDiagrams.contains(diagram)) {
+                    drawDiagram(overlayList, diagram, true);
+                }
+            }
+        } else if (selectedComponent instanceof LineConnection) {
+            drawLineConnection(overlayList, (LineConnection) selectedComponent, true);
+        }
+
+        // Selection rectangle being dragged, one screen pixel wide at every zoom level
+        if (isSelectingArea) {
+            double minX = Math.min(marqueeStartX, marqueeEndX);
+            double minY = Math.min(marqueeStartY, marqueeEndY);
+            double width = Math.abs(marqueeEndX - marqueeStartX);
+            double height = Math.abs(marqueeEndY - marqueeStartY);
+            overlayList.setFill(MARQUEE_COLOR.deriveColor(0, 1, 1, 0.15));
+            overlayList.fillRect(minX, minY, width, height);
+            overlayList.setStroke(MARQUEE_COLOR);
+            overlayList.setLineWidth(1 / viewTransform.getScale());
+            overlayList.strokeRect(minX, minY, width, height);
+        }
+
+        // Outline of the element under the mouse and the connection point a line would snap to
+        drawHover(overlayList);
+
+        // Preview of a line being drawn
+        if (isDrawingLine) {
+            overlayList.setStroke(Color.GRAY);
+            overlayList.setLineWidth(1);
+            overlayList.strokeLine(startX, startY, previewEndX, previewEndY);
+        }
+
+        // Everything on the overlay is drawn in world coordinates
+        updateVisibleRegion();
+        gc.save();
+        viewTransform.apply(gc);
+        overlayList.replay(gc, null, diagramImageCache, viewTransform.getScale());
+        gc.restore();
+    }
+
+    /**
+     * Checks whether a line connection is currently drawn on the overlay because it is
+     * being dragged itself or is attached to the diagram being dragged.
+     *
+     * @param line the line connection to check
+     * @return {@code true} if the line is left out of the diagram canvas
+     */
+    public boolean isDraggedLine(LineConnection line) {
+        return line == draggedLine
+                || (!draggedDiagrams.isEmpty()
+                        && (draggedDiagrams.contains(line.startDiagram) || draggedDiagrams.contains(line.endDiagram)));
+    }
+
+    /**
+     * Records a class or interface diagram as one element of a display list.
+     *
+     * <p>Unless it is highlighted, the element is keyed by the diagram, so replaying it onto the
+     * canvas copies the image kept by the {@link #diagramImageCache} instead of drawing it shape by shape.</p>
+     *
+     * @param list        the {@link DisplayList} the drawing is recorded into
+     * @param diagram     the diagram to draw
+     * @param highlighted whether the diagram is drawn with the selection highlight
+     */
+    public void drawDiagram(DisplayList list, ClassDiagram diagram, boolean highlighted) {
+        sceneRecorder.recordBox(list, snapshotOf(diagram), highlighted, getDetailTier());
+    }
+
+    /**
+     * Copies a class or interface diagram for recording, measuring it first if its size is outdated.
+     *
+     * @param diagram the diagram to copy
+     * @return the immutable copy
+     */
+    public SceneSnapshot.Box snapshotOf(ClassDiagram diagram) {
+        if (!diagram.layoutValid) {
+            updateDiagramSize(diagram);
+        }
+        return new SceneSnapshot.Box(diagram);
+    }
+
+    /**
+     * Copies a line connection for recording.
+     *
+     * @param line the line connection to copy
+     * @return the immutable copy
+     */
+    public SceneSnapshot.Edge snapshotOf(LineConnection line) {
+        return new SceneSnapshot.Edge(line, line.getAllPoints(), lineKindOf(line), line.text);
+    }
+
+    /**
+     * Returns the kind of a line connection, deciding the shape drawn at its end.
+     *
+     * @param line the line connection
+     * @return the kind of the line
+     */
+    public SceneSnapshot.LineKind lineKindOf(LineConnection line) {
+        if (line.lineType == aggregationButton) {
+            return SceneSnapshot.LineKind.AGGREGATION;
+        } else if (line.lineType == compositionButton) {
+            return SceneSnapshot.LineKind.COMPOSITION;
+        } else if (line.lineType == InheritanceButton) {
+            return SceneSnapshot.LineKind.INHERITANCE;
+        }
+        return SceneSnapshot.LineKind.ASSOCIATION;
+    }
+
+    /**
+     * Copies everything drawn on the diagram canvas. Elements being dragged are left out,
+     * as they are drawn on the overlay.
+     *
+     * @return the immutable snapshot, drawn at the current level of detail
+     */
+    public SceneSnapshot captureScene() {
+        List<SceneSnapshot.Box> boxes = new ArrayList<>(diagrams.size());
+        for (ClassDiagram diagram : drawingOrder.values()) {
+            if (!draggedDiagrams.contains(diagram)) {
+                boxes.add(snapshotOf(diagram));
+            }
+        }
+        List<SceneSnapshot.Edge> edges = new ArrayList<>(lineConnections.size());
+        for (LineConnection line : lineConnections) {
+            if (!isDraggedLine(line)) {
+                edges.add(snapshotOf(line));
+            }
+        }
+        return new SceneSnapshot(boxes, edges, getDetailTier());
+    }
+
+    /**
+     * Marks the area covered by a class or interface diagram as dirty, together with
+     * every line connection attached to it.
+     *
+     * <p>Call this once before and once after changing a diagram, so that both its old and
+     * its new bounds are repainted by {@link #repaintDirtyRegion(GraphicsContext)}.</p>
+     *
+     * @param diagram the diagram whose area has to be repainted
+     */
+    public void markDiagramDirty(ClassDiagram diagram) {
+        double padding = 5; // Covers the thick selection border and the connection points
+        dirtyRegion.add(diagram.x - padding, diagram.y - padding,
+                diagram.width + 2 * padding, diagram.height + 2 * padding);
+        dirtyDiagrams.add(diagram); // Recorded again by the next paint
+
+        // Lines attached to the diagram move together with it
+        for (LineConnection line : connectionIndex.incident(diagram)) {
+            markLineDirty(line);
+        }
+    }
+
+    /**
+     * Marks the area covered by a line connection as dirty, including its end shape and label.
+     *
+     * @param line the line connection whose area has to be repainted
+     */
+    public void markLineDirty(LineConnection line) {
+        double[] bounds = getLineBounds(line);
+        dirtyRegion.add(bounds[0], bounds[1], bounds[2] - bounds[0], bounds[3] - bounds[1]);
+        dirtyLines.add(line); // Its group is recorded again by the next paint
+
+        // Every change of the points of a line marks it dirty, so this keeps the segment index current
+        lineIndex.put(line, line.getAllPoints());
+    }
+
+    /**
+     * Marks the area of any selectable component (diagram, line or control point) as dirty.
+     *
+     * @param component the component to repaint; {@code null} is ignored
+     */
+    public void markComponentDirty(Object component) {
+        if (component instanceof ClassDiagram) {
+            markDiagramDirty((ClassDiagram) component);
+        } else if (component instanceof LineConnection) {
+            markLineDirty((LineConnection) component);
+        } else if (component instanceof double[] && selectedControlPointLine != null) {
+            markLineDirty(selectedControlPointLine);
+        }
+    }
+
+    /**
+     * Calculates the area covered by a line connection.
+     *
+     * <p>The bounds include all segments, the diamond or triangle at the end of the line
+     * and the optional label drawn at the middle of the last segment.</p>
+     *
+     * @param line the line connection to measure
+     * @return the bounds as {minX, minY, maxX, maxY}
+     */
+    public double[] getLineBounds(LineConnection line) {
+        return SceneRecorder.getEdgeBounds(line.getAllPoints(), line.text);
+    }
+
+    /**
+     * Repaints every area marked as dirty since the last paint and clears the dirty region.
+     * The overlay is redrawn afterwards, as the changed elements may be selected.
+     *
+     * <p>Dirty areas are world rectangles. Only the tiles of the {@link TileCache} they touch are
+     * discarded; the view is then composed from the grid and the tiles, rendering just the
+     * discarded tiles that are visible. Zooming or panning alone discards nothing, so the cost
+     * of a repaint depends on the size of the viewport rather than on the extent of the model.</p>
+     *
+     * @param gc the {@link GraphicsContext} used for drawing
+     */
+    public void repaintDirtyRegion(GraphicsContext gc) {
+        // The model changed, or another level of detail changes the look of every element
+        if (!dirtyRegion.isEmpty() || displayListTier != getDetailTier()) {
+            recordDisplayList();
+        }
+        composeView(gc);
+        redrawOverlay();
+    }
+
+    /**
+     * Records the fragments of the {@link #displayList} belonging to the elements marked dirty,
+     * and discards the tiles covering the dirty region.
+     *
+     * <p>Only the dirty diagrams and the groups of lines containing a dirty line are copied into
+     * a {@link SceneChange} and recorded again; the fragments of every other element are kept. A
+     * full repaint, e.g. after loading a file, copies and records everything. At another level of
+     * detail, every fragment is recorded again from the copy it was recorded from, so no element
+     * that did not change is copied again. Small changes are recorded right away. Changes of at least
+     * {@link #BACKGROUND_RECORDING_THRESHOLD} elements are recorded by the
+     * {@link #backgroundRecorder} on its worker thread, so input handling does not wait for the
+     * geometry and text layout. Until the recording arrives, the dirty region is kept in the
+     * {@link #pendingRegion} and the tiles of the previous frame stay on screen; a later change
+     * copies the elements still pending again, as the outdated recording is dropped.</p>
+     */
+    public void recordDisplayList() {
+        LevelOfDetail.Tier tier = getDetailTier();
+        if (dirtyRegion.isFullRepaint()) {
+            pendingFullRecording = true;
+        }
+        if (displayListTier != tier) {
+            pendingTierChange = true;
+            dirtyRegion.addAll(); // Every tile looks different
+        }
+        displayListTier = tier;
+        pendingRegion.addRegion(dirtyRegion);
+        dirtyRegion.clear();
+
+        SceneChange change;
+        if (pendingFullRecording) {
+            // The groups of the lines are only known once everything is recorded
+            dirtyDiagrams.clear();
+            dirtyLines.clear();
+            pendingDiagrams.clear();
+            pendingLineGroups.clear();
+            change = SceneChange.of(captureScene());
         } else {
-            for (int i = 0; i < interfaceDiagram.operations.size(); i++) {
-                gc.fillText(
-                        interfaceDiagram.operations.get(i),
-                        x + 10,
-                        y + baseHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
-                );
+            change = captureChanges(tier);
+        }
+
+        if (change.size() >= BACKGROUND_RECORDING_THRESHOLD) {
+            backgroundRecorder.submit(change);
+            return;
+        }
+
+        // A recording still running on the worker thread is outdated now
+        backgroundRecorder.cancel();
+        installDisplayList(sceneRecorder.record(change));
+    }
+
+    /**
+     * Copies the elements changed since the last recording was installed, moving the dirty line
+     * connections into the groups they lie in now. After a change of the level of detail, the
+     * copies every other fragment of the {@link #displayList} was recorded from are added, so
+     * that they are recorded again as well.
+     *
+     * @param tier the level of detail to draw with
+     * @return the change to record
+     */
+    public SceneChange captureChanges(LevelOfDetail.Tier tier) {
+        pendingDiagrams.addAll(dirtyDiagrams);
+        dirtyDiagrams.clear();
+
+        // A moved line leaves its group and may join another one; both are recorded again
+        for (LineConnection line : dirtyLines) {
+            Long oldGroup = lineGroupOfLine.remove(line);
+            if (oldGroup != null) {
+                Set<LineConnection> members = lineGroups.get(oldGroup);
+                members.remove(line);
+                if (members.isEmpty()) {
+                    lineGroups.remove(oldGroup);
+                }
+                pendingLineGroups.add(oldGroup);
+            }
+            if (lineConnections.contains(line) && !isDraggedLine(line)) {
+                long group = SceneRecorder.lineGroupOf(getLineBounds(line));
+                lineGroupOfLine.put(line, group);
+                lineGroups.computeIfAbsent(group, key -> new LinkedHashSet<>()).add(line);
+                pendingLineGroups.add(group);
+            }
+        }
+        dirtyLines.clear();
+
+        // Deleted and dragged diagrams are removed from the display list
+        List<SceneSnapshot.Box> boxes = new ArrayList<>();
+        List<Object> removedBoxes = new ArrayList<>();
+        for (ClassDiagram diagram : pendingDiagrams) {
+            if (diagrams.get(diagram.id) == diagram && !draggedDiagrams.contains(diagram)) {
+                boxes.add(snapshotOf(diagram));
+            } else {
+                removedBoxes.add(diagram);
+            }
+        }
+
+        Map<Long, List<SceneSnapshot.Edge>> groups = new LinkedHashMap<>();
+        for (Long group : pendingLineGroups) {
+            List<SceneSnapshot.Edge> edges = new ArrayList<>();
+            for (LineConnection line : lineGroups.getOrDefault(group, Collections.emptySet())) {
+                edges.add(snapshotOf(line));
             }
+            groups.put(group, edges);
         }
 
-        // Draw connection points
-        gc.setFill(Color.RED); // Red for connection points
-        double[][] connectionPoints = interfaceDiagram.getConnectionPoints();
-        double radius = 3.0; // Smaller radius for connection points
+        // The copies are immutable, so the ones of unchanged elements are shared, not taken again
+        if (pendingTierChange) {
+            Map<Object, SceneSnapshot.Box> allBoxes = new LinkedHashMap<>();
+            for (Object source : displayList.getSources(SceneRecorder.BOX_LAYER).values()) {
+                SceneSnapshot.Box box = (SceneSnapshot.Box) source;
+                allBoxes.put(box.key, box);
+            }
+            for (Object key : removedBoxes) {
+                allBoxes.remove(key);
+            }
+            for (SceneSnapshot.Box box : boxes) {
+                allBoxes.put(box.key, box);
+            }
+            boxes = new ArrayList<>(allBoxes.values());
 
-        for (double[] point : connectionPoints) {
-            gc.fillOval(point[0] - radius, point[1] - radius, 2 * radius, 2 * radius);
+            Map<Long, List<SceneSnapshot.Edge>> allGroups = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> source : displayList.getSources(SceneRecorder.LINE_LAYER).entrySet()) {
+                @SuppressWarnings("unchecked")
+                List<SceneSnapshot.Edge> edges = (List<SceneSnapshot.Edge>) source.getValue();
+                allGroups.put((Long) source.getKey(), edges);
+            }
+            allGroups.putAll(groups);
+            groups = allGroups;
         }
+        return new SceneChange(boxes, removedBoxes, groups, tier);
+    }
+
+    /**
+     * Receives a patch recorded on the worker thread and repaints the areas that
+     * changed since it was requested.
+     *
+     * @param patch the recorded patch
+     */
+    public void onDisplayListRecorded(ScenePatch patch) {
+        installDisplayList(patch);
+        viewChanged = true;
+        requestRepaint();
+    }
+
+    /**
+     * Applies a patch to the {@link #displayList} and discards the tiles covering the areas
+     * changed since the patch was requested.
+     *
+     * @param patch the recorded patch, containing every element changed since the last one
+     */
+    public void installDisplayList(ScenePatch patch) {
+        displayList.apply(patch.fragments);
+        if (patch.lineGroups != null) {
+            lineGroups.clear();
+            lineGroupOfLine.clear();
+            for (Map.Entry<Long, List<Object>> group : patch.lineGroups.entrySet()) {
+                Set<LineConnection> members = new LinkedHashSet<>();
+                for (Object line : group.getValue()) {
+                    members.add((LineConnection) line);
+                    lineGroupOfLine.put((LineConnection) line, group.getKey());
+                }
+                lineGroups.put(group.getKey(), members);
+            }
+        }
+        pendingDiagrams.clear();
+        pendingLineGroups.clear();
+        pendingFullRecording = false;
+        pendingTierChange = false;
+        displayListBounds = displayList.getBounds();
+
+        // The minimap is patched in the same areas as the tiles
+        if (pendingRegion.isFullRepaint()) {
+            tileCache.invalidateAll();
+            minimap.invalidateAll();
+        } else {
+            for (double[] rectangle : pendingRegion.getRectangles()) {
+                tileCache.invalidate(rectangle[0], rectangle[1], rectangle[2], rectangle[3]);
+                minimap.invalidate(rectangle[0], rectangle[1], rectangle[2], rectangle[3]);
+            }
+        }
+        pendingRegion.clear();
+    }
+
+    /**
+     * Paints the view: the grid aligned to the world origin, then the tiles covering the
+     * visible part of the world. Tiles that are not cached are rendered by
+     * {@link #redrawRegion(GraphicsContext, double, double, double, double)}.
+     *
+     * @param gc the {@link GraphicsContext} of the diagram canvas
+     */
+    public void composeView(GraphicsContext gc) {
+        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+        drawGrid(gc);
+
+        // Count the elements drawn into newly rendered tiles
+        visibleRegion.resetCounts();
+        tileCache.paint(gc, viewTransform, canvas.getWidth(), canvas.getHeight(), this::redrawRegion);
+        updateVisibleRegion();
+        viewChanged = false;
+
+        // Patch the thumbnail where the model changed and move the viewport rectangle
+        minimap.update(displayListBounds, viewTransform.getVisibleWorldBounds(canvas.getWidth(), canvas.getHeight()),
+                this::drawMinimapRegion);
+    }
+
+    /**
+     * Draws the diagrams and line connections intersecting a rectangular part of the world into
+     * the thumbnail of the {@link #minimap}, directly from the {@link #displayList}.
+     *
+     * <p>Nothing is recorded again and no tile is rendered; the images of the
+     * {@link #diagramImageCache} are not used either, as they are far too detailed for the
+     * tiny scale of the thumbnail.</p>
+     *
+     * @param gc   the {@link GraphicsContext} of the thumbnail, transformed to world coordinates
+     * @param minX the left edge of the area in world coordinates
+     * @param minY the top edge of the area in world coordinates
+     * @param maxX the right edge of the area in world coordinates
+     * @param maxY the bottom edge of the area in world coordinates
+     */
+    public void drawMinimapRegion(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        VisibleRegion region = new VisibleRegion();
+        region.set(minX, minY, maxX, maxY);
+        displayList.replay(gc, region, null, 1);
+    }
+
+    /**
+     * Pans the view so that a world point lies in the middle of the canvas, e.g. when the user
+     * clicks into the {@link #minimap}. Cached tiles are only moved, not rendered again.
+     *
+     * @param worldX the x-coordinate of the point in world coordinates
+     * @param worldY the y-coordinate of the point in world coordinates
+     */
+    public void centerViewOn(double worldX, double worldY) {
+        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+        panView(canvas.getWidth() / 2 - viewTransform.worldToScreenX(worldX),
+                canvas.getHeight() / 2 - viewTransform.worldToScreenY(worldY));
+    }
+
+    /**
+     * Draws the diagrams and line connections intersecting a rectangular part of the world.
+     * Used by the {@link TileCache} to render a single tile.
+     *
+     * <p>The GraphicsContext is already transformed to world coordinates. The elements of the
+     * {@link #displayList} intersecting the area are replayed, in recording order, so that tiles
+     * fit together seamlessly. Elements being dragged are not recorded, as they are drawn on the
+     * overlay.</p>
+     *
+     * @param gc   the {@link GraphicsContext} of the tile
+     * @param minX the left edge of the area in world coordinates
+     * @param minY the top edge of the area in world coordinates
+     * @param maxX the right edge of the area in world coordinates
+     * @param maxY the bottom edge of the area in world coordinates
+     */
+    public void redrawRegion(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        // Cull against the tile rather than the viewport, as the tile is cached for later views
+        visibleRegion.set(minX, minY, maxX, maxY);
+        displayList.replay(gc, visibleRegion, diagramImageCache, viewTransform.getScale());
+    }
+
+    /**
+     * Renders the whole diagram into an image by recording it into a new {@link DisplayList}
+     * and replaying that, at the current zoom factor and on a white background with the grid.
+     *
+     * <p>Unlike a snapshot of the canvas, the image covers every element, not just the part of
+     * the world that is currently visible. Very large diagrams are scaled down so that the image
+     * fits into a texture.</p>
+     *
+     * @return the rendered image
+     */
+    public WritableImage renderDiagramImage() {
+        // Record synchronously, the display list of the canvas may still be recorded in the background
+        DisplayList exportList = new DisplayList();
+        sceneRecorder.record(exportList, captureScene());
+        double[] bounds = exportList.getBounds();
+        if (bounds == null) {
+            Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+            bounds = viewTransform.getVisibleWorldBounds(canvas.getWidth(), canvas.getHeight());
+        }
+
+        double margin = 20;
+        double worldWidth = bounds[2] - bounds[0] + 2 * margin;
+        double worldHeight = bounds[3] - bounds[1] + 2 * margin;
+        double maxSize = 8192; // Largest texture supported by most graphics cards
+        double scale = Math.min(viewTransform.getScale(), Math.min(maxSize / worldWidth, maxSize / worldHeight));
+
+        Canvas exportCanvas = new Canvas(Math.ceil(worldWidth * scale), Math.ceil(worldHeight * scale));
+        GraphicsContext gc = exportCanvas.getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, exportCanvas.getWidth(), exportCanvas.getHeight());
+
+        double originX = (margin - bounds[0]) * scale;
+        double originY = (margin - bounds[1]) * scale;
+        GridLayer exportGrid = new GridLayer();
+        exportGrid.setScale(scale);
+        exportGrid.drawAligned(gc, exportCanvas.getWidth(), exportCanvas.getHeight(), originX, originY);
+
+        gc.save();
+        gc.setTransform(scale, 0, 0, scale, originX, originY);
+        exportList.replay(gc, null, null, scale);
+        gc.restore();
+        return exportCanvas.snapshot(null, null);
+    }
+
+    /**
+     * Draws an Interface Diagram at its specified location without the selection highlight,
+     * which is drawn on the overlay instead.
+     *
+     * @param list the {@link DisplayList} the drawing is recorded into
+     * @param interfaceDiagram the InterfaceDiagram to draw
+     */
+    public void drawInterfaceDiagram(DisplayList list, InterfaceDiagram interfaceDiagram) {
+        drawInterfaceDiagram(list, interfaceDiagram, false);
+    }
+
+    /**
+     * Draws an Interface Diagram at its specified location with a rectangle, labels, and operations.
+     * Highlights the diagram if requested and draws connection points.
+     *
+     * @param list the {@link DisplayList} the drawing is recorded into
+     * @param interfaceDiagram the InterfaceDiagram to draw
+     * @param isSelected whether the diagram is drawn with the selection highlight
+     */
+    public void drawInterfaceDiagram(DisplayList list, InterfaceDiagram interfaceDiagram, boolean isSelected) {
+        sceneRecorder.recordBoxShapes(list, snapshotOf(interfaceDiagram), isSelected, getDetailTier());
     }
 
     /**
@@ -575,24 +1340,18 @@ public class Controller {
      * @return the maximum text width
      */
     public double getMaxTextWidth(GraphicsContext gc, InterfaceDiagram interfaceDiagram) {
-        Text textHelper = new Text();
-        textHelper.setFont(Font.font("Arial", 12));
+        Font font = Font.font("Arial", 12);
 
         // Calculate the width of the <<interface>> label
-        textHelper.setText("<<interface>>");
-        double maxWidth = textHelper.getLayoutBounds().getWidth();
+        double maxWidth = textMeasureCache.getWidth("<<interface>>", font);
 
-        // Calculate the width of the interface name
-        textHelper.setFont(Font.font("Arial", 14)); // Use a larger font for the name
-        textHelper.setText(interfaceDiagram.interfaceName);
-        double interfaceNameWidth = textHelper.getLayoutBounds().getWidth();
+        // Calculate the width of the interface name, using a larger font
+        double interfaceNameWidth = textMeasureCache.getWidth(interfaceDiagram.interfaceName, Font.font("Arial", 14));
         maxWidth = Math.max(maxWidth, interfaceNameWidth);
 
         // Calculate the width of operations
-        textHelper.setFont(Font.font("Arial", 12)); // Reset to the smaller font for operations
-        for (String operation : interfaceDiagram.operations) {
-            textHelper.setText(operation);
-            double operationWidth = textHelper.getLayoutBounds().getWidth();
+        for (Member operation : interfaceDiagram.operations) {
+            double operationWidth = textMeasureCache.getWidth(operation.getText(), font);
             maxWidth = Math.max(maxWidth, operationWidth);
         }
 
@@ -605,9 +1364,10 @@ public class Controller {
      */
     @FXML
     public void resetSelection() {
-        // Clear the selected component and diagram key
+        // Clear the selected component and diagram ID
         selectedComponent = null;
-        selectedDiagramKey = null;
+        selectedDiagramId = IdMap.NO_ID;
+        selectedDiagrams.clear();
 
         // Enable the "Add Attribute" button and remove any blur effect
         addAttributeButton.setDisable(false);
@@ -620,19 +1380,17 @@ public class Controller {
         List<Button> buttons = Arrays.asList(classButton, associationButton, aggregationButton, compositionButton, InheritanceButton, interfaceButton);
         deselectAllButtons(buttons);
 
-        // Redraw the canvas to reflect deselection
-        GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
-        gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-        redrawCanvas(gc);
+        // Remove the selection highlight from the overlay
+        requestRepaint();
 
         // Clear other UI elements or selection-specific visuals if required
         updateUIForSelection(); // Ensure the UI is fully reset
     }
 
     /**
-     * Handles zooming on the canvas using the ScrollEvent with the Control key held down.
-     * Adjusts the scaling factors to zoom in or out, constraining the zoom to reasonable limits.
-     * Redraws the canvas with the updated scale and redraws all diagrams.
+     * Handles zooming and panning on the canvas using the ScrollEvent.
+     * With the Control key held down, the view is zoomed in or out around the mouse cursor,
+     * constraining the zoom to reasonable limits; otherwise it is panned by the scrolled distance.
      *
      * @param event the ScrollEvent triggered by the user's scrolling action
      */
@@ -640,26 +1398,75 @@ public class Controller {
     public void handleZoom(ScrollEvent event) {
         if (event.isControlDown()) { // Check if Ctrl is held down
             double zoomFactor = (event.getDeltaY() > 0) ? 1.1 : 0.9;
+            zoomView(zoomFactor, event.getX(), event.getY()); // The filter sits on the canvas container
+        } else {
+            panView(event.getDeltaX(), event.getDeltaY());
+        }
+        event.consume();
+    }
 
-            // Update scale factors
-            double newScaleX = scaleTransform.getX() * zoomFactor;
-            double newScaleY = scaleTransform.getY() * zoomFactor;
+    /**
+     * Zooms the view, keeping the centre of the canvas in place. The zoom factor is
+     * constrained to {@link #MIN_ZOOM} and {@link #MAX_ZOOM}.
+     *
+     * @param zoomFactor the factor to multiply the current zoom factor with
+     */
+    public void zoomView(double zoomFactor) {
+        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+        zoomView(zoomFactor, canvas.getWidth() / 2, canvas.getHeight() / 2);
+    }
 
-            // Constrain scaling to reasonable limits
-            newScaleX = Math.max(1, Math.min(newScaleX, 5)); // Prevent zooming out too far or in too much
-            newScaleY = Math.max(1, Math.min(newScaleY, 5));
+    /**
+     * Zooms the view, keeping the world point under a screen position in place, e.g. under the
+     * mouse cursor. The zoom factor is constrained to {@link #MIN_ZOOM} and {@link #MAX_ZOOM}.
+     *
+     * <p>The zoom factor is part of the transform the tiles and the overlay are drawn with, so
+     * the view is drawn again as vectors at the new resolution, rather than stretched. Only the
+     * tiles covering the visible part of the world are rendered.</p>
+     *
+     * @param zoomFactor the factor to multiply the current zoom factor with
+     * @param anchorX    the horizontal screen position that stays in place
+     * @param anchorY    the vertical screen position that stays in place
+     */
+    public void zoomView(double zoomFactor, double anchorX, double anchorY) {
+        if (viewTransform.zoomAt(zoomFactor, anchorX, anchorY)) {
+            // Tiles are rendered again at the new zoom factor, once on the next pulse
+            gridLayer.setScale(viewTransform.getScale());
+            viewChanged = true;
+            requestRepaint();
+        }
+    }
 
-            scaleTransform.setX(newScaleX);
-            scaleTransform.setY(newScaleY);
+    /**
+     * Pans the view by a distance on screen. Cached tiles are only moved, not rendered again.
+     *
+     * @param dx the horizontal distance in screen pixels
+     * @param dy the vertical distance in screen pixels
+     */
+    public void panView(double dx, double dy) {
+        viewTransform.pan(dx, dy);
+        viewChanged = true;
+        requestRepaint();
+    }
 
-            // Redraw canvas
-            Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
-            GraphicsContext gc = canvas.getGraphicsContext2D();
-            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-            drawGrid(gc);
-            redrawDiagrams(gc); // Ensure all diagrams are redrawn
-            event.consume();
-        }
+    /**
+     * Converts the horizontal position of a mouse event on the canvas into a world coordinate.
+     *
+     * @param event the mouse event
+     * @return the x-coordinate in the world
+     */
+    public double worldX(MouseEvent event) {
+        return viewTransform.screenToWorldX(event.getX());
+    }
+
+    /**
+     * Converts the vertical position of a mouse event on the canvas into a world coordinate.
+     *
+     * @param event the mouse event
+     * @return the y-coordinate in the world
+     */
+    public double worldY(MouseEvent event) {
+        return viewTransform.screenToWorldY(event.getY());
     }
 
     /**
@@ -694,14 +1501,14 @@ public class Controller {
      */
     public void clearSelection() {
         selectedComponent = null; // Clear the selected component (class or line)
-        selectedDiagramKey = null; // Clear the selected diagram key
-        GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
-        redrawCanvas(gc); // Redraw the canvas to remove highlighting
+        selectedDiagramId = IdMap.NO_ID; // Clear the selected diagram ID
+        selectedDiagrams.clear();
+        requestRepaint(); // Remove the highlighting, the diagram canvas is unaffected
     }
 
     /**
      * Handles zooming actions using the Control key along with the ADD and SUBTRACT keys.
-     * Zooms in or out on the canvas by adjusting the scaling factors when the user presses
+     * Zooms in or out around the centre of the canvas when the user presses
      * the Control key along with either the ADD (+) or SUBTRACT (-) key.
      *
      * @param event the KeyEvent triggered by the user's keyboard input
@@ -710,12 +1517,10 @@ public class Controller {
         if (event.isControlDown()) {
             if (event.getCode() == KeyCode.ADD ) {
                 // Zoom in
-                scaleTransform.setX(scaleTransform.getX() * 1.1);
-                scaleTransform.setY(scaleTransform.getY() * 1.1);
+                zoomView(1.1);
             } else if (event.getCode() == KeyCode.SUBTRACT) {
                 // Zoom out
-                scaleTransform.setX(scaleTransform.getX() * 0.9);
-                scaleTransform.setY(scaleTransform.getY() * 0.9);
+                zoomView(0.9);
             }
         }
     }
@@ -768,141 +1573,67 @@ public class Controller {
 
     /**
      * Draws a grid on the canvas by using the provided GraphicsContext.
-     * The grid lines are spaced every 10 pixels and have a light gray color.
+     * The grid lines are spaced every 10 world units and have a light gray color.
+     *
+     * <p>The grid is copied from the cached {@link GridLayer} image, which is only
+     * rebuilt when the size of the canvas or the zoom factor changes. Panning only shifts it,
+     * so the grid lines stay at the same world positions.</p>
      *
      * @param gc the GraphicsContext of the canvas where the grid is drawn
      */
     public void drawGrid(GraphicsContext gc) {
-        double canvasWidth = canvasContainer.getWidth();
-        double canvasHeight = canvasContainer.getHeight();
+        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+        double canvasWidth = canvas.getWidth();
+        double canvasHeight = canvas.getHeight();
 
         gc.clearRect(0, 0, canvasWidth, canvasHeight);
-
-        double gridSpacing = 10;
-
-        gc.setLineWidth(0.5);
-        gc.setStroke(Color.rgb(180, 180, 180));
-
-        for (double x = 0; x <= canvasWidth; x += gridSpacing) {
-            gc.strokeLine(x, 0, x, canvasHeight);
-        }
-        for (double y = 0; y <= canvasHeight; y += gridSpacing) {
-            gc.strokeLine(0, y, canvasWidth, y);
-        }
+        gridLayer.drawAligned(gc, canvasWidth, canvasHeight,
+                viewTransform.getTranslateX(), viewTransform.getTranslateY());
     }
 
     /**
      * Creates and stores a new class diagram at the specified position (x, y).
-     * If a class diagram does not already exist at this position, it creates one,
-     * stores it in the `diagrams` map, draws it on the canvas, and updates the class hierarchy.
+     * It gives the diagram a new ID, stores it in the `diagrams` map, draws it on the canvas,
+     * and updates the class hierarchy.
      *
      * @param gc the GraphicsContext of the canvas for rendering the diagram
      * @param x the x-coordinate where the class diagram should be placed
      * @param y the y-coordinate where the class diagram should be placed
      */
     public void createClassDiagram(GraphicsContext gc, double x, double y) {
-        String key = "Class" + x + "," + y;
-        if (!diagrams.containsKey(key)) {
-            diagrams.put(key, new ClassDiagram(x, y)); // Create and store a new class diagram
-            drawClassDiagram(gc, diagrams.get(key));
-            updateClassHierarchy();
-        }
+        ClassDiagram diagram = new ClassDiagram(x, y);
+        diagram.id = diagrams.allocateId();
+        indexDiagram(diagram);
+        diagrams.put(diagram.id, diagram); // Create and store a new class diagram
+        placeOnTop(diagram);
+        markDiagramDirty(diagram);
+        requestRepaint();
+        updateClassHierarchy();
     }
 
     /**
-     * Draws a class diagram on the provided {@link GraphicsContext}.
+     * Records a class diagram into the provided {@link DisplayList}.
      *
      * <p>This method renders the class diagram with a rectangle containing the class name,
      * attributes, and operations. It also displays connection points for diagram connections.
-     * If the diagram is selected, it is highlighted with a specific border and background.</p>
+     * The selection highlight is not drawn here; {@link #redrawOverlay()} draws it above the canvas.</p>
      *
-     * @param gc           the {@link GraphicsContext} used for drawing
+     * @param list         the {@link DisplayList} the drawing is recorded into
      * @param classDiagram the {@link ClassDiagram} to be drawn, containing coordinates, dimensions, and content
      */
-    public void drawClassDiagram(GraphicsContext gc, ClassDiagram classDiagram) {
-        double x = classDiagram.x;
-        double y = classDiagram.y;
-
-        // Calculate the required width based on the widest text
-        double maxTextWidth = getMaxTextWidth(gc, classDiagram);
-        double width = Math.max(classDiagramWidth, maxTextWidth + 40); // Add more padding
-
-        double rowHeight = 30; // Row height for each section
-        double baseHeight = rowHeight; // Height for the class name row
-        double attributeHeight = Math.max(rowHeight, rowHeight * classDiagram.attributes.size()); // At least one row for attributes
-        double operationHeight = Math.max(rowHeight, rowHeight * classDiagram.operations.size()); // At least one row for operations
-        double height = baseHeight + attributeHeight + operationHeight; // Total height of the class diagram
-
-        // Update the class diagram dimensions
-        classDiagram.width = width;
-        classDiagram.height = height;
-
-        // Check if this diagram is selected
-        boolean isSelected = selectedComponent == classDiagram;
-
-        // Draw the class rectangle with a light blue fill and blue border if selected
-        gc.setFill(isSelected ? Color.LIGHTBLUE : Color.WHITE); // Light blue for selected
-        gc.fillRect(x, y, width, height);
-        gc.setStroke(isSelected ? Color.BLUE : Color.BLACK); // Blue border for selected
-        gc.setLineWidth(isSelected ? 3 : 2); // Thicker border for selected
-        gc.strokeRect(x, y, width, height);
-
-        // Draw separators
-        gc.strokeLine(x, y + rowHeight, x + width, y + rowHeight); // Separator below class name
-        gc.strokeLine(x, y + rowHeight + attributeHeight, x + width, y + rowHeight + attributeHeight); // Separator below attributes
-
-        // Draw class name
-        gc.setFill(Color.BLACK);
-        gc.setFont(Font.font("Arial", 14));
-        gc.setFill(Color.BLACK);
-        gc.setFont(Font.font("Arial", 14));
-
-// Use a Text object to calculate the text width
-        Text textHelper = new Text(classDiagram.className);
-        textHelper.setFont(gc.getFont());
-        double textWidth = textHelper.getBoundsInLocal().getWidth(); // Calculate text width
-        double textHeight = textHelper.getBoundsInLocal().getHeight(); // Calculate text height
-
-        double textX = x + (width - textWidth) / 2; // Center the text horizontally
-        double textY = y + rowHeight / 2 + textHeight / 4; // Center the text vertically
-
-        gc.fillText(classDiagram.className, textX, textY);
-
-        // Draw attributes (leave space if empty)
-        gc.setFont(Font.font("Arial", 12));
-        if (classDiagram.attributes.isEmpty()) {
-            gc.fillText(" ", x + 10, y + rowHeight + rowHeight / 2 + 5); // Placeholder for empty attributes
-        } else {
-            for (int i = 0; i < classDiagram.attributes.size(); i++) {
-                gc.fillText(
-                        classDiagram.attributes.get(i),
-                        x + 10,
-                        y + rowHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
-                );
-            }
-        }
-
-        // Draw operations (leave space if empty)
-        if (classDiagram.operations.isEmpty()) {
-            gc.fillText(" ", x + 10, y + rowHeight + attributeHeight + rowHeight / 2 + 5); // Placeholder for empty operations
-        } else {
-            for (int i = 0; i < classDiagram.operations.size(); i++) {
-                gc.fillText(
-                        classDiagram.operations.get(i),
-                        x + 10,
-                        y + rowHeight + attributeHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
-                );
-            }
-        }
-
-        // Draw connection points
-        gc.setFill(Color.RED); // Red for connection points
-        double[][] connectionPoints = classDiagram.getConnectionPoints();
-        double radius = 3.0; // Smaller radius for connection points
+    public void drawClassDiagram(DisplayList list, ClassDiagram classDiagram) {
+        drawClassDiagram(list, classDiagram, false);
+    }
 
-        for (double[] point : connectionPoints) {
-            gc.fillOval(point[0] - radius, point[1] - radius, 2 * radius, 2 * radius);
-        }
+    /**
+     * Draws a class diagram, optionally with the selection highlight.
+     *
+     * @param list         the {@link DisplayList} the drawing is recorded into
+     * @param classDiagram the {@link ClassDiagram} to be drawn
+     * @param isSelected   whether the diagram is drawn with the selection highlight
+     */
+    public void drawClassDiagram(DisplayList list, ClassDiagram classDiagram, boolean isSelected) {
+        sceneRecorder.recordBoxShapes(list, snapshotOf(classDiagram), isSelected, getDetailTier());
     }
 
     /**
@@ -916,35 +1647,175 @@ public class Controller {
      * @return the maximum width of the text in the class diagram
      */
     public double getMaxTextWidth(GraphicsContext gc, ClassDiagram classDiagram) {
-        Text textHelper = new Text();
-        textHelper.setFont(Font.font("Arial", 12));
+        Font font = Font.font("Arial", 12);
 
         // Calculate the width of the class name
-        textHelper.setText(classDiagram.className);
-        double maxWidth = textHelper.getLayoutBounds().getWidth();
+        double maxWidth = textMeasureCache.getWidth(classDiagram.className, font);
 
         // Calculate the width of attributes
-        for (String attribute : classDiagram.attributes) {
-            textHelper.setText(attribute);
-            double attributeWidth = textHelper.getLayoutBounds().getWidth();
+        for (Member attribute : classDiagram.attributes) {
+            double attributeWidth = textMeasureCache.getWidth(attribute.getText(), font);
             maxWidth = Math.max(maxWidth, attributeWidth);
         }
 
         // Calculate the width of operations
-        for (String operation : classDiagram.operations) {
-            textHelper.setText(operation);
-            double operationWidth = textHelper.getLayoutBounds().getWidth();
+        for (Member operation : classDiagram.operations) {
+            double operationWidth = textMeasureCache.getWidth(operation.getText(), font);
             maxWidth = Math.max(maxWidth, operationWidth);
         }
 
         return maxWidth;
     }
 
+    /**
+     * Calculates the width, height and section heights of a class or interface diagram from its
+     * contents and stores them in the diagram.
+     *
+     * <p>The size has to be known before a diagram is drawn, so that the area it covers
+     * can be marked as dirty after an edit. It is kept until the name, attributes or operations
+     * change: call this method after every such change. Drawing only recalculates the size of
+     * diagrams whose layout has been invalidated. The cached image of the diagram is discarded
+     * as well.</p>
+     *
+     * @param diagram the {@link ClassDiagram} or {@link InterfaceDiagram} to measure
+     */
+    public void updateDiagramSize(ClassDiagram diagram) {
+        double oldWidth = diagram.width;
+        double oldHeight = diagram.height;
+        double rowHeight = 30; // Row height for each section
+        double operationHeight = Math.max(rowHeight, rowHeight * diagram.operations.size()); // At least one row for operations
+
+        if (diagram instanceof InterfaceDiagram) {
+            double maxTextWidth = getMaxTextWidth(null, (InterfaceDiagram) diagram);
+            diagram.width = Math.max(classDiagramWidth, maxTextWidth + 40); // Add more padding
+            diagram.height = rowHeight * 2 + operationHeight; // <<interface>> and name rows plus operations
+            diagram.attributeHeight = 0; // Interfaces have no attribute section
+        } else {
+            double maxTextWidth = getMaxTextWidth(null, diagram);
+            double attributeHeight = Math.max(rowHeight, rowHeight * diagram.attributes.size()); // At least one row for attributes
+            diagram.width = Math.max(classDiagramWidth, maxTextWidth + 40); // Add more padding
+            diagram.height = rowHeight + attributeHeight + operationHeight; // Name row, attributes and operations
+            diagram.attributeHeight = attributeHeight;
+        }
+        diagram.operationHeight = operationHeight;
+        diagram.layoutValid = true;
+
+        // Diagrams of the model are picked by their new size
+        if (diagramIndex.contains(diagram)) {
+            indexDiagram(diagram);
+
+            // The connection points moved, and the attached lines with them
+            if (diagram.width != oldWidth || diagram.height != oldHeight) {
+                for (LineConnection line : connectionIndex.incident(diagram)) {
+                    lineIndex.put(line, line.getAllPoints());
+                }
+            }
+        }
+
+        // The contents may have changed, so the cached image is out of date
+        diagramImageCache.invalidate(diagram);
+    }
+
+    /**
+     * Adds a diagram to the {@link #diagramIndex} and its connection points to the
+     * {@link #anchorIndex}, or updates them there, measuring the diagram first if its size is outdated.
+     *
+     * @param diagram the diagram that was created, moved or resized
+     */
+    public void indexDiagram(ClassDiagram diagram) {
+        if (!diagram.layoutValid) {
+            updateDiagramSize(diagram);
+        }
+        diagramIndex.put(diagram, diagram.x, diagram.y, diagram.x + diagram.width, diagram.y + diagram.height);
+        anchorIndex.put(diagram, diagram.getConnectionPoints());
+    }
+
+    /**
+     * Finds the class or interface diagram containing a point.
+     *
+     * @param x the x-coordinate in world coordinates
+     * @param y the y-coordinate in world coordinates
+     * @return the diagram, or {@code null} if the point lies outside of every diagram
+     */
+    public ClassDiagram diagramAt(double x, double y) {
+        // The spatial index narrows the search down to the few diagrams overlapping at the point
+        ClassDiagram topmost = null;
+        for (ClassDiagram diagram : diagramIndex.queryPoint(x, y)) {
+            if (topmost == null || diagram.zOrder > topmost.zOrder) {
+                topmost = diagram;
+            }
+        }
+        return topmost;
+    }
+
+    /**
+     * Places a diagram above all other diagrams in the {@link #drawingOrder}.
+     *
+     * @param diagram the diagram that was created or brought to the front
+     */
+    public void placeOnTop(ClassDiagram diagram) {
+        drawingOrder.remove(diagram.zOrder, diagram);
+        diagram.zOrder = drawingOrder.isEmpty() ? 0 : drawingOrder.lastKey() + 1;
+        drawingOrder.put(diagram.zOrder, diagram);
+    }
+
+    /**
+     * Places a diagram below all other diagrams in the {@link #drawingOrder}.
+     *
+     * @param diagram the diagram sent to the back
+     */
+    public void placeAtBottom(ClassDiagram diagram) {
+        drawingOrder.remove(diagram.zOrder, diagram);
+        diagram.zOrder = drawingOrder.isEmpty() ? 0 : drawingOrder.firstKey() - 1;
+        drawingOrder.put(diagram.zOrder, diagram);
+    }
+
+    /**
+     * Draws the selected class or interface diagram above all other diagrams.
+     */
+    @FXML
+    public void bringToFront() {
+        if (selectedComponent instanceof ClassDiagram) {
+            ClassDiagram diagram = (ClassDiagram) selectedComponent;
+            placeOnTop(diagram);
+            markDiagramDirty(diagram);
+            requestRepaint();
+        }
+    }
+
+    /**
+     * Draws the selected class or interface diagram below all other diagrams.
+     */
+    @FXML
+    public void sendToBack() {
+        if (selectedComponent instanceof ClassDiagram) {
+            ClassDiagram diagram = (ClassDiagram) selectedComponent;
+            placeAtBottom(diagram);
+            markDiagramDirty(diagram);
+            requestRepaint();
+        }
+    }
+
+    /**
+     * Rebuilds the {@link #drawingOrder} from the stored z-order of the {@link #diagrams}, e.g.
+     * after loading a model. Diagrams of older files share the same z-order and are ordered by
+     * their IDs; the z-order is numbered again from zero.
+     */
+    public void rebuildDrawingOrder() {
+        List<ClassDiagram> ordered = new ArrayList<>(diagrams.values());
+        ordered.sort(Comparator.comparingLong((ClassDiagram diagram) -> diagram.zOrder)
+                .thenComparingInt(diagram -> diagram.id));
+        drawingOrder.clear();
+        for (ClassDiagram diagram : ordered) {
+            placeOnTop(diagram);
+        }
+    }
+
     /**
      * Selects a class diagram based on mouse coordinates.
      *
      * <p>This method determines whether the mouse click falls within any class diagram's
-     * bounding box. If a diagram is selected, its key and reference are stored, and the UI
+     * bounding box. If a diagram is selected, its ID and reference are stored, and the UI
      * is updated accordingly.</p>
      *
      * @param mouseX the X-coordinate of the mouse click
@@ -952,23 +1823,18 @@ public class Controller {
      */
     public void selectDiagram(double mouseX, double mouseY) {
         // Reset selection
-        selectedDiagramKey = null;
+        selectedDiagramId = IdMap.NO_ID;
         selectedComponent = null;
 
-        // Iterate over all class diagrams to find the one containing the mouse coordinates
-        for (Map.Entry<String, ClassDiagram> entry : diagrams.entrySet()) {
-            ClassDiagram diagram = entry.getValue();
+        // Look up the diagram containing the mouse coordinates in the spatial index
+        ClassDiagram diagram = diagramAt(mouseX, mouseY);
+        if (diagram != null) {
+            selectedDiagramId = diagram.id; // Store the selected diagram ID
+            selectedComponent = diagram;      // Mark the class diagram as selected
 
-            // Check if the mouse click falls within the bounding box of the class diagram
-            if (mouseX >= diagram.x && mouseX <= diagram.x + diagram.width &&
-                    mouseY >= diagram.y && mouseY <= diagram.y + diagram.height) {
-                selectedDiagramKey = entry.getKey(); // Store the selected diagram key
-                selectedComponent = diagram;        // Mark the class diagram as selected
-
-                // Update the UI based on the selected component
-                updateUIForSelection();
-                return;
-            }
+            // Update the UI based on the selected component
+            updateUIForSelection();
+            return;
         }
 
         // If no diagram is selected, clear the selection and update the UI
@@ -987,16 +1853,13 @@ public class Controller {
      * @return {@code true} if the mouse position is in an empty area, {@code false} otherwise
      */
     public boolean isEmptyArea(double mouseX, double mouseY) {
-        // Check if mouse is near any class diagram
-        for (ClassDiagram diagram : diagrams.values()) {
-            if (mouseX >= diagram.x && mouseX <= diagram.x + diagram.width &&
-                    mouseY >= diagram.y && mouseY <= diagram.y + diagram.height) {
-                return false; // Mouse is over a class diagram
-            }
+        // Check if mouse is over any class diagram
+        if (diagramAt(mouseX, mouseY) != null) {
+            return false; // Mouse is over a class diagram
         }
 
-        // Check if mouse is near any line
-        for (LineConnection line : lineConnections) {
+        // Check if mouse is near any line passing close to it
+        for (LineConnection line : lineIndex.candidatesNear(mouseX, mouseY)) {
             if (isNearLine(mouseX, mouseY, line)) {
                 return false; // Mouse is near a line
             }
@@ -1024,114 +1887,215 @@ public class Controller {
     public void onMousePressed(MouseEvent event) {
         GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
 
+        // The middle button pans the view, whatever lies below the mouse
+        if (event.getButton() == MouseButton.MIDDLE) {
+            panLastX = event.getX();
+            panLastY = event.getY();
+            return;
+        }
+
+        // No hover outline while the element is dragged; the connection point of a new line stays visible
+        hoveredComponent = null;
+
         // Handle double-click for editing line text
         if (event.getClickCount() == 2) {
-            for (LineConnection line : lineConnections) {
-                if (isNearLine(event.getX(), event.getY(), line)) {
-                    showLineTextField(event.getX(), event.getY(), line, gc);
+            for (LineConnection line : lineIndex.candidatesNear(worldX(event), worldY(event))) {
+                if (isNearLine(worldX(event), worldY(event), line)) {
+                    showLineTextField(worldX(event), worldY(event), line, gc);
                     return;
                 }
             }
         }
-        else if (activeButton == null && selectedComponent instanceof LineConnection &&(!(isEmptyArea(event.getX(), event.getY())))) {
+        else if (activeButton == null && selectedComponent instanceof LineConnection &&(!(isEmptyArea(worldX(event), worldY(event))))) {
             LineConnection selectedLine = (LineConnection) selectedComponent;
 
             // Check if clicking near an existing control point
             for (double[] controlPoint : selectedLine.controlPoints) {
-                if (isNear(event.getX(), event.getY(), controlPoint[0], controlPoint[1])) {
+                if (isNear(worldX(event), worldY(event), controlPoint[0], controlPoint[1])) {
                     // Select the control point
                     selectedComponent = controlPoint;
+                    selectedControlPointLine = selectedLine;
+                    requestRepaint();
                     return;
                 }
             }
 
             // Check if clicking near the line to add a new control point
-            if (isNearLine(event.getX(), event.getY(), selectedLine)) {
-                selectedLine.controlPoints.add(new double[]{event.getX(), event.getY()});
-                redrawCanvas(gc);
+            if (isNearLine(worldX(event), worldY(event), selectedLine)) {
+                markLineDirty(selectedLine);
+                selectedLine.controlPoints.add(new double[]{worldX(event), worldY(event)});
+                markLineDirty(selectedLine);
+                requestRepaint();
                 return;
             }
-            boolean componentSelected = false;
+            pickComponent(event);
 
-            // Check if a line is clicked
-            for (LineConnection line : lineConnections) {
-                if (isNearLine(event.getX(), event.getY(), line)) {
-                    selectedComponent = line;
-                    componentSelected = true;
-                    break;
-                }
+            // Only the overlay shows the selection, the diagram canvas stays as it is
+            requestRepaint();
+        }
+        else if (activeButton == null) {
+
+            pickComponent(event);
+
+            // Only the overlay shows the selection, the diagram canvas stays as it is
+            requestRepaint();
+        }
+
+        else if (activeButton == associationButton || activeButton == aggregationButton ||
+                activeButton == compositionButton || activeButton == InheritanceButton) {
+            // Start line drawing at the connection point under the mouse
+            AnchorGrid.Anchor<ClassDiagram> anchor = anchorIndex.find(worldX(event), worldY(event), SNAP_TOLERANCE, diagram -> true);
+            if (anchor != null) {
+                startX = anchor.x;
+                startY = anchor.y;
+                previewEndX = startX;
+                previewEndY = startY;
+                startDiagram = anchor.owner;
+                isDrawingLine = true;
+                return;
             }
+        }
 
-            // Check if a class diagram is clicked
-            if (!componentSelected) {
-                selectDiagram(event.getX(), event.getY());
-                if (selectedDiagramKey != null) {
-                    selectedComponent = diagrams.get(selectedDiagramKey);
-                    ClassDiagram diagram = diagrams.get(selectedDiagramKey);
-                    offsetX = event.getX() - diagram.x;
-                    offsetY = event.getY() - diagram.y;
-                    componentSelected = true;
-                }
+    }
+
+    /**
+     * Selects the line or diagram under the mouse, or starts a selection rectangle on an empty area.
+     *
+     * <p>Lines are picked before diagrams. Pressing a diagram with shift held down adds it to the
+     * selected diagrams or removes it from them; pressing one of several selected diagrams keeps
+     * them selected, so that they can be dragged together. Pressing an empty area starts a
+     * selection rectangle, which adds to the selection if shift is held down.</p>
+     *
+     * @param event the {@link MouseEvent} representing the mouse press action
+     */
+    public void pickComponent(MouseEvent event) {
+        double mouseX = worldX(event);
+        double mouseY = worldY(event);
+        List<ClassDiagram> previousSelection = new ArrayList<>(getSelectedDiagrams());
+        collapseSelectionTo = null;
+
+        // Check if a line is clicked
+        for (LineConnection line : lineIndex.candidatesNear(mouseX, mouseY)) {
+            if (isNearLine(mouseX, mouseY, line)) {
+                selectedComponent = line;
+                selectedDiagrams.clear();
+                return;
             }
+        }
+
+        // Check if a class diagram is clicked
+        selectDiagram(mouseX, mouseY);
+        ClassDiagram diagram = selectedDiagramId != IdMap.NO_ID ? (ClassDiagram) selectedComponent : null;
+        selectedDiagrams.clear();
+        if (event.isShiftDown()) {
+            selectedDiagrams.addAll(previousSelection);
+        }
 
-            // If no component is selected, deselect everything
-            if (!componentSelected) {
-                selectedComponent = null;
+        if (diagram == null) {
+            // Empty area, drag a selection rectangle
+            isSelectingArea = true;
+            marqueeStartX = marqueeEndX = mouseX;
+            marqueeStartY = marqueeEndY = mouseY;
+            setPrimarySelection(null);
+        } else if (event.isShiftDown()) {
+            // Toggle the diagram, the last diagram added stays the one being edited
+            if (selectedDiagrams.remove(diagram)) {
+                setPrimarySelection(null);
+            } else {
+                selectedDiagrams.add(diagram);
+                setPrimarySelection(diagram);
+            }
+        } else {
+            if (previousSelection.contains(diagram)) {
+                // Keep the group selected for dragging, a plain click selects the diagram alone
+                selectedDiagrams.addAll(previousSelection);
+                collapseSelectionTo = previousSelection.size() > 1 ? diagram : null;
+            } else {
+                selectedDiagrams.add(diagram);
             }
+            setPrimarySelection(diagram);
+        }
 
-            // Redraw to reflect deselection or selection
-            redrawCanvas(gc);
+        if (selectedComponent instanceof ClassDiagram) {
+            ClassDiagram primary = (ClassDiagram) selectedComponent;
+            offsetX = mouseX - primary.x;
+            offsetY = mouseY - primary.y;
         }
-        else if (activeButton == null) {
+    }
+
+    /**
+     * Makes a diagram the {@link #selectedComponent}, the one edited in the properties panel.
+     *
+     * @param diagram the diagram, or {@code null} to use the last of the {@link #selectedDiagrams}
+     */
+    public void setPrimarySelection(ClassDiagram diagram) {
+        if (diagram == null && !selectedDiagrams.isEmpty()) {
+            for (ClassDiagram selected : selectedDiagrams) {
+                diagram = selected;
+            }
+        }
+        selectedComponent = diagram;
+        selectedDiagramId = diagram != null ? diagram.id : IdMap.NO_ID;
+        updateUIForSelection();
+    }
 
-            boolean componentSelected = false;
+    /**
+     * Returns the selected class and interface diagrams: the {@link #selectedDiagrams} if the
+     * {@link #selectedComponent} is one of them, otherwise only the selected component if it is a diagram.
+     *
+     * @return the selected diagrams; must not be modified
+     */
+    public Collection<ClassDiagram> getSelectedDiagrams() {
+        if (!(selectedComponent instanceof ClassDiagram)) {
+            return Collections.emptyList();
+        }
+        if (selectedDiagrams.contains(selectedComponent)) {
+            return selectedDiagrams;
+        }
+        return Collections.singletonList((ClassDiagram) selectedComponent);
+    }
 
-            // Check if a line is clicked
-            for (LineConnection line : lineConnections) {
-                if (isNearLine(event.getX(), event.getY(), line)) {
-                    selectedComponent = line;
-                    componentSelected = true;
-                    break;
-                }
-            }
+    /**
+     * Selects the diagrams lying completely inside the selection rectangle, found with a range
+     * query on the {@link #diagramIndex}, and ends the rectangle selection.
+     */
+    public void finishAreaSelection() {
+        isSelectingArea = false;
+        double minX = Math.min(marqueeStartX, marqueeEndX);
+        double minY = Math.min(marqueeStartY, marqueeEndY);
+        double maxX = Math.max(marqueeStartX, marqueeEndX);
+        double maxY = Math.max(marqueeStartY, marqueeEndY);
 
-            // Check if a class diagram is clicked
-            if (!componentSelected) {
-                selectDiagram(event.getX(), event.getY());
-                if (selectedDiagramKey != null) {
-                    selectedComponent = diagrams.get(selectedDiagramKey);
-                    ClassDiagram diagram = diagrams.get(selectedDiagramKey);
-                    offsetX = event.getX() - diagram.x;
-                    offsetY = event.getY() - diagram.y;
-                    componentSelected = true;
-                }
+        List<ClassDiagram> inside = new ArrayList<>();
+        for (ClassDiagram diagram : diagramIndex.query(minX, minY, maxX, maxY)) {
+            if (diagram.x >= minX && diagram.y >= minY
+                    && diagram.x + diagram.width <= maxX && diagram.y + diagram.height <= maxY) {
+                inside.add(diagram);
             }
+        }
 
-            // If no component is selected, deselect everything
-            if (!componentSelected) {
-                selectedComponent = null;
-            }
+        // In drawing order, so the topmost diagram becomes the one being edited
+        inside.sort(Comparator.comparingLong(diagram -> diagram.zOrder));
+        selectedDiagrams.addAll(inside);
+        setPrimarySelection(inside.isEmpty() ? null : inside.get(inside.size() - 1));
+        requestRepaint();
+    }
 
-            // Redraw to reflect deselection or selection
-            redrawCanvas(gc);
+    /**
+     * Moves the dragged diagrams by the distance accumulated since the last frame, all at once,
+     * and updates their entries in the spatial indexes.
+     */
+    public void applyDragMove() {
+        if (dragDeltaX == 0 && dragDeltaY == 0) {
+            return;
         }
-
-        else if (activeButton == associationButton || activeButton == aggregationButton ||
-                activeButton == compositionButton || activeButton == InheritanceButton) {
-            // Start line drawing
-            for (ClassDiagram diagram : diagrams.values()) {
-                for (double[] point : diagram.getConnectionPoints()) {
-                    if (isNear(event.getX(), event.getY(), point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startDiagram = diagram;
-                        isDrawingLine = true;
-                        return;
-                    }
-                }
-            }
+        for (ClassDiagram diagram : draggedDiagrams) {
+            diagram.x += dragDeltaX;
+            diagram.y += dragDeltaY;
+            indexDiagram(diagram);
         }
-
+        dragDeltaX = 0;
+        dragDeltaY = 0;
     }
 
     /**
@@ -1145,91 +2109,259 @@ public class Controller {
         GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
 
         if (selectedComponent instanceof ClassDiagram) {
-            // Delete the selected class diagram and its connections
-            ClassDiagram diagram = (ClassDiagram) selectedComponent;
-
-            // Remove the diagram from the map
-            diagrams.values().remove(diagram);
-
-            // Remove all lines connected to this diagram
-            lineConnections.removeIf(line -> line.startDiagram == diagram || line.endDiagram == diagram);
+            // Delete every selected class diagram and its connections, which include the selected
+            // component, repainting their area and the area of their attached lines
+            for (ClassDiagram diagram : new ArrayList<>(getSelectedDiagrams())) {
+                markDiagramDirty(diagram);
+                removeDiagram(diagram);
+            }
 
             selectedComponent = null;
+            selectedDiagrams.clear();
             updateClassHierarchy();
         } else if (selectedComponent instanceof LineConnection) {
             // Delete the selected line connection
             LineConnection line = (LineConnection) selectedComponent;
 
+            markLineDirty(line); // Repaint the area of the line
             lineConnections.remove(line); // Remove the line
+            connectionIndex.remove(line);
+            lineIndex.remove(line);
             selectedComponent = null; // Clear selection
         }
 
-        // Redraw canvas to reflect changes
-        gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-        redrawCanvas(gc);
+        // Repaint the affected area to reflect changes
+        requestRepaint();
+    }
+
+    /**
+     * Removes a class or interface diagram, together with its connections, from the model and
+     * from the spatial indexes.
+     *
+     * @param diagram the diagram to remove
+     */
+    public void removeDiagram(ClassDiagram diagram) {
+        // Remove the diagram from the map
+        diagrams.remove(diagram.id);
+        drawingOrder.remove(diagram.zOrder, diagram);
+        diagramIndex.remove(diagram);
+        anchorIndex.remove(diagram);
+        diagramImageCache.invalidate(diagram);
+
+        // Remove all lines connected to this diagram
+        for (LineConnection line : connectionIndex.removeAll(diagram)) {
+            lineConnections.remove(line);
+            lineIndex.remove(line);
+        }
+    }
+
+    /**
+     * Adds a line connection to the model and to the index of the lines of every diagram.
+     *
+     * @param line the line to add
+     */
+    public void addLineConnection(LineConnection line) {
+        lineConnections.add(line);
+        connectionIndex.add(line, line.startDiagram, line.endDiagram);
     }
 
     /**
      * Handles mouse drag events on the canvas.
      *
      * <p>This method enables dragging of class diagrams, line control points, or lines themselves.
-     * If a new line is being drawn, it provides a visual preview. It ensures boundaries are respected
-     * and updates the canvas in real-time.</p>
+     * If a new line is being drawn, it provides a visual preview. Dragging with the middle button
+     * pans the view instead.</p>
      *
      * @param event the {@link MouseEvent} representing the mouse drag action
      */
     public void onMouseDragged(MouseEvent event) {
         GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
 
+        if (event.isMiddleButtonDown()) {
+            // Pan by the distance moved on screen since the last event
+            panView(event.getX() - panLastX, event.getY() - panLastY);
+            panLastX = event.getX();
+            panLastY = event.getY();
+            return;
+        }
+
         if (activeButton == null) {
-            if (selectedComponent instanceof ClassDiagram) {
-                // Handle dragging a class diagram
+            if (isSelectingArea) {
+                // Only the overlay shows the selection rectangle
+                marqueeEndX = worldX(event);
+                marqueeEndY = worldY(event);
+                requestRepaint();
+            } else if (selectedComponent instanceof ClassDiagram) {
+                // Handle dragging the selected class diagrams together
                 ClassDiagram diagram = (ClassDiagram) selectedComponent;
 
-                // Update the diagram's position while respecting canvas boundaries
-                double newX = Math.max(0, Math.min(event.getX() - offsetX, canvasContainer.getWidth() - diagram.width));
-                double newY = Math.max(0, Math.min(event.getY() - offsetY, canvasContainer.getHeight() - diagram.getHeight()));
-
-                diagram.x = newX;
-                diagram.y = newY;
+                // On the first drag event, lift the diagrams and their lines onto the overlay
+                if (draggedDiagrams.isEmpty()) {
+                    List<ClassDiagram> group = new ArrayList<>(getSelectedDiagrams());
+                    group.sort(Comparator.comparingLong(selected -> selected.zOrder));
+                    for (ClassDiagram selected : group) {
+                        markDiagramDirty(selected);
+                    }
+                    draggedDiagrams.addAll(group);
+                    collapseSelectionTo = null;
+                }
 
-                // Clear and redraw the canvas to reflect changes
-                gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-                redrawCanvas(gc);
+                // The diagram under the mouse follows it, the world has no boundaries. The move is
+                // applied to the whole group once per frame, however many drag events arrive
+                dragDeltaX = worldX(event) - offsetX - diagram.x;
+                dragDeltaY = worldY(event) - offsetY - diagram.y;
+                requestRepaint();
             } else if (selectedComponent instanceof double[]) {
                 // Handle dragging an existing control point
                 double[] controlPoint = (double[]) selectedComponent;
-                controlPoint[0] = event.getX();
-                controlPoint[1] = event.getY();
-
-                // Clear and redraw the canvas to reflect changes
-                gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-                redrawCanvas(gc);
+                liftLine(selectedControlPointLine, gc);
+                controlPoint[0] = worldX(event);
+                controlPoint[1] = worldY(event);
+                requestRepaint();
             } else if (selectedComponent instanceof LineConnection) {
                 // Handle dragging the line by moving all control points
                 LineConnection selectedLine = (LineConnection) selectedComponent;
+                liftLine(selectedLine, gc);
 
                 for (double[] controlPoint : selectedLine.controlPoints) {
-                    controlPoint[0] += event.getX() - startX;
-                    controlPoint[1] += event.getY() - startY;
+                    controlPoint[0] += worldX(event) - startX;
+                    controlPoint[1] += worldY(event) - startY;
                 }
 
                 // Update startX and startY to track the dragging motion
-                startX = event.getX();
-                startY = event.getY();
-
-                // Clear and redraw the canvas to reflect changes
-                gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-                redrawCanvas(gc);
+                startX = worldX(event);
+                startY = worldY(event);
+                requestRepaint();
             }
         } else if (isDrawingLine) {
-            // Handle line preview
-            gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-            redrawCanvas(gc);
-            gc.setStroke(Color.GRAY);
-            gc.setLineWidth(1);
-            gc.strokeLine(startX, startY, event.getX(), event.getY());
+            // Handle line preview: it lives on the overlay, so the diagram canvas is untouched
+            previewEndX = worldX(event);
+            previewEndY = worldY(event);
+
+            // Show the connection point the line will end at, on any other diagram
+            hoveredAnchor = anchorIndex.find(previewEndX, previewEndY, SNAP_TOLERANCE, diagram -> diagram != startDiagram);
+            requestRepaint();
+        }
+    }
+
+    /**
+     * Handles mouse move events on the canvas by updating the hover feedback.
+     *
+     * <p>While a line tool is active, the connection point under the mouse is shown, as the one
+     * a new line would start at. Otherwise the line or diagram under the mouse is outlined, picked
+     * in the same order as by a click. The element is found through the spatial indexes, and the
+     * overlay is only redrawn, at most once per pulse, when the hovered element changes.</p>
+     *
+     * @param event the {@link MouseEvent} representing the mouse move
+     */
+    public void onMouseMoved(MouseEvent event) {
+        double mouseX = worldX(event);
+        double mouseY = worldY(event);
+
+        if (activeButton == associationButton || activeButton == aggregationButton ||
+                activeButton == compositionButton || activeButton == InheritanceButton) {
+            setHover(null, anchorIndex.find(mouseX, mouseY, SNAP_TOLERANCE, diagram -> true));
+            return;
+        }
+        if (activeButton != null) {
+            setHover(null, null); // Creating a class or interface, nothing can be picked
+            return;
+        }
+
+        for (LineConnection line : lineIndex.candidatesNear(mouseX, mouseY)) {
+            if (isNearLine(mouseX, mouseY, line)) {
+                setHover(line, null);
+                return;
+            }
+        }
+        setHover(diagramAt(mouseX, mouseY), null);
+    }
+
+    /**
+     * Changes the hovered element and connection point, requesting an overlay repaint only if
+     * one of them changed.
+     *
+     * @param component the diagram or line connection under the mouse, or {@code null}
+     * @param anchor    the connection point under the mouse, or {@code null}
+     */
+    public void setHover(Object component, AnchorGrid.Anchor<ClassDiagram> anchor) {
+        boolean anchorChanged = anchor == null ? hoveredAnchor != null
+                : hoveredAnchor == null || hoveredAnchor.owner != anchor.owner || hoveredAnchor.index != anchor.index;
+        if (component != hoveredComponent || anchorChanged) {
+            hoveredComponent = component;
+            hoveredAnchor = anchor;
+            requestRepaint();
+        }
+    }
+
+    /**
+     * Records the hover feedback: an outline around the hovered diagram or along the hovered line,
+     * and a ring around the connection point a line would snap to. Line widths and sizes are kept
+     * constant on screen at every zoom level.
+     *
+     * @param list the {@link DisplayList} of the overlay
+     */
+    public void drawHover(DisplayList list) {
+        double pixel = 1 / viewTransform.getScale();
+        list.setStroke(HOVER_COLOR);
+        list.setLineWidth(2 * pixel);
+
+        if (hoveredComponent instanceof ClassDiagram && diagramIndex.contains((ClassDiagram) hoveredComponent)) {
+            ClassDiagram diagram = (ClassDiagram) hoveredComponent;
+            double padding = 3 * pixel;
+            list.strokeRect(diagram.x - padding, diagram.y - padding,
+                    diagram.width + 2 * padding, diagram.height + 2 * padding);
+        } else if (hoveredComponent instanceof LineConnection && lineIndex.contains((LineConnection) hoveredComponent)) {
+            List<double[]> points = ((LineConnection) hoveredComponent).getAllPoints();
+            list.beginPath();
+            list.moveTo(points.get(0)[0], points.get(0)[1]);
+            for (int i = 1; i < points.size(); i++) {
+                list.lineTo(points.get(i)[0], points.get(i)[1]);
+            }
+            list.stroke();
+        }
+
+        if (hoveredAnchor != null) {
+            double radius = 6 * pixel;
+            list.setFill(HOVER_COLOR.deriveColor(0, 1, 1, 0.4));
+            list.fillOval(hoveredAnchor.x - radius, hoveredAnchor.y - radius, 2 * radius, 2 * radius);
+            list.beginPath();
+            list.arc(hoveredAnchor.x, hoveredAnchor.y, radius, radius, 0, 360);
+            list.stroke();
+        }
+    }
+
+    /**
+     * Moves a line connection from the diagram canvas onto the overlay when it starts being
+     * dragged or reshaped. Does nothing if the line is already on the overlay.
+     *
+     * @param line the line connection about to change
+     * @param gc   the {@link GraphicsContext} of the diagram canvas
+     */
+    public void liftLine(LineConnection line, GraphicsContext gc) {
+        if (line != null && draggedLine != line) {
+            markLineDirty(line);
+            draggedLine = line;
+            requestRepaint();
+        }
+    }
+
+    /**
+     * Drops the diagrams or line being dragged back onto the diagram canvas at their new position.
+     *
+     * @param gc the {@link GraphicsContext} of the diagram canvas
+     */
+    public void dropDraggedElement(GraphicsContext gc) {
+        applyDragMove();
+        for (ClassDiagram diagram : draggedDiagrams) {
+            markDiagramDirty(diagram);
+        }
+        if (draggedLine != null) {
+            markLineDirty(draggedLine);
         }
+        draggedDiagrams.clear();
+        draggedLine = null;
+        requestRepaint();
     }
 
     /**
@@ -1242,10 +2374,12 @@ public class Controller {
      * @param gc the {@link GraphicsContext} for redrawing the canvas
      */
     public void handleClassEditing(MouseEvent event, GraphicsContext gc) {
-        for (Map.Entry<String, ClassDiagram> entry : diagrams.entrySet()) {
-            ClassDiagram diagram = entry.getValue();
-            double mouseX = event.getX();
-            double mouseY = event.getY();
+        double mouseX = worldX(event);
+        double mouseY = worldY(event);
+
+        // Only the topmost diagram below the mouse can be edited
+        ClassDiagram diagram = diagramAt(mouseX, mouseY);
+        if (diagram != null) {
 
             // Check if the click occurred within the diagram bounds
             if (mouseX >= diagram.x && mouseX <= diagram.x + diagram.width) {
@@ -1311,12 +2445,12 @@ public class Controller {
      */
     public void editAttribute(ClassDiagram classDiagram, int index, GraphicsContext gc) {
         double startY = classDiagram.y + 30 + index * 20; // Position of the attribute row
-        String attribute = classDiagram.attributes.get(index);
+        Member attribute = classDiagram.attributes.get(index);
 
         // Create the TextField
-        TextField attributeField = new TextField(attribute);
-        attributeField.setLayoutX(classDiagram.x + 12); // Align with attribute text
-        attributeField.setLayoutY(startY - 8); // Adjust Y to match text alignment
+        TextField attributeField = new TextField(attribute.getText());
+        attributeField.setLayoutX(viewTransform.worldToScreenX(classDiagram.x + 12)); // Align with attribute text
+        attributeField.setLayoutY(viewTransform.worldToScreenY(startY - 8)); // Adjust Y to match text alignment
         attributeField.setPrefWidth(classDiagramWidth - 24); // Fit inside the class box
         attributeField.setStyle("-fx-background-color: white; -fx-border-color: transparent; -fx-font-size: 12px; -fx-text-fill: black;");
 
@@ -1327,18 +2461,24 @@ public class Controller {
         // Commit changes on Enter
         attributeField.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
-                classDiagram.attributes.set(index, attributeField.getText().trim());
+                markDiagramDirty(classDiagram);
+                classDiagram.attributes.set(index, Member.attribute(attributeField.getText().trim()));
                 canvasContainer.getChildren().remove(attributeField);
-                redrawCanvas(gc);
+                updateDiagramSize(classDiagram);
+                markDiagramDirty(classDiagram);
+                requestRepaint();
             }
         });
 
         // Commit changes on focus loss
         attributeField.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal) {
-                classDiagram.attributes.set(index, attributeField.getText().trim());
+                markDiagramDirty(classDiagram);
+                classDiagram.attributes.set(index, Member.attribute(attributeField.getText().trim()));
                 canvasContainer.getChildren().remove(attributeField);
-                redrawCanvas(gc);
+                updateDiagramSize(classDiagram);
+                markDiagramDirty(classDiagram);
+                requestRepaint();
             }
         });
     }
@@ -1356,12 +2496,12 @@ public class Controller {
     public void editOperation(ClassDiagram classDiagram, int index, GraphicsContext gc) {
         double attributeHeight = 20 * classDiagram.attributes.size();
         double startY = classDiagram.y + 30 + attributeHeight + 20 + index * 20; // Position of the operation row
-        String operation = classDiagram.operations.get(index);
+        Member operation = classDiagram.operations.get(index);
 
         // Create the TextField
-        TextField operationField = new TextField(operation);
-        operationField.setLayoutX(classDiagram.x + 12); // Align with operation text
-        operationField.setLayoutY(startY - 8); // Adjust Y to match text alignment
+        TextField operationField = new TextField(operation.getText());
+        operationField.setLayoutX(viewTransform.worldToScreenX(classDiagram.x + 12)); // Align with operation text
+        operationField.setLayoutY(viewTransform.worldToScreenY(startY - 8)); // Adjust Y to match text alignment
         operationField.setPrefWidth(classDiagramWidth - 24); // Fit inside the class box
         operationField.setStyle("-fx-background-color: white; -fx-border-color: transparent; -fx-font-size: 12px; -fx-text-fill: black;");
 
@@ -1372,18 +2512,24 @@ public class Controller {
         // Commit changes on Enter
         operationField.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
-                classDiagram.operations.set(index, operationField.getText().trim());
+                markDiagramDirty(classDiagram);
+                classDiagram.operations.set(index, Member.operation(operationField.getText().trim()));
                 canvasContainer.getChildren().remove(operationField);
-                redrawCanvas(gc);
+                updateDiagramSize(classDiagram);
+                markDiagramDirty(classDiagram);
+                requestRepaint();
             }
         });
 
         // Commit changes on focus loss
         operationField.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal) {
-                classDiagram.operations.set(index, operationField.getText().trim());
+                markDiagramDirty(classDiagram);
+                classDiagram.operations.set(index, Member.operation(operationField.getText().trim()));
                 canvasContainer.getChildren().remove(operationField);
-                redrawCanvas(gc);
+                updateDiagramSize(classDiagram);
+                markDiagramDirty(classDiagram);
+                requestRepaint();
             }
         });
     }
@@ -1420,14 +2566,12 @@ public class Controller {
         TextField nameField = new TextField(currentName);
 
         // Calculate the width dynamically based on the text
-        Text textHelper = new Text(currentName);
-        textHelper.setFont(Font.font("Arial", 14)); // Match the font used in diagram rendering
-        double textWidth = textHelper.getBoundsInLocal().getWidth();
+        double textWidth = textMeasureCache.getWidth(currentName, Font.font("Arial", 14)); // Match the font used in diagram rendering
 
         // Position the TextField centered horizontally and correctly vertically
         nameField.setPrefWidth(textWidth + 20); // Add padding for a better appearance
-        nameField.setLayoutX(x + (width - nameField.getPrefWidth()) / 2); // Center horizontally
-        nameField.setLayoutY(y - 10); // Slightly adjust Y to align properly
+        nameField.setLayoutX(viewTransform.worldToScreenX(x + width / 2) - nameField.getPrefWidth() / 2); // Center horizontally
+        nameField.setLayoutY(viewTransform.worldToScreenY(y) - 10); // Slightly adjust Y to align properly
 
         // Style the TextField
         nameField.setStyle("-fx-background-color: white; -fx-border-color: transparent; -fx-font-size: 12px; -fx-text-fill: black;");
@@ -1440,6 +2584,7 @@ public class Controller {
         nameField.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
                 String updatedName = nameField.getText().trim();
+                markDiagramDirty(diagram);
 
                 if (diagram instanceof InterfaceDiagram) {
                     ((InterfaceDiagram) diagram).interfaceName = updatedName;
@@ -1448,7 +2593,9 @@ public class Controller {
                 }
 
                 canvasContainer.getChildren().remove(nameField);
-                redrawCanvas(gc); // Redraw the canvas with the updated name
+                updateDiagramSize(diagram);
+                markDiagramDirty(diagram);
+                requestRepaint(); // Repaint the diagram with the updated name
                 updateClassHierarchy(); // Update any hierarchy display
             }
         });
@@ -1457,6 +2604,7 @@ public class Controller {
         nameField.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal) {
                 String updatedName = nameField.getText().trim();
+                markDiagramDirty(diagram);
 
                 if (diagram instanceof InterfaceDiagram) {
                     ((InterfaceDiagram) diagram).interfaceName = updatedName;
@@ -1465,7 +2613,9 @@ public class Controller {
                 }
 
                 canvasContainer.getChildren().remove(nameField);
-                redrawCanvas(gc); // Redraw the canvas with the updated name
+                updateDiagramSize(diagram);
+                markDiagramDirty(diagram);
+                requestRepaint(); // Repaint the diagram with the updated name
                 updateClassHierarchy(); // Update any hierarchy display
             }
         });
@@ -1505,44 +2655,64 @@ public class Controller {
     public void onMouseReleased(MouseEvent event) {
         GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
 
-        if (isDrawingLine) {
-            for (ClassDiagram diagram : diagrams.values()) {
-                for (int i = 0; i < diagram.getConnectionPoints().length; i++) {
-                    double[] point = diagram.getConnectionPoints()[i];
-
-                    if (isNear(event.getX(), event.getY(), point[0], point[1]) && diagram != startDiagram) {
-                        // Validate the connection
-                        if (isInvalidLineConnection(startDiagram, diagram, activeButton)) {
-                            showError("Invalid connection: Interfaces cannot have association, aggregation, or composition lines.");
-                            isDrawingLine = false; // Reset the line drawing state
-                            redrawCanvas(gc);
-                            return;
-                        }
+        if (event.getButton() == MouseButton.MIDDLE) {
+            return; // End of a pan, nothing was dragged
+        }
 
-                        int startConnectionIndex = getNearestConnectionIndex(startDiagram, startX, startY);
-                        int endConnectionIndex = i;
+        if (!draggedDiagrams.isEmpty() || draggedLine != null) {
+            dropDraggedElement(gc);
+        }
 
-                        // Create a valid LineConnection
-                        lineConnections.add(new LineConnection(
-                                startDiagram, startConnectionIndex,
-                                diagram, endConnectionIndex, activeButton
-                        ));
+        if (isSelectingArea) {
+            finishAreaSelection();
+        }
+        hoveredAnchor = null;
 
-                        // Redraw everything
-                        redrawCanvas(gc);
+        // A click on one of several selected diagrams, without dragging, selects it alone
+        if (collapseSelectionTo != null) {
+            selectedDiagrams.clear();
+            selectedDiagrams.add(collapseSelectionTo);
+            collapseSelectionTo = null;
+            requestRepaint();
+        }
 
-                        // Reset state
-                        isDrawingLine = false;
-                        startDiagram = null;
-                        endDiagram = null;
-                        return;
-                    }
+        if (isDrawingLine) {
+            // Snap to the connection point under the mouse, on any other diagram
+            AnchorGrid.Anchor<ClassDiagram> anchor = anchorIndex.find(worldX(event), worldY(event), SNAP_TOLERANCE,
+                    diagram -> diagram != startDiagram);
+            if (anchor != null) {
+                ClassDiagram diagram = anchor.owner;
+
+                // Validate the connection
+                if (isInvalidLineConnection(startDiagram, diagram, activeButton)) {
+                    showError("Invalid connection: Interfaces cannot have association, aggregation, or composition lines.");
+                    isDrawingLine = false; // Reset the line drawing state
+                    requestRepaint();
+                    return;
                 }
+
+                int startConnectionIndex = getNearestConnectionIndex(startDiagram, startX, startY);
+                int endConnectionIndex = anchor.index;
+
+                // Create a valid LineConnection
+                LineConnection line = new LineConnection(
+                        startDiagram, startConnectionIndex,
+                        diagram, endConnectionIndex, activeButton
+                );
+                addLineConnection(line);
+
+                // Reset state, then paint the new line and remove the preview
+                isDrawingLine = false;
+                markLineDirty(line);
+                requestRepaint();
+                startDiagram = null;
+                endDiagram = null;
+                return;
             }
 
             // If no valid endpoint is found
             isDrawingLine = false;
-            redrawCanvas(gc);
+            requestRepaint();
             showError("Cannot draw line. No valid connection point reached.");
         }
     }
@@ -1607,11 +2777,28 @@ public class Controller {
         if (file != null) {
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
                 // Read diagrams and connections from file
-                diagrams = (HashMap<String, ClassDiagram>) ois.readObject();
-                lineConnections = (ArrayList<LineConnection>) ois.readObject();
+                readDiagrams(ois.readObject());
+                diagramImageCache.clear();
+                minimap.reset();
+                clearSelection();
+
+                // The spatial indexes are not serialized
+                diagramIndex.clear();
+                anchorIndex.clear();
+                for (ClassDiagram diagram : diagrams.values()) {
+                    indexDiagram(diagram);
+                }
+                rebuildDrawingOrder();
+                lineConnections = new LinkedHashSet<>((ArrayList<LineConnection>) ois.readObject());
 
                 // Reinitialize  fields or objects as needed
                 initializeConnections();
+                lineIndex.clear();
+                connectionIndex.clear();
+                for (LineConnection line : lineConnections) {
+                    lineIndex.put(line, line.getAllPoints());
+                    connectionIndex.add(line, line.startDiagram, line.endDiagram);
+                }
 
                 // Redraw the canvas with the loaded data
                 GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
@@ -1626,6 +2813,44 @@ updateClassHierarchy();
         }
     }
 
+    /**
+     * Fills the {@link #diagrams} with the diagrams read from a file.
+     *
+     * <p>Files store the list of diagrams, each with its ID. Files saved by earlier versions
+     * store a map from coordinate-derived keys to diagrams instead; their diagrams get new IDs,
+     * in the order of the old keys. Diagrams without an ID, or with the ID of an earlier
+     * diagram of the file, get a new one as well.</p>
+     *
+     * @param stored the object read from the file
+     */
+    @SuppressWarnings("unchecked")
+    public void readDiagrams(Object stored) {
+        List<ClassDiagram> loaded;
+        if (stored instanceof Map) {
+            TreeMap<String, ClassDiagram> byKey = new TreeMap<>((Map<String, ClassDiagram>) stored);
+            loaded = new ArrayList<>(byKey.values());
+            for (ClassDiagram diagram : loaded) {
+                diagram.id = IdMap.NO_ID;
+            }
+        } else {
+            loaded = (List<ClassDiagram>) stored;
+        }
+
+        diagrams = new IdMap<>();
+        for (ClassDiagram diagram : loaded) {
+            if (diagram.id != IdMap.NO_ID && !diagrams.containsKey(diagram.id)) {
+                diagrams.put(diagram.id, diagram);
+            }
+        }
+        // New IDs are allocated above every stored one
+        for (ClassDiagram diagram : loaded) {
+            if (diagrams.get(diagram.id) != diagram) {
+                diagram.id = diagrams.allocateId();
+                diagrams.put(diagram.id, diagram);
+            }
+        }
+    }
+
     /**
      * Saves the current diagram and its connections to a file.
      *
@@ -1641,7 +2866,7 @@ updateClassHierarchy();
         if (file != null) {
             try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
                 // Write diagrams and connections to file
-                oos.writeObject(new HashMap<>(diagrams));
+                oos.writeObject(new ArrayList<>(diagrams.values())); // Each diagram holds its ID
                 oos.writeObject(new ArrayList<>(lineConnections));
                 showInfo("Diagram saved successfully to " + file.getName());
             } catch (IOException e) {
@@ -1683,9 +2908,11 @@ updateClassHierarchy();
      * @param gc the {@link GraphicsContext} used for drawing
      */
     public void redrawDiagrams(GraphicsContext gc) {
-        for (ClassDiagram diagram : diagrams.values()) {
-            drawClassDiagram(gc, diagram);
+        DisplayList list = new DisplayList();
+        for (ClassDiagram diagram : drawingOrder.values()) {
+            drawClassDiagram(list, diagram);
         }
+        list.replay(gc);
     }
 
     /**
@@ -1707,18 +2934,16 @@ updateClassHierarchy();
     /**
      * Saves the current canvas content as an image file in the specified format.
      *
-     * <p>This method captures the canvas as a snapshot, converts it to a
+     * <p>This method renders the whole diagram with {@link #renderDiagramImage()}, converts it to a
      * {@link BufferedImage}, and saves it to a user-selected file. If the format is JPEG,
      * it removes the alpha channel to ensure compatibility.</p>
      *
      * @param format the file format to save the image in (e.g., "jpeg", "png")
      */
     public void saveCanvasToFile(String format) {
-        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
-
-        // Take a snapshot of the canvas
-        WritableImage writableImage = new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
-        canvas.snapshot(null, writableImage);
+        // Apply pending changes first, then render the whole diagram from the display list
+        renderScheduler.flush();
+        WritableImage writableImage = renderDiagramImage();
 
         // Open a file chooser to save the file
         FileChooser fileChooser = new FileChooser();
@@ -1805,17 +3030,20 @@ updateClassHierarchy();
      */
     @FXML
     public void onAddAttribute(GraphicsContext gc) {
-        if (selectedDiagramKey != null) {
-            ClassDiagram diagram = diagrams.get(selectedDiagramKey);
+        ClassDiagram diagram = diagrams.get(selectedDiagramId);
+        if (diagram != null) {
             String attributeName = attributesField.getText().trim();
             String accessModifier = attributeAccessModifier.getValue(); // Get the selected access modifier
 
             if (!attributeName.isEmpty() && accessModifier != null) {
                 // Determine the prefix based on the access modifier
                 String prefix = getAccessModifierSymbol(accessModifier);
-                diagram.attributes.add(prefix + " " + attributeName); // Add the attribute with the prefix
+                markDiagramDirty(diagram);
+                diagram.attributes.add(Member.attribute(prefix + " " + attributeName)); // Add the attribute with the prefix
                 attributesField.clear();
-                redrawCanvas(gc);
+                updateDiagramSize(diagram);
+                markDiagramDirty(diagram);
+                requestRepaint();
                 updateClassHierarchy();
             } else {
                 showError("Please enter an attribute name and select an access modifier.");
@@ -1834,18 +3062,21 @@ updateClassHierarchy();
      */
     @FXML
     public void onAddOperation(GraphicsContext gc) {
-        if (selectedDiagramKey != null) {
-            ClassDiagram diagram = diagrams.get(selectedDiagramKey);
+        ClassDiagram diagram = diagrams.get(selectedDiagramId);
+        if (diagram != null) {
             String operationName = operationsField.getText().trim();
             String accessModifier = operationAccessModifier.getValue(); // Get the selected access modifier
 
             if (!operationName.isEmpty() && accessModifier != null) {
                 // Determine the prefix based on the access modifier
                 String prefix = getAccessModifierSymbol(accessModifier);
-                diagram.operations.add(prefix + " " + operationName); // Add the operation with the prefix
+                markDiagramDirty(diagram);
+                diagram.operations.add(Member.operation(prefix + " " + operationName)); // Add the operation with the prefix
                 operationsField.clear();
 
-                redrawCanvas(gc);
+                updateDiagramSize(diagram);
+                markDiagramDirty(diagram);
+                requestRepaint();
                 updateClassHierarchy();
             } else {
                 showError("Please enter an operation name and select an access modifier.");
@@ -1856,143 +3087,126 @@ updateClassHierarchy();
     /**
      * Redraws the entire canvas, including the grid, diagrams, and line connections.
      *
-     * <p>This method clears the canvas and sequentially redraws the grid,
-     * class diagrams, and dynamic line connections with their respective styles and shapes.</p>
+     * <p>This method discards every cached tile and composes the view again from the grid and
+     * freshly rendered tiles, which contain the class diagrams and dynamic line connections with
+     * their respective styles and shapes. Elements being dragged or lying outside the visible
+     * part of the world are left out, and the overlay is redrawn on top.</p>
      *
      * @param gc the {@link GraphicsContext} used for drawing
      */
     public void redrawCanvas(GraphicsContext gc) {
-        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawGrid(gc);
-
-        // Redraw all class diagrams
-        for (ClassDiagram diagram : diagrams.values()) {
-            if (diagram instanceof InterfaceDiagram) {
-                drawInterfaceDiagram(gc, (InterfaceDiagram) diagram);
-            } else {
-                drawClassDiagram(gc, diagram);
-            }
-        }
+        dirtyRegion.addAll();
+        repaintDirtyRegion(gc);
+    }
 
-        // Redraw all dynamic line connections
-        for (LineConnection line : lineConnections) {
-            List<double[]> points = line.getAllPoints(); // Get all points (start, control points, and end)
-            boolean isSelected = line.equals(selectedComponent);
-
-            // Draw each segment of the line
-            gc.setStroke(isSelected ? Color.web("#5DADE2") : Color.BLACK);
-            gc.setLineWidth(isSelected ? 4 : 2);
-
-            for (int i = 0; i < points.size() - 1; i++) {
-                double[] start = points.get(i);
-                double[] end = points.get(i + 1);
-
-                // Stop the last segment before a shape if necessary
-                if (i == points.size() - 2) { // Last segment
-                    double[] adjustedEnd = end.clone(); // Clone end to modify
-                    if (line.lineType == InheritanceButton) {
-                        adjustedEnd = calculateTriangleBaseIntersection(end, start, 15); // Adjust for hollow triangle
-                    } else if (line.lineType == aggregationButton || line.lineType == compositionButton) {
-                        adjustedEnd = calculateDiamondBaseIntersection(end, start, 15); // Adjust for diamond
-                    }
-                    gc.strokeLine(start[0], start[1], adjustedEnd[0], adjustedEnd[1]);
-                } else {
-                    gc.strokeLine(start[0], start[1], end[0], end[1]);
-                }
-            }
+    /**
+     * Returns the amount of detail to draw at the current zoom factor.
+     *
+     * @return the tier of detail chosen by {@link #levelOfDetail}
+     */
+    public LevelOfDetail.Tier getDetailTier() {
+        return levelOfDetail.forScale(viewTransform.getScale());
+    }
 
-            // Draw control points for intermediate points only
-            gc.setFill(Color.BLACK);
-            for (int i = 1; i < points.size() - 1; i++) {
-                double[] controlPoint = points.get(i);
-                gc.fillOval(controlPoint[0] - 4, controlPoint[1] - 4, 8, 8); // Draw control point circles
-            }
+    /**
+     * Updates the visible region to the part of the world shown by the canvas at the current
+     * zoom and pan.
+     */
+    public void updateVisibleRegion() {
+        Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
+        double[] bounds = viewTransform.getVisibleWorldBounds(canvas.getWidth(), canvas.getHeight());
+        visibleRegion.set(bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
 
-            // Draw shapes at the end of the line
-            double[] start = points.get(points.size() - 2); // Second-to-last point
-            double[] end = points.get(points.size() - 1);   // Last point
-            if (line.lineType == aggregationButton) {
-                drawDiamond(gc, end[0], end[1], start[0], start[1], isSelected, false); // Hollow diamond
-            } else if (line.lineType == compositionButton) {
-                drawDiamond(gc, end[0], end[1], start[0], start[1], isSelected, true); // Filled diamond
-            } else if (line.lineType == InheritanceButton) {
-                drawHollowTriangle(gc, end[0], end[1], start[0], start[1], isSelected); // Hollow triangle
-            }
+    /**
+     * Returns the number of elements drawn into the tiles rendered by the last paint.
+     *
+     * @return the number of drawn elements
+     */
+    public int getDrawnElementCount() {
+        return visibleRegion.getDrawnCount();
+    }
 
-            // Draw line text if it exists
-            if (line.text != null && !line.text.isEmpty()) {
-                double midX = (start[0] + end[0]) / 2;
-                double midY = (start[1] + end[1]) / 2;
+    /**
+     * Returns the number of elements skipped while rendering the tiles of the last paint
+     * because they lay outside of the tile being rendered.
+     *
+     * @return the number of culled elements
+     */
+    public int getCulledElementCount() {
+        return visibleRegion.getCulledCount();
+    }
 
-                // Keep text black for simplicity
-                gc.setFill(Color.BLACK);
-                gc.setFont(Font.font("Arial", 12));
-                gc.fillText(line.text, midX - line.text.length() * 3, midY - 5); // Adjust position based on text length
-            }
+    /**
+     * Checks whether a class or interface diagram intersects the visible region and counts
+     * it as drawn or culled.
+     *
+     * @param diagram the diagram to check
+     * @return {@code true} if the diagram has to be drawn
+     */
+    public boolean isDiagramVisible(ClassDiagram diagram) {
+        // The size is needed for the check, so measure diagrams that were never drawn
+        if (!diagram.layoutValid) {
+            updateDiagramSize(diagram);
         }
+        double padding = 5; // Covers the border and the connection points
+        return visibleRegion.isVisible(diagram.x - padding, diagram.y - padding,
+                diagram.x + diagram.width + padding, diagram.y + diagram.height + padding);
     }
 
     /**
-     * Calculates the intersection point of the base of a triangle with a given line segment.
+     * Checks whether a line connection, including its end shape and label, intersects the
+     * visible region and counts it as drawn or culled.
      *
-     * @param end         the endpoint of the line segment as an array [x, y].
-     * @param start       the starting point of the line segment as an array [x, y].
-     * @param triangleSize the size of the triangle base.
-     * @return an array [x, y] representing the intersection point.
+     * @param line the line connection to check
+     * @return {@code true} if the line has to be drawn
      */
-    public double[] calculateTriangleBaseIntersection(double[] end, double[] start, double triangleSize) {
-        double angle = Math.atan2(end[1] - start[1], end[0] - start[0]);
-        double intersectionX = end[0] - triangleSize * Math.cos(angle);
-        double intersectionY = end[1] - triangleSize * Math.sin(angle);
-        return new double[]{intersectionX, intersectionY};
+    public boolean isLineVisible(LineConnection line) {
+        double[] bounds = getLineBounds(line);
+        return visibleRegion.isVisible(bounds[0], bounds[1], bounds[2], bounds[3]);
     }
 
     /**
-     * Calculates the intersection point of the base of a diamond shape with a given line segment.
+     * Draws a single line connection without the selection highlight.
      *
-     * @param end         the endpoint of the line segment as an array [x, y].
-     * @param start       the starting point of the line segment as an array [x, y].
-     * @param diamondSize the size of the diamond base.
-     * @return an array [x, y] representing the intersection point.
+     * @param list the {@link DisplayList} the drawing is recorded into
+     * @param line the {@link LineConnection} to draw
      */
-    public double[] calculateDiamondBaseIntersection(double[] end, double[] start, double diamondSize) {
-        double angle = Math.atan2(end[1] - start[1], end[0] - start[0]);
-        double intersectionX = end[0] - 2 * diamondSize * Math.cos(angle);
-        double intersectionY = end[1] - 2 * diamondSize * Math.sin(angle);
-        return new double[]{intersectionX, intersectionY};
+    public void drawLineConnection(DisplayList list, LineConnection line) {
+        drawLineConnection(list, line, false);
     }
 
     /**
-     * Draws a hollow triangle on the canvas with the given parameters.
+     * Draws a single line connection, including its control points, end shape and label.
      *
-     * @param gc         the {@code GraphicsContext} used for drawing.
-     * @param endX       the x-coordinate of the triangle's tip.
-     * @param endY       the y-coordinate of the triangle's tip.
-     * @param startX     the x-coordinate of the line's starting point.
-     * @param startY     the y-coordinate of the line's starting point.
-     * @param isSelected whether the triangle is selected, affecting its appearance.
+     * @param list       the {@link DisplayList} the drawing is recorded into
+     * @param line       the {@link LineConnection} to draw
+     * @param isSelected whether the line is drawn with the selection highlight
      */
-    public void drawHollowTriangle(GraphicsContext gc, double endX, double endY, double startX, double startY, boolean isSelected) {
-        double triangleSize = 15; // Size of the triangle
-
-        // Calculate the angle of the line
-        double angle = Math.atan2(endY - startY, endX - startX);
-
-        // Calculate the three points of the triangle
-        double[] xPoints = new double[3];
-        double[] yPoints = new double[3];
-        xPoints[0] = endX; // Tip of the triangle
-        yPoints[0] = endY;
-        xPoints[1] = endX - triangleSize * Math.cos(angle - Math.PI / 6); // Left base
-        yPoints[1] = endY - triangleSize * Math.sin(angle - Math.PI / 6);
-        xPoints[2] = endX - triangleSize * Math.cos(angle + Math.PI / 6); // Right base
-        yPoints[2] = endY - triangleSize * Math.sin(angle + Math.PI / 6);
+    public void drawLineConnection(DisplayList list, LineConnection line, boolean isSelected) {
+        drawLineConnections(list, Collections.singletonList(line), isSelected);
+    }
 
-        // Draw the triangle with highlight if selected
-        gc.setStroke(isSelected ? Color.web("#5DADE2") : Color.BLACK);
-        gc.setLineWidth(isSelected ? 3 : 2); // Thicker border if selected
-        gc.strokePolygon(xPoints, yPoints, 3); // Hollow triangle
+    /**
+     * Draws several line connections sharing the same selection state, including their control
+     * points, end shapes and labels.
+     *
+     * <p>Instead of setting the stroke and calling {@code strokeLine} for every segment, shapes of
+     * the same style are collected into a single path and painted with one call: all segments,
+     * all control points, the fill of all filled diamonds and the outlines of all end shapes.
+     * The number of draw calls and state changes therefore no longer grows with the number of lines;
+     * only the labels are still drawn one by one.</p>
+     *
+     * @param list       the {@link DisplayList} the drawing is recorded into
+     * @param lines      the line connections to draw
+     * @param isSelected whether the lines are drawn with the selection highlight
+     */
+    public void drawLineConnections(DisplayList list, List<LineConnection> lines, boolean isSelected) {
+        List<SceneSnapshot.Edge> edges = new ArrayList<>(lines.size());
+        for (LineConnection line : lines) {
+            edges.add(snapshotOf(line));
+        }
+        sceneRecorder.recordEdges(list, edges, isSelected, getDetailTier());
     }
 
     /**
@@ -2012,8 +3226,8 @@ updateClassHierarchy();
 
         // Create the TextField
         TextField lineTextField = new TextField(line.text == null ? "" : line.text); // Use existing text if present
-        lineTextField.setLayoutX(midX - 50); // Adjust position
-        lineTextField.setLayoutY(midY - 10);
+        lineTextField.setLayoutX(viewTransform.worldToScreenX(midX) - 50); // Adjust position
+        lineTextField.setLayoutY(viewTransform.worldToScreenY(midY) - 10);
         lineTextField.setPrefWidth(100);
         lineTextField.setStyle("-fx-border-color: blue; -fx-background-color: lightyellow;");
 
@@ -2024,18 +3238,22 @@ updateClassHierarchy();
         // Commit changes on Enter
         lineTextField.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
+                markLineDirty(line);
                 line.text = lineTextField.getText().trim();
                 canvasContainer.getChildren().remove(lineTextField);
-                redrawCanvas(gc); // Redraw the canvas with the updated text
+                markLineDirty(line);
+                requestRepaint(); // Repaint the line with the updated text
             }
         });
 
         // Remove TextField on focus loss
         lineTextField.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal) {
+                markLineDirty(line);
                 line.text = lineTextField.getText().trim();
                 canvasContainer.getChildren().remove(lineTextField);
-                redrawCanvas(gc);
+                markLineDirty(line);
+                requestRepaint();
             }
         });
     }
@@ -2049,23 +3267,18 @@ updateClassHierarchy();
      * @return {@code true} if the point is near the line; {@code false} otherwise.
      */
     public boolean isNearLine(double mouseX, double mouseY, LineConnection line) {
-        List<double[]> points = new ArrayList<>();
-        points.add(line.getStartPoint()); // Add starting point
-        points.addAll(line.controlPoints); // Add all control points
-        points.add(line.getEndPoint()); // Add ending point
-
-        // Iterate through the segments between points
-        for (int i = 0; i < points.size() - 1; i++) {
-            double[] start = points.get(i);
-            double[] end = points.get(i + 1);
-
-            // Check if the mouse is near the segment
-            if (pointToSegmentDistance(mouseX, mouseY, start[0], start[1], end[0], end[1]) < 10.0) {
+        double toleranceSquared = 10.0 * 10.0; // Compare squared distances, no square root needed
+
+        // Walk the segments from the starting point over the control points to the ending point
+        double[] start = line.getStartPoint();
+        for (double[] controlPoint : line.controlPoints) {
+            if (pointToSegmentDistanceSquared(mouseX, mouseY, start[0], start[1], controlPoint[0], controlPoint[1]) < toleranceSquared) {
                 return true; // Close enough to the line segment
             }
+            start = controlPoint;
         }
-
-        return false; // Not near any segment of the line
+        double[] end = line.getEndPoint();
+        return pointToSegmentDistanceSquared(mouseX, mouseY, start[0], start[1], end[0], end[1]) < toleranceSquared;
     }
 
     /**
@@ -2080,66 +3293,37 @@ updateClassHierarchy();
      * @return the shortest distance from the point to the segment.
      */
     public double pointToSegmentDistance(double px, double py, double x1, double y1, double x2, double y2) {
-        double lineLengthSquared = Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2);
-
-        if (lineLengthSquared == 0) {
-            // The line segment is a single point
-            return Math.sqrt(Math.pow(px - x1, 2) + Math.pow(py - y1, 2));
-        }
-
-        // Calculate the projection of the point onto the line segment
-        double t = ((px - x1) * (x2 - x1) + (py - y1) * (y2 - y1)) / lineLengthSquared;
-        t = Math.max(0, Math.min(1, t)); // Clamp t to the segment
-
-        // Find the projection point on the line segment
-        double projX = x1 + t * (x2 - x1);
-        double projY = y1 + t * (y2 - y1);
-
-        // Return the distance from the point to the projection
-        return Math.sqrt(Math.pow(px - projX, 2) + Math.pow(py - projY, 2));
+        return Math.sqrt(pointToSegmentDistanceSquared(px, py, x1, y1, x2, y2));
     }
 
     /**
-     * Draws a diamond shape at the specified position with optional fill and highlighting.
+     * Calculates the square of the shortest distance from a point to a line segment, using
+     * plain multiplications only. Comparing it with a squared tolerance avoids the square root.
      *
-     * @param gc         the {@code GraphicsContext} used for drawing.
-     * @param endX       the x-coordinate of the diamond's tip.
-     * @param endY       the y-coordinate of the diamond's tip.
-     * @param startX     the x-coordinate of the starting point of the line.
-     * @param startY     the y-coordinate of the starting point of the line.
-     * @param isSelected whether the diamond is selected, affecting its appearance.
-     * @param filled     whether the diamond should be filled with color.
+     * @param px the x-coordinate of the point.
+     * @param py the y-coordinate of the point.
+     * @param x1 the x-coordinate of the starting point of the segment.
+     * @param y1 the y-coordinate of the starting point of the segment.
+     * @param x2 the x-coordinate of the endpoint of the segment.
+     * @param y2 the y-coordinate of the endpoint of the segment.
+     * @return the squared shortest distance from the point to the segment.
      */
-    public void drawDiamond(GraphicsContext gc, double endX, double endY, double startX, double startY, boolean isSelected, boolean filled) {
-        double diamondSize = 15; // Size of the diamond
-        Color fillColor = isSelected ? Color.web("#5DADE2") : Color.BLACK; // Use the attribute button color for selected lines
-        Color borderColor = isSelected ? Color.web("#5DADE2"): Color.BLACK; // Use blue for the border if selected
-
-        // Calculate the angle of the line
-        double angle = Math.atan2(endY - startY, endX - startX);
+    public static double pointToSegmentDistanceSquared(double px, double py, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lineLengthSquared = dx * dx + dy * dy;
 
-        // Calculate the four points of the diamond
-        double[] xPoints = new double[4];
-        double[] yPoints = new double[4];
-        xPoints[0] = endX; // Tip of the diamond
-        yPoints[0] = endY;
-        xPoints[1] = endX - diamondSize * Math.cos(angle - Math.PI / 4); // Top-left corner
-        yPoints[1] = endY - diamondSize * Math.sin(angle - Math.PI / 4);
-        xPoints[2] = endX - 2 * diamondSize * Math.cos(angle); // Bottom corner
-        yPoints[2] = endY - 2 * diamondSize * Math.sin(angle);
-        xPoints[3] = endX - diamondSize * Math.cos(angle + Math.PI / 4); // Top-right corner
-        yPoints[3] = endY - diamondSize * Math.sin(angle + Math.PI / 4);
-
-        // Draw the diamond
-        if (filled) {
-            gc.setFill(fillColor); // Fill with the selected color
-            gc.fillPolygon(xPoints, yPoints, 4);
+        // Project the point onto the segment, unless the segment is a single point
+        double t = 0;
+        if (lineLengthSquared != 0) {
+            t = ((px - x1) * dx + (py - y1) * dy) / lineLengthSquared;
+            t = Math.max(0, Math.min(1, t)); // Clamp t to the segment
         }
 
-        // Draw the border
-        gc.setStroke(borderColor);
-        gc.setLineWidth(isSelected ? 3 : 2); // Thicker border if selected
-        gc.strokePolygon(xPoints, yPoints, 4);
+        // Distance from the point to the projection
+        double distanceX = px - (x1 + t * dx);
+        double distanceY = py - (y1 + t * dy);
+        return distanceX * distanceX + distanceY * distanceY;
     }
 
     /**
@@ -2152,8 +3336,7 @@ updateClassHierarchy();
      * @return {@code true} if the two points are within the snap radius; {@code false} otherwise.
      */
     public boolean isNear(double x1, double y1, double x2, double y2) {
-        double tolerance = 10.0; // Snap radius
-        return Math.abs(x1 - x2) < tolerance && Math.abs(y1 - y2) < tolerance;
+        return Math.abs(x1 - x2) < SNAP_TOLERANCE && Math.abs(y1 - y2) < SNAP_TOLERANCE;
     }
 
     /**
@@ -2234,25 +3417,14 @@ updateClassHierarchy();
      * Parses an attribute declaration in UML notation and converts it to Java syntax.
      *
      * For example, "+ attributeName:Type" would return "public Type attributeName".
+     * Code generation does not call this: it uses the {@link Member}s of the diagrams,
+     * which were parsed when they were entered.
      *
      * @param attribute the UML attribute declaration.
      * @return the parsed Java attribute declaration as a string, or a comment if invalid.
      */
     public String parseAttribute(String attribute) {
-        // Extract the parts of the attribute in the format: accessModifier name:type
-        String[] parts = attribute.split(":");
-        if (parts.length == 2) {
-            String accessModifierAndName = parseAccessModifier(parts[0]);
-            String[] accessParts = accessModifierAndName.split(" ", 2);
-            if (accessParts.length == 2) {
-                String accessModifier = accessParts[0];
-                String name = accessParts[1];
-                String type = parts[1].trim();
-                return accessModifier + " " + type + " " + name; // Format as: accessModifier type name
-            }
-        }
-        // If the format is invalid, return a comment to indicate the issue
-        return "// Invalid attribute format: " + attribute;
+        return Member.attribute(attribute).toAttributeCode();
     }
 
     /**
@@ -2265,19 +3437,7 @@ updateClassHierarchy();
      * @return the parsed Java method implementation as a string, or a comment if the format is invalid.
      */
     public String parseOperation(String operation) {
-        String[] parts = operation.split(":");
-        if (parts.length == 2) {
-            String declaration = parts[0].trim(); // Example: "+ anyfunction(String id,String name)"
-            String returnType = parts[1].trim(); // Example: "boolean"
-
-            // Parse access modifier
-            String accessModifier = getAccessModifierSymbol(declaration.substring(0, 1)); // First character (+, -, #, ~)
-            String methodSignature = declaration.substring(1).trim(); // Remove the access modifier symbol
-
-            // Generate the method
-            return accessModifier + " " + returnType + " " + methodSignature + " {\n        // TODO: Implement this method\n    }";
-        }
-        return "// Invalid operation format: " + operation;
+        return Member.operation(operation).toMethodCode();
     }
 
     /**
@@ -2308,8 +3468,8 @@ updateClassHierarchy();
 
             // Add any inheritance (extends other interfaces)
             List<String> inheritance = new ArrayList<>();
-            for (LineConnection connection : lineConnections) {
-                if (connection.startDiagram == interfaceDiagram && connection.lineType == InheritanceButton) {
+            for (LineConnection connection : connectionIndex.outgoing(interfaceDiagram)) {
+                if (connection.lineType == InheritanceButton) {
                     inheritance.add(connection.endDiagram instanceof InterfaceDiagram ?
                             ((InterfaceDiagram) connection.endDiagram).interfaceName : null);
                 }
@@ -2320,8 +3480,8 @@ updateClassHierarchy();
             code.append(" {\n");
 
             // Add operations
-            for (String operation : interfaceDiagram.operations) {
-                code.append("    ").append(parseInterfaceOperation(operation)).append("\n");
+            for (Member operation : interfaceDiagram.operations) {
+                code.append("    ").append(operation.toInterfaceMethodCode()).append("\n");
             }
 
             code.append("}\n");
@@ -2332,24 +3492,22 @@ updateClassHierarchy();
             List<String> compositions = new ArrayList<>();
             List<String> aggregations = new ArrayList<>();
 
-            for (LineConnection connection : lineConnections) {
+            // Only the lines touching this class are looked at
+            for (LineConnection connection : connectionIndex.outgoing(classDiagram)) {
                 if (connection.lineType == InheritanceButton) {
                     // Handle inheritance
-                    if (connection.startDiagram == classDiagram) {
-                        if (connection.endDiagram instanceof InterfaceDiagram) {
-                            implementedInterfaces.add(((InterfaceDiagram) connection.endDiagram).interfaceName);
-                        } else {
-                            inheritance.add(connection.endDiagram.className);
-                        }
-                    }
-                } else if (connection.lineType == compositionButton) {
-                    if (connection.endDiagram == classDiagram) {
-                        compositions.add(connection.startDiagram.className); // Composition pointing to this class
+                    if (connection.endDiagram instanceof InterfaceDiagram) {
+                        implementedInterfaces.add(((InterfaceDiagram) connection.endDiagram).interfaceName);
+                    } else {
+                        inheritance.add(connection.endDiagram.className);
                     }
+                }
+            }
+            for (LineConnection connection : connectionIndex.incoming(classDiagram)) {
+                if (connection.lineType == compositionButton) {
+                    compositions.add(connection.startDiagram.className); // Composition pointing to this class
                 } else if (connection.lineType == aggregationButton) {
-                    if (connection.endDiagram == classDiagram) {
-                        aggregations.add(connection.startDiagram.className); // Aggregation pointing to this class
-                    }
+                    aggregations.add(connection.startDiagram.className); // Aggregation pointing to this class
                 }
             }
 
@@ -2380,15 +3538,15 @@ updateClassHierarchy();
                         .append(aggregatedClass.substring(1)).append(";\n");
             }
 
-            // Attributes
-            for (String attribute : classDiagram.attributes) {
-                code.append("    ").append(parseAttribute(attribute)).append(";\n");
+            // Attributes and operations were parsed when they were entered
+            for (Member attribute : classDiagram.attributes) {
+                code.append("    ").append(attribute.toAttributeCode()).append(";\n");
             }
             code.append("\n");
 
             // Operations
-            for (String operation : classDiagram.operations) {
-                code.append("    ").append(parseOperation(operation)).append("\n\n");
+            for (Member operation : classDiagram.operations) {
+                code.append("    ").append(operation.toMethodCode()).append("\n\n");
             }
 
             // Add method stubs for implemented interfaces
@@ -2404,8 +3562,8 @@ updateClassHierarchy();
 
                 // Generate method stubs
                 if (interfaceDiagram != null) {
-                    for (String operation : interfaceDiagram.operations) {
-                        code.append("    @Override\n    ").append(parseOperation(operation)).append("\n\n");
+                    for (Member operation : interfaceDiagram.operations) {
+                        code.append("    @Override\n    ").append(operation.toMethodCode()).append("\n\n");
                     }
                 }
             }
@@ -2427,18 +3585,7 @@ updateClassHierarchy();
      * @return the parsed Java interface method signature as a string, or a comment if the format is invalid.
      */
     public String parseInterfaceOperation(String operation) {
-        String[] parts = operation.split(":");
-        if (parts.length == 2) {
-            String declaration = parts[0].trim(); // Example: "+ anyfunction(String id,String name)"
-            String returnType = parts[1].trim(); // Example: "boolean"
-
-            // Remove the access modifier and keep the raw signature
-            String methodSignature = declaration.substring(1).trim(); // Remove the access modifier symbol
-
-            // Generate the interface method
-            return returnType + " " + methodSignature + ";";
-        }
-        return "// Invalid operation format: " + operation;
+        return Member.operation(operation).toInterfaceMethodCode();
     }
 
     /**
@@ -2457,17 +3604,57 @@ updateClassHierarchy();
         double height = 50;  // Height of the rectangle
 
         /** List of attributes in the class. */
-        List<String> attributes = new ArrayList<>();
+        List<Member> attributes = new ArrayList<>();
 
         /** List of operations (methods) in the class. */
-        List<String> operations = new ArrayList<>();
+        List<Member> operations = new ArrayList<>();
 
         /** Name of the class. */
         String className = "Class"; // Default class name
 
+        /** Height of the attribute section, calculated together with the width and height. */
+        transient double attributeHeight;
+
+        /** Height of the operation section, calculated together with the width and height. */
+        transient double operationHeight;
+
+        /**
+         * Flag indicating whether the width, height and section heights match the current name,
+         * attributes and operations. Not serialized, so loaded diagrams are measured again.
+         */
+        transient boolean layoutValid = false;
+
+        /** Connection points, allocated once and updated in place when the diagram moves or resizes. */
+        transient double[][] connectionPoints;
+
+        /** ID of the diagram in the diagrams map, allocated when it is created and saved with it. */
+        int id = IdMap.NO_ID;
+
+        /** Position in the drawing order; diagrams with a higher value are drawn on top. */
+        long zOrder;
+
+        /** Position and size the connection points were last calculated for. */
+        transient double pointsX, pointsY, pointsWidth, pointsHeight;
+
         /** Serialization version ID for compatibility. */
         public static final long serialVersionUID = 1L;
 
+        /**
+         * Fields written to files. Attributes and operations are written as lists of their
+         * display texts, as they were before members were parsed, so files stay compatible.
+         */
+        private static final ObjectStreamField[] serialPersistentFields = {
+                new ObjectStreamField("x", double.class),
+                new ObjectStreamField("y", double.class),
+                new ObjectStreamField("width", double.class),
+                new ObjectStreamField("height", double.class),
+                new ObjectStreamField("attributes", List.class),
+                new ObjectStreamField("operations", List.class),
+                new ObjectStreamField("className", String.class),
+                new ObjectStreamField("id", int.class),
+                new ObjectStreamField("zOrder", long.class)
+        };
+
         /**
          * Constructs a ClassDiagram with specified coordinates.
          *
@@ -2480,29 +3667,115 @@ updateClassHierarchy();
         }
 
         /**
-         * Calculates and retrieves connection points for the diagram.
+         * Writes the diagram, with its attributes and operations as lists of texts.
+         *
+         * @param out the stream to write to
+         * @throws IOException if the diagram cannot be written
+         */
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("x", x);
+            fields.put("y", y);
+            fields.put("width", width);
+            fields.put("height", height);
+            fields.put("attributes", Member.textsOf(attributes));
+            fields.put("operations", Member.textsOf(operations));
+            fields.put("className", className);
+            fields.put("id", id);
+            fields.put("zOrder", zOrder);
+            out.writeFields();
+        }
+
+        /**
+         * Reads a diagram and parses its attributes and operations.
+         *
+         * @param in the stream to read from
+         * @throws IOException            if the diagram cannot be read
+         * @throws ClassNotFoundException if a class of the stream is unknown
+         */
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            x = fields.get("x", 0.0);
+            y = fields.get("y", 0.0);
+            width = fields.get("width", 120.0);
+            height = fields.get("height", 50.0);
+            attributes = Member.parseAll((List<?>) fields.get("attributes", null), false);
+            operations = Member.parseAll((List<?>) fields.get("operations", null), true);
+            className = (String) fields.get("className", "Class");
+            id = fields.get("id", IdMap.NO_ID);
+            zOrder = fields.get("zOrder", 0L);
+        }
+
+        /**
+         * Marks the size of the diagram as outdated, e.g. after its name, attributes or
+         * operations were changed directly. It is recalculated on the next draw.
+         */
+        void invalidateLayout() {
+            layoutValid = false;
+        }
+
+        /**
+         * Retrieves the connection points of the diagram.
+         *
+         * <p>The points are only recalculated when the position or size of the diagram changed
+         * since the last call; they are updated in place, so no arrays are allocated. The returned
+         * arrays must not be modified by callers and always reflect the current position.</p>
          *
          * @return a 2D array of connection point coordinates
          */
         public double[][] getConnectionPoints() {
-            double halfWidth = width / 2;
+            if (connectionPoints == null) {
+                connectionPoints = new double[6][2];
+                pointsWidth = Double.NaN; // Force the first calculation
+            }
+
+            if (x != pointsX || y != pointsY || width != pointsWidth || height != pointsHeight) {
+                computeConnectionPoints(x, y, width, height, connectionPoints);
+                pointsX = x;
+                pointsY = y;
+                pointsWidth = width;
+                pointsHeight = height;
+            }
+            return connectionPoints;
+        }
+
+        /**
+         * Calculates the connection points of a diagram with the given position and size.
+         *
+         * @param x      the x-coordinate of the diagram
+         * @param y      the y-coordinate of the diagram
+         * @param width  the width of the diagram
+         * @param height the height of the diagram
+         * @param points the array of six {x, y} pairs the points are stored in
+         */
+        static void computeConnectionPoints(double x, double y, double width, double height, double[][] points) {
             double halfHeight = height / 2;
 
-            return new double[][]{
-                    // Top side (2 points)
-                    {x + width / 3, y},              // Top-left
-                    {x + 2 * width / 3, y},          // Top-right
+            // Top side (2 points)
+            setPoint(points[0], x + width / 3, y);              // Top-left
+            setPoint(points[1], x + 2 * width / 3, y);          // Top-right
 
-                    // Bottom side (2 points)
-                    {x + width / 3, y + height},     // Bottom-left
-                    {x + 2 * width / 3, y + height}, // Bottom-right
+            // Bottom side (2 points)
+            setPoint(points[2], x + width / 3, y + height);     // Bottom-left
+            setPoint(points[3], x + 2 * width / 3, y + height); // Bottom-right
 
-                    // Left side (1 point)
-                    {x, y + halfHeight},             // Left-center
+            // Left side (1 point)
+            setPoint(points[4], x, y + halfHeight);             // Left-center
+
+            // Right side (1 point)
+            setPoint(points[5], x + width, y + halfHeight);     // Right-center
+        }
 
-                    // Right side (1 point)
-                    {x + width, y + halfHeight},     // Right-center
-            };
+        /**
+         * Stores the coordinates of one connection point.
+         *
+         * @param point the {x, y} pair to fill
+         * @param px    the x-coordinate
+         * @param py    the y-coordinate
+         */
+        private static void setPoint(double[] point, double px, double py) {
+            point[0] = px;
+            point[1] = py;
         }
 
         /**
@@ -2562,6 +3835,9 @@ updateClassHierarchy();
         /** Intermediate control points for the connection line. */
         List<double[]> controlPoints = new ArrayList<>(); // Intermediate control points
 
+        /** List returned by {@link #getAllPoints()}, refilled on every call instead of reallocated. */
+        transient List<double[]> allPoints;
+
         /** Serialization version ID for compatibility. */
         public static final long serialVersionUID = 1L;
 
@@ -2606,15 +3882,24 @@ updateClassHierarchy();
         /**
          * Retrieves all points in the connection, including start, control, and end points.
          *
+         * <p>The same list is reused by every call, so it is only valid until the next call
+         * for this line and must not be modified.</p>
+         *
          * @return a list of all connection points
          */
         public List<double[]> getAllPoints() {
+            if (allPoints == null) {
+                allPoints = new ArrayList<>(controlPoints.size() + 2);
+            }
+
             // Combine start, control points, and end points for rendering
-            List<double[]> points = new ArrayList<>();
-            points.add(getStartPoint());
-            points.addAll(controlPoints);
-            points.add(getEndPoint());
-            return points;
+            allPoints.clear();
+            allPoints.add(getStartPoint());
+            for (double[] controlPoint : controlPoints) {
+                allPoints.add(controlPoint);
+            }
+            allPoints.add(getEndPoint());
+            return allPoints;
         }
 
         /**
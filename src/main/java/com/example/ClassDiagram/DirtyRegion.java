@@ -0,0 +1,157 @@
+package com.example.ClassDiagram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the canvas areas that have changed since the last paint of the class diagram editor.
+ *
+ * <p>Every interaction that changes what is on screen (moving, editing or selecting an element)
+ * marks the old and the new bounds of the element as dirty. The controller then repaints only
+ * these rectangles instead of clearing and redrawing the whole canvas.</p>
+ *
+ * <p>Rectangles that overlap are merged as they are added. Once more than
+ * {@link #MAX_RECTANGLES} disjoint rectangles are collected, they are collapsed into their
+ * bounding box, so the cost of a repaint stays bounded regardless of how many elements changed.</p>
+ */
+public class DirtyRegion {
+
+    /** Maximum number of disjoint rectangles kept before collapsing them into one. */
+    public static final int MAX_RECTANGLES = 8;
+
+    /** Dirty rectangles stored as {minX, minY, maxX, maxY}. */
+    private final List<double[]> rectangles = new ArrayList<>();
+
+    /** Flag indicating whether the whole canvas has to be repainted. */
+    private boolean fullRepaint = false;
+
+    /**
+     * Marks a rectangle as dirty.
+     *
+     * @param x      the x-coordinate of the top-left corner
+     * @param y      the y-coordinate of the top-left corner
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public void add(double x, double y, double width, double height) {
+        if (fullRepaint || width <= 0 || height <= 0) {
+            return;
+        }
+
+        double[] added = {x, y, x + width, y + height};
+
+        // Merge with every rectangle the new one overlaps, until no overlap is left
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < rectangles.size(); i++) {
+                double[] existing = rectangles.get(i);
+                if (overlaps(existing, added)) {
+                    added[0] = Math.min(added[0], existing[0]);
+                    added[1] = Math.min(added[1], existing[1]);
+                    added[2] = Math.max(added[2], existing[2]);
+                    added[3] = Math.max(added[3], existing[3]);
+                    rectangles.remove(i);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+        rectangles.add(added);
+
+        // Collapse into the bounding box if too many disjoint rectangles were collected
+        if (rectangles.size() > MAX_RECTANGLES) {
+            double[] bounds = getBounds();
+            rectangles.clear();
+            rectangles.add(bounds);
+        }
+    }
+
+    /**
+     * Marks the whole canvas as dirty, e.g. after a resize, zoom or load.
+     */
+    public void addAll() {
+        fullRepaint = true;
+        rectangles.clear();
+    }
+
+    /**
+     * Marks everything another region contains as dirty.
+     *
+     * @param other the region whose rectangles are added
+     */
+    public void addRegion(DirtyRegion other) {
+        if (other.fullRepaint) {
+            addAll();
+            return;
+        }
+        for (double[] rectangle : other.rectangles) {
+            add(rectangle[0], rectangle[1], rectangle[2] - rectangle[0], rectangle[3] - rectangle[1]);
+        }
+    }
+
+    /**
+     * Checks whether the whole canvas has to be repainted.
+     *
+     * @return {@code true} if a full repaint was requested
+     */
+    public boolean isFullRepaint() {
+        return fullRepaint;
+    }
+
+    /**
+     * Checks whether anything has been marked as dirty.
+     *
+     * @return {@code true} if there is nothing to repaint
+     */
+    public boolean isEmpty() {
+        return !fullRepaint && rectangles.isEmpty();
+    }
+
+    /**
+     * Returns the dirty rectangles, each as {minX, minY, maxX, maxY}.
+     *
+     * @return the list of dirty rectangles (empty if a full repaint was requested)
+     */
+    public List<double[]> getRectangles() {
+        return rectangles;
+    }
+
+    /**
+     * Returns the bounding box of all dirty rectangles as {minX, minY, maxX, maxY}.
+     *
+     * @return the bounding box, or {@code null} if nothing is dirty
+     */
+    public double[] getBounds() {
+        if (rectangles.isEmpty()) {
+            return null;
+        }
+        double[] bounds = rectangles.get(0).clone();
+        for (double[] rectangle : rectangles) {
+            bounds[0] = Math.min(bounds[0], rectangle[0]);
+            bounds[1] = Math.min(bounds[1], rectangle[1]);
+            bounds[2] = Math.max(bounds[2], rectangle[2]);
+            bounds[3] = Math.max(bounds[3], rectangle[3]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Forgets all dirty rectangles, typically after they have been repainted.
+     */
+    public void clear() {
+        fullRepaint = false;
+        rectangles.clear();
+    }
+
+    /**
+     * Checks whether two rectangles given as {minX, minY, maxX, maxY} overlap or touch.
+     *
+     * @param a the first rectangle
+     * @param b the second rectangle
+     * @return {@code true} if the rectangles overlap
+     */
+    static boolean overlaps(double[] a, double[] b) {
+        return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.ClassDiagram;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Map from numeric element IDs to the elements of a model, such as the class and interface
+ * diagrams of the class diagram editor.
+ *
+ * <p>IDs are allocated by the map itself with {@link #allocateId()}, in increasing order and
+ * never twice, not even after the element using an ID was removed. As the IDs are small and
+ * dense, the elements are simply stored in an array indexed by their ID: looking an element up
+ * costs one array access, with no boxing of the key and no hashing.</p>
+ *
+ * <p>The {@link #values()} are iterated in the order of their IDs, i.e. in the order in which
+ * the elements were created.</p>
+ *
+ * @param <V> the type of the elements
+ */
+public class IdMap<V> {
+
+    /** ID that is never allocated, used for "no element". */
+    public static final int NO_ID = 0;
+
+    /** Elements indexed by their ID; {@code null} where no element uses the ID. */
+    private Object[] slots = new Object[16];
+
+    /** Number of elements in the map. */
+    private int size = 0;
+
+    /** Highest ID allocated or stored so far. */
+    private int lastId = NO_ID;
+
+    /**
+     * Allocates a new ID, higher than every ID allocated or stored before.
+     *
+     * @return the new ID
+     */
+    public int allocateId() {
+        return ++lastId;
+    }
+
+    /**
+     * Stores an element under an ID, replacing the element previously stored under it.
+     *
+     * @param id    the ID, usually obtained from {@link #allocateId()}
+     * @param value the element
+     * @return the element previously stored under the ID, or {@code null} if there was none
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int id, V value) {
+        if (id <= NO_ID) {
+            throw new IllegalArgumentException("Invalid ID: " + id);
+        }
+        Objects.requireNonNull(value, "value");
+        if (id >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(id + 1, 2 * slots.length));
+        }
+
+        V previous = (V) slots[id];
+        slots[id] = value;
+        if (previous == null) {
+            size++;
+        }
+        lastId = Math.max(lastId, id);
+        return previous;
+    }
+
+    /**
+     * Returns the element stored under an ID.
+     *
+     * @param id the ID
+     * @return the element, or {@code null} if no element is stored under the ID
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        return id > NO_ID && id < slots.length ? (V) slots[id] : null;
+    }
+
+    /**
+     * Checks whether an element is stored under an ID.
+     *
+     * @param id the ID
+     * @return {@code true} if an element is stored under the ID
+     */
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Checks whether an element is stored in the map. Takes linear time.
+     *
+     * @param value the element
+     * @return {@code true} if the element is stored under some ID
+     */
+    public boolean containsValue(Object value) {
+        return value != null && Arrays.asList(slots).contains(value);
+    }
+
+    /**
+     * Removes the element stored under an ID. The ID is not allocated again.
+     *
+     * @param id the ID
+     * @return the removed element, or {@code null} if no element was stored under the ID
+     */
+    public V remove(int id) {
+        V previous = get(id);
+        if (previous != null) {
+            slots[id] = null;
+            size--;
+        }
+        return previous;
+    }
+
+    /**
+     * Removes every element. IDs allocated before are not allocated again.
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map holds no element.
+     *
+     * @return {@code true} if the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a view of the elements, in the order of their IDs. Elements must not be removed
+     * through the view.
+     *
+     * @return the elements
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<>() {
+                    /** ID of the next element to return, or {@code slots.length} at the end. */
+                    private int next = advance(NO_ID + 1);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < slots.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) slots[next];
+                        next = advance(next + 1);
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the lowest ID from the given one on that an element is stored under.
+     *
+     * @param id the first ID to look at
+     * @return the ID found, or the length of the slot array if there is none
+     */
+    private int advance(int id) {
+        while (id < slots.length && slots[id] == null) {
+            id++;
+        }
+        return id;
+    }
+}
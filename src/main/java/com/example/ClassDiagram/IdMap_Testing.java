@@ -0,0 +1,122 @@
+package com.example.ClassDiagram;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdMap_Testing {
+    private IdMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IdMap<>();
+    }
+
+    @Test
+    void testAllocatedIdsIncrease() {
+        int first = map.allocateId();
+        int second = map.allocateId();
+
+        assertNotEquals(IdMap.NO_ID, first);
+        assertTrue(second > first);
+        assertTrue(map.isEmpty(), "Allocating an ID stores nothing.");
+    }
+
+    @Test
+    void testGrowsBeyondTheInitialCapacity() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int id = map.allocateId();
+            ids.add(id);
+            map.put(id, "element" + i);
+        }
+
+        assertEquals(1000, map.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("element" + i, map.get(ids.get(i)));
+        }
+    }
+
+    @Test
+    void testPutWithAHighIdGrowsAndIsNeverAllocated() {
+        map.put(5000, "loaded");
+
+        assertEquals("loaded", map.get(5000));
+        assertNull(map.get(4999));
+        assertTrue(map.allocateId() > 5000, "IDs stored from a file must not be allocated again.");
+    }
+
+    @Test
+    void testPutReplacesTheElement() {
+        int id = map.allocateId();
+        assertNull(map.put(id, "old"));
+        assertEquals("old", map.put(id, "new"));
+
+        assertEquals(1, map.size());
+        assertEquals("new", map.get(id));
+    }
+
+    @Test
+    void testRemoveDoesNotReuseTheId() {
+        int first = map.allocateId();
+        map.put(first, "first");
+        int second = map.allocateId();
+        map.put(second, "second");
+
+        assertEquals("first", map.remove(first));
+        assertNull(map.remove(first), "An element is removed only once.");
+        assertFalse(map.containsKey(first));
+        assertFalse(map.containsValue("first"));
+        assertEquals(1, map.size());
+        assertTrue(map.allocateId() > second);
+    }
+
+    @Test
+    void testNoIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> map.put(IdMap.NO_ID, "element"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "element"));
+        assertThrows(NullPointerException.class, () -> map.put(map.allocateId(), null));
+
+        // Looking up an ID that cannot be stored finds nothing
+        assertNull(map.get(IdMap.NO_ID));
+        assertNull(map.get(-1));
+        assertNull(map.get(Integer.MAX_VALUE));
+        assertFalse(map.containsKey(IdMap.NO_ID));
+        assertNull(map.remove(IdMap.NO_ID));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testValuesAreInIdOrder() {
+        map.put(40, "d");
+        map.put(3, "a");
+        map.put(17, "c");
+        map.put(5, "b");
+        map.remove(17);
+
+        assertEquals(List.of("a", "b", "d"), new ArrayList<>(map.values()));
+        assertEquals(3, map.values().size());
+
+        Iterator<String> iterator = new IdMap<String>().values().iterator();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void testClearKeepsTheAllocatedIds() {
+        int id = map.allocateId();
+        map.put(id, "element");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(id));
+        assertFalse(map.values().iterator().hasNext());
+        assertTrue(map.allocateId() > id);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.ClassDiagram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An attribute or operation of a class or interface, parsed once from its UML notation such as
+ * {@code "+ name:String"} or {@code "- find(String id, int limit):Item"}.
+ *
+ * <p>The text typed by the user is split into a visibility, a name, a type and, for operations,
+ * a parameter list when the member is created. Drawing and saving use the text exactly as the user
+ * typed it, which is kept next to the parts; code generation uses the parts directly, normalising
+ * the spacing of the notation, so neither of them parses the notation again. Type names and
+ * parameters are interned, so every occurrence of a type in the model refers to the same string.</p>
+ *
+ * <p>A text that does not follow the notation, e.g. one without a type, is kept as the name, and
+ * the generated code marks it as invalid. Members are immutable: editing a member replaces it.</p>
+ */
+public final class Member {
+
+    /** Visibility of a member, written as a symbol in UML and as a keyword in Java. */
+    public enum Visibility {
+        /** Written as {@code +}. */
+        PUBLIC("+", "public"),
+        /** Written as {@code -}. */
+        PRIVATE("-", "private"),
+        /** Written as {@code #}. */
+        PROTECTED("#", "protected"),
+        /** Written as {@code ~}; Java has no keyword for it. */
+        PACKAGE("~", ""),
+        /** Written without a symbol; generated as public. */
+        UNSPECIFIED("", "public");
+
+        /** UML symbol of the visibility. */
+        final String symbol;
+
+        /** Java keyword of the visibility. */
+        final String keyword;
+
+        Visibility(String symbol, String keyword) {
+            this.symbol = symbol;
+            this.keyword = keyword;
+        }
+
+        /**
+         * Returns the visibility written as the first character of a text.
+         *
+         * @param text the text
+         * @return the visibility, or {@link #UNSPECIFIED} if the text starts with no symbol
+         */
+        static Visibility ofSymbol(String text) {
+            for (Visibility visibility : values()) {
+                if (visibility != UNSPECIFIED && text.startsWith(visibility.symbol)) {
+                    return visibility;
+                }
+            }
+            return UNSPECIFIED;
+        }
+    }
+
+    /** Visibility of the member. */
+    final Visibility visibility;
+
+    /** Name of the member, or the whole text after the visibility if it does not follow the notation. */
+    final String name;
+
+    /** Interned type of an attribute or return type of an operation, or {@code null} if none was given. */
+    final String type;
+
+    /**
+     * Interned parameters of an operation, such as {@code "String id"}, or {@code null} for
+     * attributes and for operations written without parentheses.
+     */
+    final List<String> parameters;
+
+    /** Text of the member as typed by the user, drawn and saved unchanged. */
+    private final String text;
+
+    /**
+     * Creates a member from its parts and the text they were parsed from.
+     */
+    private Member(String text, Visibility visibility, String name, String type, List<String> parameters) {
+        this.text = text;
+        this.visibility = visibility;
+        this.name = name;
+        this.type = type;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Parses an attribute written as {@code "<symbol> name:Type"}.
+     *
+     * @param notation the UML notation of the attribute
+     * @return the attribute
+     */
+    public static Member attribute(String notation) {
+        return parse(notation, false);
+    }
+
+    /**
+     * Parses an operation written as {@code "<symbol> name(parameters):ReturnType"}.
+     *
+     * @param notation the UML notation of the operation
+     * @return the operation
+     */
+    public static Member operation(String notation) {
+        return parse(notation, true);
+    }
+
+    /**
+     * Parses a list of attributes or operations, e.g. read from a file.
+     *
+     * @param notations  the UML notations
+     * @param operations whether the members are operations
+     * @return a new mutable list of the members
+     */
+    static List<Member> parseAll(List<?> notations, boolean operations) {
+        List<Member> members = new ArrayList<>(notations == null ? 0 : notations.size());
+        if (notations != null) {
+            for (Object notation : notations) {
+                members.add(parse(String.valueOf(notation), operations));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Returns the texts of a list of members as typed by the user, e.g. to write them to a file.
+     *
+     * @param members the members
+     * @return a new list of their texts
+     */
+    static List<String> textsOf(List<Member> members) {
+        List<String> texts = new ArrayList<>(members.size());
+        for (Member member : members) {
+            texts.add(member.text);
+        }
+        return texts;
+    }
+
+    /**
+     * Splits the notation of a member into its parts.
+     */
+    private static Member parse(String notation, boolean isOperation) {
+        String rest = notation.trim();
+        Visibility visibility = Visibility.ofSymbol(rest);
+        rest = rest.substring(visibility.symbol.length()).trim();
+
+        // Exactly one colon, with a declaration before it and a type after it
+        int colon = rest.indexOf(':');
+        if (colon <= 0 || colon != rest.lastIndexOf(':') || rest.substring(colon + 1).trim().isEmpty()) {
+            return new Member(notation, visibility, rest, null, null);
+        }
+        String declaration = rest.substring(0, colon).trim();
+        String type = rest.substring(colon + 1).trim().intern();
+
+        int open = declaration.indexOf('(');
+        if (!isOperation || open < 0 || !declaration.endsWith(")")) {
+            return new Member(notation, visibility, declaration, type, null);
+        }
+        String name = declaration.substring(0, open).trim();
+        String list = declaration.substring(open + 1, declaration.length() - 1).trim();
+        if (list.isEmpty()) {
+            return new Member(notation, visibility, name, type, Collections.emptyList());
+        }
+        String[] parameters = list.split(",");
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = parameters[i].trim().intern();
+        }
+        return new Member(notation, visibility, name, type, Collections.unmodifiableList(Arrays.asList(parameters)));
+    }
+
+    /**
+     * Returns the name of the member followed by its parameter list, if it has one, with the
+     * parameters separated by a comma and a space.
+     *
+     * @return the signature, e.g. {@code "find(String id, int limit)"}
+     */
+    public String signature() {
+        return parameters == null ? name : name + "(" + String.join(", ", parameters) + ")";
+    }
+
+    /**
+     * Checks whether the member follows the notation, i.e. has a type.
+     *
+     * @return {@code true} if Java code can be generated for the member
+     */
+    public boolean isValid() {
+        return type != null;
+    }
+
+    /**
+     * Returns the text of the member as typed by the user, e.g. {@code "+name:String"}.
+     *
+     * @return the text drawn in the diagram
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Generates the Java declaration of an attribute, without the semicolon.
+     *
+     * @return the declaration, e.g. {@code "public String name"}, or a comment if the member is invalid
+     */
+    public String toAttributeCode() {
+        if (!isValid()) {
+            return "// Invalid attribute format: " + text;
+        }
+        return visibility.keyword + " " + type + " " + name;
+    }
+
+    /**
+     * Generates a Java method with an empty body for an operation of a class.
+     *
+     * @return the method, or a comment if the member is invalid
+     */
+    public String toMethodCode() {
+        if (!isValid()) {
+            return "// Invalid operation format: " + text;
+        }
+        // Methods have always been generated without an access modifier
+        return " " + type + " " + signature() + " {\n        // TODO: Implement this method\n    }";
+    }
+
+    /**
+     * Generates a Java method declaration for an operation of an interface.
+     *
+     * @return the declaration, or a comment if the member is invalid
+     */
+    public String toInterfaceMethodCode() {
+        if (!isValid()) {
+            return "// Invalid operation format: " + text;
+        }
+        return type + " " + signature() + ";";
+    }
+
+    /**
+     * Returns the text of the member as typed by the user.
+     *
+     * @return the same as {@link #getText()}
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.ClassDiagram;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Member_Testing {
+
+    /**
+     * A file saved before diagrams had IDs and before members were parsed: a map from coordinate
+     * keys to a class "Order" and an interface "Repository", followed by an empty list of lines.
+     */
+    private static final String LEGACY_FILE =
+            "rO0ABXNyABFqYXZhLnV0aWwuSGFzaE1hcAUH2sHDFmDRAwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAN3CAAA"
+            + "AAQAAAACdAAKNDAwLjAsODAuMHNyADRjb20uZXhhbXBsZS5DbGFzc0RpYWdyYW0uQ29udHJvbGxlciRJbnRlcmZhY2VEaWFncmFt"
+            + "AAAAAAAAAAECAAFMAA1pbnRlcmZhY2VOYW1ldAASTGphdmEvbGFuZy9TdHJpbmc7eHIAMGNvbS5leGFtcGxlLkNsYXNzRGlhZ3Jh"
+            + "bS5Db250cm9sbGVyJENsYXNzRGlhZ3JhbQAAAAAAAAABAgAHRAAGaGVpZ2h0RAAFd2lkdGhEAAF4RAABeUwACmF0dHJpYnV0ZXN0"
+            + "ABBMamF2YS91dGlsL0xpc3Q7TAAJY2xhc3NOYW1lcQB+AARMAApvcGVyYXRpb25zcQB+AAZ4cEBJAAAAAAAAQF4AAAAAAABAeQAA"
+            + "AAAAAEBUAAAAAAAAc3IAE2phdmEudXRpbC5BcnJheUxpc3R4gdIdmcdhnQMAAUkABHNpemV4cAAAAAB3BAAAAAB4dAAFQ2xhc3Nz"
+            + "cQB+AAgAAAABdwQAAAABdAAYKyBzYXZlKE9yZGVyIG9yZGVyKTp2b2lkeHQAClJlcG9zaXRvcnl0AAoxMjAuMCw4MC4wc3EAfgAF"
+            + "QEkAAAAAAABAXgAAAAAAAEBeAAAAAAAAQFQAAAAAAABzcQB+AAgAAAADdwQAAAADdAAHK2lkOmludHQAEC0gdG90YWwgOiBkb3Vi"
+            + "bGV0AAcrIG5vdGVzeHQABU9yZGVyc3EAfgAIAAAAAncEAAAAAnQAICsgZmluZChTdHJpbmcgaWQsaW50IGxpbWl0KTpJdGVtdAAN"
+            + "I2Nsb3NlKCk6dm9pZHh4c3EAfgAIAAAAAHcEAAAAAHg=";
+
+    @Test
+    void testVisibility() {
+        assertEquals(Member.Visibility.PUBLIC, Member.attribute("+ a:int").visibility);
+        assertEquals(Member.Visibility.PRIVATE, Member.attribute("- a:int").visibility);
+        assertEquals(Member.Visibility.PROTECTED, Member.attribute("# a:int").visibility);
+        assertEquals(Member.Visibility.PACKAGE, Member.attribute("~ a:int").visibility);
+        assertEquals(Member.Visibility.UNSPECIFIED, Member.attribute("a:int").visibility);
+        assertEquals(Member.Visibility.PRIVATE, Member.operation("-run():void").visibility);
+
+        assertEquals("private int a", Member.attribute("- a:int").toAttributeCode());
+        assertEquals(" int a", Member.attribute("~ a:int").toAttributeCode(), "Package visibility has no keyword.");
+        assertEquals("public int a", Member.attribute("a:int").toAttributeCode());
+    }
+
+    @Test
+    void testNamesAndTypes() {
+        Member attribute = Member.attribute("  -  total :  double ");
+        assertEquals("total", attribute.name);
+        assertEquals("double", attribute.type);
+        assertNull(attribute.parameters, "Attributes have no parameter list.");
+        assertTrue(attribute.isValid());
+
+        Member generic = Member.attribute("# items:Map<String, Integer>");
+        assertEquals("items", generic.name);
+        assertEquals("Map<String, Integer>", generic.type);
+    }
+
+    @Test
+    void testInvalidNotationKeepsTheText() {
+        for (String notation : new String[]{"+ notes", "+ a:b:c", "+ a:", "+ :int"}) {
+            Member member = Member.attribute(notation);
+            assertFalse(member.isValid(), notation);
+            assertNull(member.type, notation);
+            assertEquals(notation, member.getText());
+            assertEquals("// Invalid attribute format: " + notation, member.toAttributeCode());
+        }
+        assertEquals("notes", Member.attribute("+ notes").name);
+        assertEquals("// Invalid operation format: + run()", Member.operation("+ run()").toMethodCode());
+    }
+
+    @Test
+    void testParameterLists() {
+        Member find = Member.operation("+ find(String id,int limit):Item");
+        assertEquals("find", find.name);
+        assertEquals("Item", find.type);
+        assertEquals(List.of("String id", "int limit"), find.parameters);
+        assertEquals("find(String id, int limit)", find.signature());
+
+        Member run = Member.operation("#run( ):void");
+        assertEquals("run", run.name);
+        assertEquals(List.of(), run.parameters);
+        assertEquals("run()", run.signature());
+
+        // An operation written without parentheses has no parameter list
+        Member property = Member.operation("+ size:int");
+        assertNull(property.parameters);
+        assertEquals("size", property.signature());
+
+        // Attributes are never split into parameters
+        assertNull(Member.attribute("+ f(int x):int").parameters);
+    }
+
+    @Test
+    void testTextIsKeptAsTyped() {
+        assertEquals("+name:T", Member.attribute("+name:T").getText());
+        assertEquals("+ find(String a,String b):void", Member.operation("+ find(String a,String b):void").getText());
+        assertEquals("+name:T", Member.attribute("+name:T").toString());
+    }
+
+    @Test
+    void testCodeIsNormalisedOnExport() {
+        Member find = Member.operation("+find(String a,String b):void");
+        assertEquals(" void find(String a, String b) {\n        // TODO: Implement this method\n    }", find.toMethodCode());
+        assertEquals("void find(String a, String b);", find.toInterfaceMethodCode());
+        assertEquals("public T name", Member.attribute("+name:T").toAttributeCode());
+    }
+
+    @Test
+    void testTypesAndParametersAreInterned() {
+        Member first = Member.attribute("+ a:" + new String("Str") + "ing");
+        Member second = Member.operation("- b(" + new StringBuilder("int x") + "):" + new String("String"));
+        Member third = Member.operation("+ c(int x):void");
+
+        assertSame("String", first.type);
+        assertSame(first.type, second.type);
+        assertSame(second.parameters.getFirst(), third.parameters.getFirst());
+    }
+
+    @Test
+    void testParseAllAndTextsOf() {
+        List<Member> members = Member.parseAll(List.of("+ a:int", "- b():void"), true);
+        assertEquals(List.of(), Member.parseAll(null, false));
+        assertEquals("b", members.get(1).name);
+        assertEquals(List.of("+ a:int", "- b():void"), Member.textsOf(members));
+
+        // The list is mutable, like the lists of a diagram
+        members.add(Member.attribute("+ c:int"));
+        assertEquals(3, members.size());
+    }
+
+    @Test
+    void testSerializationRoundTrip() throws Exception {
+        Controller.ClassDiagram diagram = new Controller.ClassDiagram(12.5, 40);
+        diagram.className = "Sample";
+        diagram.id = 7;
+        diagram.zOrder = 3;
+        diagram.attributes.add(Member.attribute("+name:String"));
+        diagram.attributes.add(Member.attribute("junk"));
+        diagram.operations.add(Member.operation("+ find(String id,int limit):Item"));
+        Controller.InterfaceDiagram repository = new Controller.InterfaceDiagram(300, 40);
+        repository.interfaceName = "Repository";
+        repository.operations.add(Member.operation("+ save(Order order):void"));
+
+        List<?> loaded = (List<?>) read(write(new ArrayList<>(List.of(diagram, repository))));
+        Controller.ClassDiagram copy = (Controller.ClassDiagram) loaded.get(0);
+        assertEquals(12.5, copy.x);
+        assertEquals(40, copy.y);
+        assertEquals("Sample", copy.className);
+        assertEquals(7, copy.id);
+        assertEquals(3, copy.zOrder);
+        assertEquals(List.of("+name:String", "junk"), Member.textsOf(copy.attributes));
+        assertEquals(List.of("+ find(String id,int limit):Item"), Member.textsOf(copy.operations));
+        assertEquals("name", copy.attributes.getFirst().name);
+        assertSame("String", copy.attributes.getFirst().type);
+        assertFalse(copy.attributes.get(1).isValid());
+        assertEquals(List.of("String id", "int limit"), copy.operations.getFirst().parameters);
+
+        Controller.InterfaceDiagram interfaceCopy = (Controller.InterfaceDiagram) loaded.get(1);
+        assertEquals("Repository", interfaceCopy.interfaceName);
+        assertEquals("save(Order order)", interfaceCopy.operations.getFirst().signature());
+    }
+
+    @Test
+    void testLegacyFile() throws Exception {
+        byte[] bytes = Base64.getDecoder().decode(LEGACY_FILE);
+        Controller.ClassDiagram order = null;
+        Controller.InterfaceDiagram repository = null;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            for (Object diagram : ((Map<?, ?>) in.readObject()).values()) {
+                if (diagram instanceof Controller.InterfaceDiagram) {
+                    repository = (Controller.InterfaceDiagram) diagram;
+                } else {
+                    order = (Controller.ClassDiagram) diagram;
+                }
+            }
+            assertEquals(List.of(), in.readObject(), "The lines follow the diagrams.");
+        }
+
+        // Fields missing from old files get their defaults
+        assertNotNull(order);
+        assertEquals("Order", order.className);
+        assertEquals(120, order.x);
+        assertEquals(IdMap.NO_ID, order.id);
+        assertEquals(0, order.zOrder);
+
+        // Members are parsed, and drawn as they were typed
+        assertEquals(List.of("+id:int", "- total : double", "+ notes"), Member.textsOf(order.attributes));
+        assertEquals("public int id", order.attributes.get(0).toAttributeCode());
+        assertEquals("private double total", order.attributes.get(1).toAttributeCode());
+        assertFalse(order.attributes.get(2).isValid());
+        assertEquals(List.of("+ find(String id,int limit):Item", "#close():void"), Member.textsOf(order.operations));
+        assertEquals("find(String id, int limit)", order.operations.getFirst().signature());
+        assertEquals(Member.Visibility.PROTECTED, order.operations.get(1).visibility);
+
+        assertNotNull(repository);
+        assertEquals("Repository", repository.interfaceName);
+        assertEquals("void save(Order order);", repository.operations.getFirst().toInterfaceMethodCode());
+
+        // Saving the diagram again writes the texts unchanged
+        Controller.ClassDiagram saved = (Controller.ClassDiagram) read(write(order));
+        assertEquals(Member.textsOf(order.attributes), Member.textsOf(saved.attributes));
+        assertEquals(Member.textsOf(order.operations), Member.textsOf(saved.operations));
+    }
+
+    private static byte[] write(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
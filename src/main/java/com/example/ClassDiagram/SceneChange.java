@@ -0,0 +1,97 @@
+package com.example.ClassDiagram;
+
+import com.example.Rendering.LevelOfDetail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the parts of the class diagram canvas that changed since the display list was
+ * last recorded, taken on the JavaFX Application Thread so that a worker thread can record them.
+ *
+ * <p>Only the diagrams marked dirty and the groups of line connections containing a dirty line
+ * are copied, so the cost of taking a change depends on the edit rather than on the size of the
+ * model. At another level of detail, the change also holds the boxes and lines every other
+ * fragment was recorded from; being immutable, they are shared rather than copied. A change can
+ * also hold a whole {@link SceneSnapshot}, e.g. after a file was loaded; its lines are then
+ * grouped while they are recorded.</p>
+ */
+public final class SceneChange {
+
+    /** Flag indicating whether the change replaces everything recorded before. */
+    final boolean replacesAll;
+
+    /** Diagrams to record again, with their position in the drawing order. */
+    final List<SceneSnapshot.Box> boxes;
+
+    /** Keys of the diagrams no longer drawn, because they were deleted or are being dragged. */
+    final List<Object> removedBoxes;
+
+    /**
+     * Groups of line connections to record again, by the key of their group; a group without
+     * lines is removed. {@code null} if the change replaces everything.
+     */
+    final Map<Long, List<SceneSnapshot.Edge>> lineGroups;
+
+    /** Every line connection to draw, if the change replaces everything; empty otherwise. */
+    final List<SceneSnapshot.Edge> edges;
+
+    /** Level of detail to draw with. */
+    final LevelOfDetail.Tier tier;
+
+    /**
+     * Creates a change to some of the recorded elements.
+     *
+     * @param boxes        the diagrams to record again
+     * @param removedBoxes the keys of the diagrams no longer drawn
+     * @param lineGroups   the groups of line connections to record again, by the key of their group
+     * @param tier         the level of detail to draw with
+     */
+    SceneChange(List<SceneSnapshot.Box> boxes, List<Object> removedBoxes,
+                Map<Long, List<SceneSnapshot.Edge>> lineGroups, LevelOfDetail.Tier tier) {
+        this.replacesAll = false;
+        this.boxes = Collections.unmodifiableList(boxes);
+        this.removedBoxes = Collections.unmodifiableList(removedBoxes);
+        this.lineGroups = Collections.unmodifiableMap(lineGroups);
+        this.edges = List.of();
+        this.tier = tier;
+    }
+
+    /**
+     * Creates a change replacing everything by a snapshot of the whole canvas.
+     */
+    private SceneChange(SceneSnapshot snapshot) {
+        this.replacesAll = true;
+        this.boxes = snapshot.boxes;
+        this.removedBoxes = List.of();
+        this.lineGroups = null;
+        this.edges = snapshot.edges;
+        this.tier = snapshot.tier;
+    }
+
+    /**
+     * Creates a change replacing everything recorded before.
+     *
+     * @param snapshot the snapshot of the whole canvas
+     * @return the change
+     */
+    static SceneChange of(SceneSnapshot snapshot) {
+        return new SceneChange(snapshot);
+    }
+
+    /**
+     * Returns the number of diagrams and line connections recorded or removed by the change.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        int size = boxes.size() + removedBoxes.size() + edges.size();
+        if (lineGroups != null) {
+            for (List<SceneSnapshot.Edge> group : lineGroups.values()) {
+                size += Math.max(1, group.size());
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ClassDiagram;
+
+import com.example.Rendering.RetainedDisplayList;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recording of a {@link SceneChange}: the fragments to put into and remove from the retained
+ * display list of the class diagram canvas.
+ */
+public final class ScenePatch {
+
+    /** The fragments to put and remove. */
+    final RetainedDisplayList.Patch fragments;
+
+    /**
+     * Line connections of every group, as grouped by the recorder, if the patch replaces
+     * everything; {@code null} otherwise, as the editor grouped the changed lines itself.
+     */
+    final Map<Long, List<Object>> lineGroups;
+
+    /**
+     * Creates a patch.
+     *
+     * @param fragments  the fragments to put and remove
+     * @param lineGroups the line connections of every group, or {@code null}
+     */
+    ScenePatch(RetainedDisplayList.Patch fragments, Map<Long, List<Object>> lineGroups) {
+        this.fragments = fragments;
+        this.lineGroups = lineGroups;
+    }
+}
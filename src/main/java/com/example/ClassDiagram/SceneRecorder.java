@@ -0,0 +1,655 @@
+package com.example.ClassDiagram;
+
+import com.example.Rendering.DisplayList;
+import com.example.Rendering.LevelOfDetail;
+import com.example.Rendering.RetainedDisplayList;
+import com.example.Rendering.TextMeasureCache;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the class diagram canvas into a {@link DisplayList}, working only on a
+ * {@link SceneSnapshot} of the model.
+ *
+ * <p>All geometry of a frame is computed here: the layout of the texts in the class and
+ * interface boxes, the points of every line, where its last segment stops before the end shape,
+ * and the trigonometry of the diamonds and triangles. As the recorder reads nothing but the
+ * immutable snapshot and the thread-safe {@link TextMeasureCache}, it may run on a worker thread;
+ * the JavaFX Application Thread then only replays the recorded draw calls.</p>
+ */
+public class SceneRecorder {
+
+    /** Width and height of the world covered by one group of line connections. */
+    public static final double LINE_GROUP_SIZE = 512;
+
+    /** Layer of the retained display list holding the class and interface boxes, by z-order. */
+    public static final int BOX_LAYER = 0;
+
+    /** Layer of the retained display list holding the groups of line connections, above the boxes. */
+    public static final int LINE_LAYER = 1;
+
+    /** Size of the diamonds and triangles at the end of the lines. */
+    private static final double SHAPE_SIZE = 15;
+
+    /** Measures the texts of the boxes. */
+    private final TextMeasureCache textMeasureCache;
+
+    /**
+     * Creates a recorder.
+     *
+     * @param textMeasureCache the cache used to measure texts; must be safe to use from any thread
+     */
+    public SceneRecorder(TextMeasureCache textMeasureCache) {
+        this.textMeasureCache = textMeasureCache;
+    }
+
+    /**
+     * Records a whole snapshot: every class and interface box as one element, followed by the
+     * line connections.
+     *
+     * <p>Line connections are grouped by the square of {@link #LINE_GROUP_SIZE} world units their
+     * centre lies in. Every group is one element, drawn with one path per style, so that a tile
+     * only replays the groups near it.</p>
+     *
+     * @param list     the {@link DisplayList} the drawing is recorded into
+     * @param snapshot the snapshot to record
+     */
+    public void record(DisplayList list, SceneSnapshot snapshot) {
+        for (SceneSnapshot.Box box : snapshot.boxes) {
+            recordBox(list, box, false, snapshot.tier);
+        }
+        for (List<SceneSnapshot.Edge> group : groupEdges(snapshot.edges).values()) {
+            recordEdgeGroup(list, group, snapshot.tier);
+        }
+    }
+
+    /**
+     * Records a change as fragments of a {@link RetainedDisplayList}: one per box, keyed by its
+     * diagram and ordered by its z-order in the {@link #BOX_LAYER}, and one per group of line
+     * connections, keyed and ordered by the group in the {@link #LINE_LAYER}.
+     *
+     * <p>Every fragment is trimmed, as it is kept until its element changes again, and keeps the
+     * immutable box or lines it was recorded from as its source. A change replacing everything is
+     * grouped here, and the patch tells the editor which lines ended up in which group.</p>
+     *
+     * @param change the change to record
+     * @return the patch to apply to the retained display list
+     */
+    public ScenePatch record(SceneChange change) {
+        RetainedDisplayList.Patch fragments = new RetainedDisplayList.Patch(change.replacesAll);
+        for (Object key : change.removedBoxes) {
+            fragments.remove(BOX_LAYER, key);
+        }
+        for (SceneSnapshot.Box box : change.boxes) {
+            DisplayList list = new DisplayList();
+            recordBox(list, box, false, change.tier);
+            list.trimToSize();
+            fragments.put(BOX_LAYER, box.key, box.order, list, box);
+        }
+
+        Map<Long, List<SceneSnapshot.Edge>> groups = change.replacesAll ? groupEdges(change.edges) : change.lineGroups;
+        Map<Long, List<Object>> members = change.replacesAll ? new HashMap<>() : null;
+        for (Map.Entry<Long, List<SceneSnapshot.Edge>> group : groups.entrySet()) {
+            List<SceneSnapshot.Edge> edges = group.getValue();
+            if (edges.isEmpty()) {
+                fragments.remove(LINE_LAYER, group.getKey());
+                continue;
+            }
+            DisplayList list = new DisplayList();
+            recordEdgeGroup(list, edges, change.tier);
+            list.trimToSize();
+            fragments.put(LINE_LAYER, group.getKey(), group.getKey(), list, edges);
+
+            if (members != null) {
+                List<Object> lines = new ArrayList<>(edges.size());
+                for (SceneSnapshot.Edge edge : edges) {
+                    lines.add(edge.key);
+                }
+                members.put(group.getKey(), lines);
+            }
+        }
+        return new ScenePatch(fragments, members);
+    }
+
+    /**
+     * Returns the key of the group of a line connection: the square of {@link #LINE_GROUP_SIZE}
+     * world units the centre of its bounds lies in.
+     *
+     * @param bounds the bounds of the line as {minX, minY, maxX, maxY}
+     * @return the key of the group
+     */
+    public static long lineGroupOf(double[] bounds) {
+        long column = (long) Math.floor((bounds[0] + bounds[2]) / 2 / LINE_GROUP_SIZE);
+        long row = (long) Math.floor((bounds[1] + bounds[3]) / 2 / LINE_GROUP_SIZE);
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Groups line connections by the {@link #lineGroupOf(double[]) group} they lie in.
+     *
+     * @param edges the line connections
+     * @return the lines of every group, in the order the groups were first used
+     */
+    private static Map<Long, List<SceneSnapshot.Edge>> groupEdges(List<SceneSnapshot.Edge> edges) {
+        Map<Long, List<SceneSnapshot.Edge>> groups = new LinkedHashMap<>();
+        for (SceneSnapshot.Edge edge : edges) {
+            long key = lineGroupOf(getEdgeBounds(edge.points, edge.text));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(edge);
+        }
+        return groups;
+    }
+
+    /**
+     * Records a group of line connections as one element, drawn with one path per style.
+     *
+     * @param list  the {@link DisplayList} the drawing is recorded into
+     * @param edges the line connections of the group
+     * @param tier  the level of detail to draw with
+     */
+    private void recordEdgeGroup(DisplayList list, List<SceneSnapshot.Edge> edges, LevelOfDetail.Tier tier) {
+        double[] union = null;
+        for (SceneSnapshot.Edge edge : edges) {
+            double[] bounds = getEdgeBounds(edge.points, edge.text);
+            if (union == null) {
+                union = bounds;
+            } else {
+                union[0] = Math.min(union[0], bounds[0]);
+                union[1] = Math.min(union[1], bounds[1]);
+                union[2] = Math.max(union[2], bounds[2]);
+                union[3] = Math.max(union[3], bounds[3]);
+            }
+        }
+        list.beginElement(null, union[0], union[1], union[2], union[3]);
+        recordEdges(list, edges, false, tier);
+        list.endElement();
+    }
+
+    /**
+     * Records a class or interface box as one element of a display list.
+     *
+     * <p>Unless it is highlighted, the element is keyed by the diagram the box was copied from,
+     * so replaying it copies the image kept by an element image cache instead of drawing it
+     * shape by shape.</p>
+     *
+     * @param list        the {@link DisplayList} the drawing is recorded into
+     * @param box         the box to draw
+     * @param highlighted whether the box is drawn with the selection highlight
+     * @param tier        the level of detail to draw with
+     */
+    public void recordBox(DisplayList list, SceneSnapshot.Box box, boolean highlighted, LevelOfDetail.Tier tier) {
+        double padding = 5; // Covers the border and the connection points
+
+        // The selection highlight is only drawn on the overlay, so it is not worth caching
+        list.beginElement(highlighted ? null : box.key, box.x - padding, box.y - padding,
+                box.x + box.width + padding, box.y + box.height + padding);
+        recordBoxShapes(list, box, highlighted, tier);
+        list.endElement();
+    }
+
+    /**
+     * Records the shapes of a class or interface box.
+     *
+     * @param list        the {@link DisplayList} the drawing is recorded into
+     * @param box         the box to draw
+     * @param highlighted whether the box is drawn with the selection highlight
+     * @param tier        the level of detail to draw with
+     */
+    public void recordBoxShapes(DisplayList list, SceneSnapshot.Box box, boolean highlighted, LevelOfDetail.Tier tier) {
+        if (box.isInterface) {
+            recordInterfaceShapes(list, box, highlighted, tier);
+        } else {
+            recordClassShapes(list, box, highlighted, tier);
+        }
+    }
+
+    /**
+     * Records a class box with a rectangle containing the class name, attributes and
+     * operations, and the connection points.
+     *
+     * @param list       the {@link DisplayList} the drawing is recorded into
+     * @param box        the class box to draw
+     * @param isSelected whether the box is drawn with the selection highlight
+     * @param detail     the level of detail to draw with
+     */
+    private void recordClassShapes(DisplayList list, SceneSnapshot.Box box, boolean isSelected, LevelOfDetail.Tier detail) {
+        double x = box.x;
+        double y = box.y;
+        double width = box.width;
+        double height = box.height;
+
+        double rowHeight = 30; // Row height for each section
+        double attributeHeight = box.attributeHeight; // At least one row for attributes
+
+        // Draw the class rectangle with a light blue fill and blue border if selected
+        list.setFill(isSelected ? Color.LIGHTBLUE : Color.WHITE); // Light blue for selected
+        list.fillRect(x, y, width, height);
+        list.setStroke(isSelected ? Color.BLUE : Color.BLACK); // Blue border for selected
+        list.setLineWidth(isSelected ? 3 : 2); // Thicker border for selected
+        list.strokeRect(x, y, width, height);
+
+        // Zoomed far out, a plain rectangle is all that can be recognized
+        if (detail == LevelOfDetail.Tier.OUTLINE) {
+            return;
+        }
+
+        // Draw separators, unless only the box and the name are drawn
+        if (detail == LevelOfDetail.Tier.FULL) {
+            list.strokeLine(x, y + rowHeight, x + width, y + rowHeight); // Separator below class name
+            list.strokeLine(x, y + rowHeight + attributeHeight, x + width, y + rowHeight + attributeHeight); // Separator below attributes
+        }
+
+        // Draw class name
+        list.setFill(Color.BLACK);
+        list.setFont(Font.font("Arial", 14));
+
+        // Look up the size of the class name, measured only when it changes
+        double[] textSize = textMeasureCache.measure(box.name, list.getFont());
+        double textWidth = textSize[0]; // Text width
+        double textHeight = textSize[1]; // Text height
+
+        double textX = x + (width - textWidth) / 2; // Center the text horizontally
+        double textY = y + rowHeight / 2 + textHeight / 4; // Center the text vertically
+
+        list.fillText(box.name, textX, textY);
+
+        // Attributes, operations and connection points are unreadable when zoomed out
+        if (detail == LevelOfDetail.Tier.NAMES_ONLY) {
+            return;
+        }
+
+        // Draw attributes (leave space if empty)
+        list.setFont(Font.font("Arial", 12));
+        if (box.attributes.isEmpty()) {
+            list.fillText(" ", x + 10, y + rowHeight + rowHeight / 2 + 5); // Placeholder for empty attributes
+        } else {
+            for (int i = 0; i < box.attributes.size(); i++) {
+                list.fillText(
+                        box.attributes.get(i),
+                        x + 10,
+                        y + rowHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
+                );
+            }
+        }
+
+        // Draw operations (leave space if empty)
+        if (box.operations.isEmpty()) {
+            list.fillText(" ", x + 10, y + rowHeight + attributeHeight + rowHeight / 2 + 5); // Placeholder for empty operations
+        } else {
+            for (int i = 0; i < box.operations.size(); i++) {
+                list.fillText(
+                        box.operations.get(i),
+                        x + 10,
+                        y + rowHeight + attributeHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
+                );
+            }
+        }
+
+        recordConnectionPoints(list, box);
+    }
+
+    /**
+     * Records an interface box with a rectangle containing the {@code <<interface>>} label,
+     * the name and the operations, and the connection points.
+     *
+     * @param list       the {@link DisplayList} the drawing is recorded into
+     * @param box        the interface box to draw
+     * @param isSelected whether the box is drawn with the selection highlight
+     * @param detail     the level of detail to draw with
+     */
+    private void recordInterfaceShapes(DisplayList list, SceneSnapshot.Box box, boolean isSelected, LevelOfDetail.Tier detail) {
+        double x = box.x;
+        double y = box.y;
+        double width = box.width;
+        double height = box.height;
+
+        double rowHeight = 30; // Row height for each section
+        double baseHeight = rowHeight * 2; // Height for <<interface>> and name rows
+
+        // Draw the interface rectangle with a light green fill and green border if selected
+        list.setFill(isSelected ? Color.LIGHTBLUE : Color.WHITE); // Light blue for selected
+        list.fillRect(x, y, width, height);
+        list.setStroke(isSelected ? Color.BLUE : Color.BLACK); // Blue border for selected
+        list.setLineWidth(isSelected ? 3 : 2); // Thicker border for selected
+        list.strokeRect(x, y, width, height);
+
+        // Zoomed far out, a plain rectangle is all that can be recognized
+        if (detail == LevelOfDetail.Tier.OUTLINE) {
+            return;
+        }
+
+        // Draw <<interface>> label
+        list.setFill(Color.BLACK);
+        list.setFont(Font.font("Arial", 12));
+        String interfaceLabel = "<<interface>>";
+        double labelWidth = textMeasureCache.getWidth(interfaceLabel, list.getFont());
+        double labelX = x + (width - labelWidth) / 2; // Center horizontally
+        list.fillText(interfaceLabel, labelX, y + 15);
+
+        // Draw interface name
+        list.setFont(Font.font("Arial", 14));
+        double nameWidth = textMeasureCache.getWidth(box.name, list.getFont());
+        double nameX = x + (width - nameWidth) / 2; // Center horizontally
+        list.fillText(box.name, nameX, y + 40);
+
+        // Operations and connection points are unreadable when zoomed out
+        if (detail == LevelOfDetail.Tier.NAMES_ONLY) {
+            return;
+        }
+
+        // Draw separator line below <<interface>> and name
+        list.strokeLine(x, y + baseHeight, x + width, y + baseHeight);
+
+        // Draw operations (leave space if empty)
+        list.setFont(Font.font("Arial", 12));
+        if (box.operations.isEmpty()) {
+            list.fillText(" ", x + 10, y + baseHeight + rowHeight / 2 + 5); // Placeholder for empty operations
+        } else {
+            for (int i = 0; i < box.operations.size(); i++) {
+                list.fillText(
+                        box.operations.get(i),
+                        x + 10,
+                        y + baseHeight + (i + 1) * rowHeight - 10 // Adjusted for spacing
+                );
+            }
+        }
+
+        recordConnectionPoints(list, box);
+    }
+
+    /**
+     * Records the connection points of a box as small red circles.
+     *
+     * @param list the {@link DisplayList} the drawing is recorded into
+     * @param box  the box whose connection points are drawn
+     */
+    private void recordConnectionPoints(DisplayList list, SceneSnapshot.Box box) {
+        list.setFill(Color.RED); // Red for connection points
+        double radius = 3.0; // Smaller radius for connection points
+
+        for (double[] point : box.connectionPoints) {
+            list.fillOval(point[0] - radius, point[1] - radius, 2 * radius, 2 * radius);
+        }
+    }
+
+    /**
+     * Records several line connections sharing the same selection state, including their control
+     * points, end shapes and labels.
+     *
+     * <p>Shapes of the same style are collected into a single path and painted with one call:
+     * all segments, all control points, the fill of all filled diamonds and the outlines of all
+     * end shapes. Only the labels are drawn one by one.</p>
+     *
+     * @param list       the {@link DisplayList} the drawing is recorded into
+     * @param edges      the line connections to draw
+     * @param isSelected whether the lines are drawn with the selection highlight
+     * @param detail     the level of detail to draw with
+     */
+    public void recordEdges(DisplayList list, List<SceneSnapshot.Edge> edges, boolean isSelected, LevelOfDetail.Tier detail) {
+        if (edges.isEmpty()) {
+            return;
+        }
+        Color color = isSelected ? Color.web("#5DADE2") : Color.BLACK;
+
+        // Zoomed far out, draw single straight segments without control points, end shapes or labels
+        if (detail == LevelOfDetail.Tier.OUTLINE) {
+            list.beginPath();
+            for (SceneSnapshot.Edge edge : edges) {
+                double[] start = edge.points.get(0);
+                double[] end = edge.points.get(edge.points.size() - 1);
+                list.moveTo(start[0], start[1]);
+                list.lineTo(end[0], end[1]);
+            }
+            list.setStroke(color);
+            list.setLineWidth(isSelected ? 2 : 1);
+            list.stroke();
+            return;
+        }
+
+        // All segments of all lines as one path
+        list.beginPath();
+        for (SceneSnapshot.Edge edge : edges) {
+            List<double[]> points = edge.points; // Start point, control points and end point
+            list.moveTo(points.get(0)[0], points.get(0)[1]);
+
+            for (int i = 0; i < points.size() - 1; i++) {
+                double[] start = points.get(i);
+                double[] end = points.get(i + 1);
+
+                // Stop the last segment before a shape if necessary
+                if (i == points.size() - 2) { // Last segment
+                    double[] adjustedEnd = end;
+                    if (edge.kind == SceneSnapshot.LineKind.INHERITANCE) {
+                        adjustedEnd = calculateTriangleBaseIntersection(end, start, SHAPE_SIZE); // Adjust for hollow triangle
+                    } else if (hasDiamond(edge)) {
+                        adjustedEnd = calculateDiamondBaseIntersection(end, start, SHAPE_SIZE); // Adjust for diamond
+                    }
+                    list.lineTo(adjustedEnd[0], adjustedEnd[1]);
+                } else {
+                    list.lineTo(end[0], end[1]);
+                }
+            }
+        }
+        list.setStroke(color);
+        list.setLineWidth(isSelected ? 4 : 2);
+        list.stroke();
+
+        // Control points of all lines as one path, intermediate points only
+        list.beginPath();
+        boolean hasControlPoints = false;
+        for (SceneSnapshot.Edge edge : edges) {
+            for (int i = 1; i < edge.points.size() - 1; i++) {
+                double[] controlPoint = edge.points.get(i);
+                list.moveTo(controlPoint[0] + 4, controlPoint[1]);
+                list.arc(controlPoint[0], controlPoint[1], 4, 4, 0, 360); // Control point circle
+                hasControlPoints = true;
+            }
+        }
+        if (hasControlPoints) {
+            list.setFill(Color.BLACK);
+            list.fill();
+        }
+
+        // Fill of all filled diamonds as one path
+        list.beginPath();
+        boolean hasFilledShapes = false;
+        for (SceneSnapshot.Edge edge : edges) {
+            if (edge.kind == SceneSnapshot.LineKind.COMPOSITION) {
+                double[] start = edge.points.get(edge.points.size() - 2); // Second-to-last point
+                double[] end = edge.points.get(edge.points.size() - 1);   // Last point
+                appendPolygon(list, getDiamondPoints(end[0], end[1], start[0], start[1]));
+                hasFilledShapes = true;
+            }
+        }
+        if (hasFilledShapes) {
+            list.setFill(color);
+            list.fill();
+        }
+
+        // Outlines of all end shapes as one path
+        list.beginPath();
+        boolean hasShapes = false;
+        for (SceneSnapshot.Edge edge : edges) {
+            double[] start = edge.points.get(edge.points.size() - 2); // Second-to-last point
+            double[] end = edge.points.get(edge.points.size() - 1);   // Last point
+            if (hasDiamond(edge)) {
+                appendPolygon(list, getDiamondPoints(end[0], end[1], start[0], start[1])); // Diamond
+                hasShapes = true;
+            } else if (edge.kind == SceneSnapshot.LineKind.INHERITANCE) {
+                appendPolygon(list, getTrianglePoints(end[0], end[1], start[0], start[1])); // Hollow triangle
+                hasShapes = true;
+            }
+        }
+        if (hasShapes) {
+            list.setStroke(color);
+            list.setLineWidth(isSelected ? 3 : 2); // Thicker border if selected
+            list.stroke();
+        }
+
+        // Labels are drawn one by one, keeping the text black for simplicity
+        list.setFill(Color.BLACK);
+        list.setFont(Font.font("Arial", 12));
+        for (SceneSnapshot.Edge edge : edges) {
+            if (edge.text != null && !edge.text.isEmpty()) {
+                double[] start = edge.points.get(edge.points.size() - 2);
+                double[] end = edge.points.get(edge.points.size() - 1);
+                double midX = (start[0] + end[0]) / 2;
+                double midY = (start[1] + end[1]) / 2;
+                list.fillText(edge.text, midX - edge.text.length() * 3, midY - 5); // Adjust position based on text length
+            }
+        }
+    }
+
+    /**
+     * Checks whether a line ends in a diamond.
+     *
+     * @param edge the line connection
+     * @return {@code true} for aggregations and compositions
+     */
+    private static boolean hasDiamond(SceneSnapshot.Edge edge) {
+        return edge.kind == SceneSnapshot.LineKind.AGGREGATION || edge.kind == SceneSnapshot.LineKind.COMPOSITION;
+    }
+
+    /**
+     * Calculates the area covered by a line connection.
+     *
+     * <p>The bounds include all segments, the diamond or triangle at the end of the line
+     * and the optional label drawn at the middle of the last segment.</p>
+     *
+     * @param points the start point, control points and end point of the line
+     * @param text   the label of the line, or {@code null}
+     * @return the bounds as {minX, minY, maxX, maxY}
+     */
+    public static double[] getEdgeBounds(List<double[]> points, String text) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (double[] point : points) {
+            minX = Math.min(minX, point[0]);
+            minY = Math.min(minY, point[1]);
+            maxX = Math.max(maxX, point[0]);
+            maxY = Math.max(maxY, point[1]);
+        }
+
+        // End shapes reach up to twice their size away from the end point
+        double padding = 2 * SHAPE_SIZE + 4;
+        minX -= padding;
+        minY -= padding;
+        maxX += padding;
+        maxY += padding;
+
+        // The label is drawn left of the middle of the last segment
+        if (text != null && !text.isEmpty()) {
+            double[] start = points.get(points.size() - 2);
+            double[] end = points.get(points.size() - 1);
+            double midX = (start[0] + end[0]) / 2;
+            double midY = (start[1] + end[1]) / 2;
+            double textX = midX - text.length() * 3;
+            minX = Math.min(minX, textX - 4);
+            maxX = Math.max(maxX, textX + text.length() * 8 + 4);
+            minY = Math.min(minY, midY - 25);
+        }
+
+        return new double[]{minX, minY, maxX, maxY};
+    }
+
+    /**
+     * Adds a closed polygon to the current path of a {@link DisplayList}.
+     *
+     * @param list   the {@link DisplayList} whose path is extended
+     * @param points the corners as {xPoints, yPoints}
+     */
+    static void appendPolygon(DisplayList list, double[][] points) {
+        list.moveTo(points[0][0], points[1][0]);
+        for (int i = 1; i < points[0].length; i++) {
+            list.lineTo(points[0][i], points[1][i]);
+        }
+        list.closePath();
+    }
+
+    /**
+     * Calculates the intersection point of the base of a triangle with a given line segment.
+     *
+     * @param end          the endpoint of the line segment as an array [x, y].
+     * @param start        the starting point of the line segment as an array [x, y].
+     * @param triangleSize the size of the triangle base.
+     * @return an array [x, y] representing the intersection point.
+     */
+    public static double[] calculateTriangleBaseIntersection(double[] end, double[] start, double triangleSize) {
+        double angle = Math.atan2(end[1] - start[1], end[0] - start[0]);
+        double intersectionX = end[0] - triangleSize * Math.cos(angle);
+        double intersectionY = end[1] - triangleSize * Math.sin(angle);
+        return new double[]{intersectionX, intersectionY};
+    }
+
+    /**
+     * Calculates the intersection point of the base of a diamond shape with a given line segment.
+     *
+     * @param end         the endpoint of the line segment as an array [x, y].
+     * @param start       the starting point of the line segment as an array [x, y].
+     * @param diamondSize the size of the diamond base.
+     * @return an array [x, y] representing the intersection point.
+     */
+    public static double[] calculateDiamondBaseIntersection(double[] end, double[] start, double diamondSize) {
+        double angle = Math.atan2(end[1] - start[1], end[0] - start[0]);
+        double intersectionX = end[0] - 2 * diamondSize * Math.cos(angle);
+        double intersectionY = end[1] - 2 * diamondSize * Math.sin(angle);
+        return new double[]{intersectionX, intersectionY};
+    }
+
+    /**
+     * Calculates the corners of the hollow triangle at the end of an inheritance line.
+     *
+     * @param endX   the x-coordinate of the triangle's tip.
+     * @param endY   the y-coordinate of the triangle's tip.
+     * @param startX the x-coordinate of the line's starting point.
+     * @param startY the y-coordinate of the line's starting point.
+     * @return the corners as {xPoints, yPoints}.
+     */
+    public static double[][] getTrianglePoints(double endX, double endY, double startX, double startY) {
+        // Calculate the angle of the line
+        double angle = Math.atan2(endY - startY, endX - startX);
+
+        // Calculate the three points of the triangle
+        double[] xPoints = new double[3];
+        double[] yPoints = new double[3];
+        xPoints[0] = endX; // Tip of the triangle
+        yPoints[0] = endY;
+        xPoints[1] = endX - SHAPE_SIZE * Math.cos(angle - Math.PI / 6); // Left base
+        yPoints[1] = endY - SHAPE_SIZE * Math.sin(angle - Math.PI / 6);
+        xPoints[2] = endX - SHAPE_SIZE * Math.cos(angle + Math.PI / 6); // Right base
+        yPoints[2] = endY - SHAPE_SIZE * Math.sin(angle + Math.PI / 6);
+        return new double[][]{xPoints, yPoints};
+    }
+
+    /**
+     * Calculates the corners of the diamond at the end of an aggregation or composition line.
+     *
+     * @param endX   the x-coordinate of the diamond's tip.
+     * @param endY   the y-coordinate of the diamond's tip.
+     * @param startX the x-coordinate of the line's starting point.
+     * @param startY the y-coordinate of the line's starting point.
+     * @return the corners as {xPoints, yPoints}.
+     */
+    public static double[][] getDiamondPoints(double endX, double endY, double startX, double startY) {
+        // Calculate the angle of the line
+        double angle = Math.atan2(endY - startY, endX - startX);
+
+        // Calculate the four points of the diamond
+        double[] xPoints = new double[4];
+        double[] yPoints = new double[4];
+        xPoints[0] = endX; // Tip of the diamond
+        yPoints[0] = endY;
+        xPoints[1] = endX - SHAPE_SIZE * Math.cos(angle - Math.PI / 4); // Top-left corner
+        yPoints[1] = endY - SHAPE_SIZE * Math.sin(angle - Math.PI / 4);
+        xPoints[2] = endX - 2 * SHAPE_SIZE * Math.cos(angle); // Bottom corner
+        yPoints[2] = endY - 2 * SHAPE_SIZE * Math.sin(angle);
+        xPoints[3] = endX - SHAPE_SIZE * Math.cos(angle + Math.PI / 4); // Top-right corner
+        yPoints[3] = endY - SHAPE_SIZE * Math.sin(angle + Math.PI / 4);
+        return new double[][]{xPoints, yPoints};
+    }
+}
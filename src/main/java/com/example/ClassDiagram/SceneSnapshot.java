@@ -0,0 +1,154 @@
+package com.example.ClassDiagram;
+
+import com.example.Rendering.LevelOfDetail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of everything the class diagram canvas shows, taken on the JavaFX Application
+ * Thread so that a worker thread can record it into a display list.
+ *
+ * <p>The diagrams and line connections of the editor are mutated by event handlers at any time.
+ * A snapshot copies the few values drawing needs, such as positions, sizes, texts and the points
+ * of every line, so that the geometry and text layout can be computed while the user keeps
+ * editing. Taking a snapshot only copies values; everything expensive happens in the
+ * {@link SceneRecorder}.</p>
+ */
+public final class SceneSnapshot {
+
+    /** Kind of a line connection, deciding the shape drawn at its end. */
+    public enum LineKind {
+        /** Plain line without an end shape. */
+        ASSOCIATION,
+        /** Line ending in a hollow diamond. */
+        AGGREGATION,
+        /** Line ending in a filled diamond. */
+        COMPOSITION,
+        /** Line ending in a hollow triangle. */
+        INHERITANCE
+    }
+
+    /** Copy of a class or interface diagram. */
+    public static final class Box {
+
+        /** The diagram this box was copied from, used as key of its cached image. */
+        final Object key;
+
+        /** Position of the diagram in the drawing order. */
+        final long order;
+
+        /** Flag indicating whether the box is an interface rather than a class. */
+        final boolean isInterface;
+
+        /** Name of the class or interface. */
+        final String name;
+
+        /** Attributes of the class; always empty for interfaces. */
+        final List<String> attributes;
+
+        /** Operations of the class or interface. */
+        final List<String> operations;
+
+        /** Position and size of the box. */
+        final double x, y, width, height;
+
+        /** Height of the attribute section. */
+        final double attributeHeight;
+
+        /** Connection points as {x, y} pairs. */
+        final double[][] connectionPoints;
+
+        /**
+         * Copies a diagram. Its size must be up to date.
+         *
+         * @param diagram the class or interface diagram to copy
+         */
+        Box(Controller.ClassDiagram diagram) {
+            this.key = diagram;
+            this.order = diagram.zOrder;
+            this.isInterface = diagram instanceof Controller.InterfaceDiagram;
+            this.name = isInterface ? ((Controller.InterfaceDiagram) diagram).interfaceName : diagram.className;
+            this.attributes = Collections.unmodifiableList(Member.textsOf(diagram.attributes));
+            this.operations = Collections.unmodifiableList(Member.textsOf(diagram.operations));
+            this.x = diagram.x;
+            this.y = diagram.y;
+            this.width = diagram.width;
+            this.height = diagram.height;
+            this.attributeHeight = diagram.attributeHeight;
+
+            double[][] points = diagram.getConnectionPoints();
+            this.connectionPoints = new double[points.length][];
+            for (int i = 0; i < points.length; i++) {
+                connectionPoints[i] = points[i].clone();
+            }
+        }
+    }
+
+    /** Copy of a line connection. */
+    public static final class Edge {
+
+        /** The line connection this edge was copied from. */
+        final Object key;
+
+        /** Start point, control points and end point, as {x, y} pairs. */
+        final List<double[]> points;
+
+        /** Kind of the line. */
+        final LineKind kind;
+
+        /** Label of the line, or {@code null}. */
+        final String text;
+
+        /**
+         * Copies the points of a line connection.
+         *
+         * @param key    the line connection
+         * @param points all points of the line, from start to end
+         * @param kind   the kind of the line
+         * @param text   the label of the line, or {@code null}
+         */
+        Edge(Object key, List<double[]> points, LineKind kind, String text) {
+            this.key = key;
+            List<double[]> copy = new ArrayList<>(points.size());
+            for (double[] point : points) {
+                copy.add(point.clone());
+            }
+            this.points = Collections.unmodifiableList(copy);
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    /** Diagrams to draw, in drawing order. */
+    final List<Box> boxes;
+
+    /** Line connections to draw, in drawing order. */
+    final List<Edge> edges;
+
+    /** Level of detail to draw with. */
+    final LevelOfDetail.Tier tier;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param boxes the diagrams to draw
+     * @param edges the line connections to draw
+     * @param tier  the level of detail to draw with
+     */
+    SceneSnapshot(List<Box> boxes, List<Edge> edges, LevelOfDetail.Tier tier) {
+        this.boxes = Collections.unmodifiableList(boxes);
+        this.edges = Collections.unmodifiableList(edges);
+        this.tier = tier;
+    }
+
+    /**
+     * Returns the number of diagrams and line connections in the snapshot.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return boxes.size() + edges.size();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.Rendering;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Grid hash over the connection points of the elements of a diagram, used to snap the ends of
+ * a line being drawn without asking every element for its connection points.
+ *
+ * <p>The world is divided into square cells of {@link #CELL_SIZE} world units, and every
+ * connection point is stored in the cell containing it. As long as the snapping tolerance is
+ * smaller than a cell, the square around the mouse touches at most four cells, so finding the
+ * connection point under the mouse takes constant time, whatever the number of elements.</p>
+ *
+ * <p>Owners are compared by identity. Their connection points are registered again as a whole
+ * whenever the owner is moved or resized.</p>
+ *
+ * @param <T> the type of the elements owning the connection points
+ */
+public class AnchorGrid<T> {
+
+    /** Width and height of a cell in world units. */
+    public static final double CELL_SIZE = 32;
+
+    /**
+     * A connection point with the element it belongs to.
+     *
+     * @param <T> the type of the owning element
+     */
+    public static final class Anchor<T> {
+
+        /** The element owning the connection point. */
+        public final T owner;
+
+        /** Index of the connection point among the connection points of its owner. */
+        public final int index;
+
+        /** Position of the connection point in world coordinates. */
+        public final double x, y;
+
+        Anchor(T owner, int index, double x, double y) {
+            this.owner = owner;
+            this.index = index;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /** Connection points stored in every non-empty cell. */
+    private final Map<Long, List<Anchor<T>>> cells = new HashMap<>();
+
+    /** Connection points of every owner, for updates and removals. */
+    private final Map<T, List<Anchor<T>>> anchorsOf = new IdentityHashMap<>();
+
+    /**
+     * Registers the connection points of an element, replacing its previous ones if it is
+     * already registered.
+     *
+     * @param owner  the element
+     * @param points its connection points as {x, y} pairs, in the order of their indices
+     */
+    public void put(T owner, double[][] points) {
+        remove(owner);
+        List<Anchor<T>> anchors = new ArrayList<>(points.length);
+        for (int i = 0; i < points.length; i++) {
+            Anchor<T> anchor = new Anchor<>(owner, i, points[i][0], points[i][1]);
+            anchors.add(anchor);
+            cells.computeIfAbsent(cellKey(cell(anchor.x), cell(anchor.y)), k -> new ArrayList<>(4)).add(anchor);
+        }
+        anchorsOf.put(owner, anchors);
+    }
+
+    /**
+     * Removes the connection points of an element.
+     *
+     * @param owner the element
+     * @return {@code true} if the element was registered
+     */
+    public boolean remove(T owner) {
+        List<Anchor<T>> anchors = anchorsOf.remove(owner);
+        if (anchors == null) {
+            return false;
+        }
+        for (Anchor<T> anchor : anchors) {
+            long key = cellKey(cell(anchor.x), cell(anchor.y));
+            List<Anchor<T>> stored = cells.get(key);
+            stored.remove(anchor);
+            if (stored.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes every element.
+     */
+    public void clear() {
+        cells.clear();
+        anchorsOf.clear();
+    }
+
+    /**
+     * Returns the number of registered elements.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return anchorsOf.size();
+    }
+
+    /**
+     * Finds the connection point closest to a point among those lying within the tolerance
+     * horizontally and vertically.
+     *
+     * @param x         the x-coordinate of the point
+     * @param y         the y-coordinate of the point
+     * @param tolerance the largest horizontal and vertical distance of a connection point
+     * @param filter    accepts the owners whose connection points may be returned
+     * @return the closest connection point, or {@code null} if none is near enough
+     */
+    public Anchor<T> find(double x, double y, double tolerance, Predicate<? super T> filter) {
+        Anchor<T> closest = null;
+        double closestDistance = Double.MAX_VALUE;
+
+        long minColumn = cell(x - tolerance), maxColumn = cell(x + tolerance);
+        long minRow = cell(y - tolerance), maxRow = cell(y + tolerance);
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                List<Anchor<T>> anchors = cells.get(cellKey(column, row));
+                if (anchors == null) {
+                    continue;
+                }
+                for (Anchor<T> anchor : anchors) {
+                    double dx = anchor.x - x;
+                    double dy = anchor.y - y;
+                    if (Math.abs(dx) >= tolerance || Math.abs(dy) >= tolerance || !filter.test(anchor.owner)) {
+                        continue;
+                    }
+                    double distance = dx * dx + dy * dy;
+                    if (distance < closestDistance) {
+                        closest = anchor;
+                        closestDistance = distance;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Returns the column or row of the cell containing a coordinate.
+     */
+    private static long cell(double coordinate) {
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    /**
+     * Packs the column and row of a cell into one key.
+     */
+    private static long cellKey(long column, long row) {
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
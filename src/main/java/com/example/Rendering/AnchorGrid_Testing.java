@@ -0,0 +1,122 @@
+package com.example.Rendering;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnchorGrid_Testing {
+    private static final double TOLERANCE = 10;
+
+    private AnchorGrid<String> grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new AnchorGrid<>();
+    }
+
+    /**
+     * Returns the corners of a rectangle, in the order top-left, top-right, bottom-right, bottom-left.
+     */
+    private static double[][] corners(double x, double y, double width, double height) {
+        return new double[][]{{x, y}, {x + width, y}, {x + width, y + height}, {x, y + height}};
+    }
+
+    @Test
+    void testFindSnapsToTheNearestAnchor() {
+        grid.put("a", corners(0, 0, 100, 50));
+        grid.put("b", corners(104, 0, 100, 50));
+
+        // Between the top-right corner of a and the top-left corner of b
+        AnchorGrid.Anchor<String> anchor = grid.find(101, 1, TOLERANCE, owner -> true);
+        assertEquals("a", anchor.owner);
+        assertEquals(1, anchor.index);
+        assertEquals(100, anchor.x);
+        assertEquals(0, anchor.y);
+
+        anchor = grid.find(103, 1, TOLERANCE, owner -> true);
+        assertEquals("b", anchor.owner);
+        assertEquals(0, anchor.index);
+    }
+
+    @Test
+    void testToleranceIsExclusiveAndCrossesCells() {
+        // The anchor lies right before a cell boundary, the point right after it
+        grid.put("a", new double[][]{{AnchorGrid.CELL_SIZE - 0.5, AnchorGrid.CELL_SIZE - 0.5}});
+
+        assertNotNull(grid.find(AnchorGrid.CELL_SIZE + 5, AnchorGrid.CELL_SIZE + 5, TOLERANCE, owner -> true));
+        assertNotNull(grid.find(AnchorGrid.CELL_SIZE - 0.5 + 9.9, AnchorGrid.CELL_SIZE - 0.5, TOLERANCE, owner -> true));
+        assertNull(grid.find(AnchorGrid.CELL_SIZE - 0.5 + TOLERANCE, AnchorGrid.CELL_SIZE - 0.5, TOLERANCE, owner -> true),
+                "An anchor exactly at the tolerance is not near enough.");
+    }
+
+    @Test
+    void testFilterSkipsOwners() {
+        grid.put("a", corners(0, 0, 100, 50));
+        grid.put("b", corners(2, 2, 100, 50));
+
+        assertEquals("a", grid.find(0, 0, TOLERANCE, owner -> true).owner);
+        assertEquals("b", grid.find(0, 0, TOLERANCE, owner -> !owner.equals("a")).owner);
+        assertNull(grid.find(0, 0, TOLERANCE, owner -> false));
+    }
+
+    @Test
+    void testFindMatchesBruteForce() {
+        Random random = new Random(3);
+        double[][][] points = new double[300][][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = corners(random.nextDouble() * 2000, random.nextDouble() * 2000, 20 + random.nextDouble() * 200, 20 + random.nextDouble() * 100);
+            grid.put(String.valueOf(i), points[i]);
+        }
+
+        for (int q = 0; q < 5000; q++) {
+            double x = random.nextDouble() * 2200;
+            double y = random.nextDouble() * 2200;
+            double expected = Double.MAX_VALUE;
+            for (double[][] corners : points) {
+                for (double[] corner : corners) {
+                    double dx = corner[0] - x, dy = corner[1] - y;
+                    if (Math.abs(dx) < TOLERANCE && Math.abs(dy) < TOLERANCE) {
+                        expected = Math.min(expected, dx * dx + dy * dy);
+                    }
+                }
+            }
+
+            AnchorGrid.Anchor<String> anchor = grid.find(x, y, TOLERANCE, owner -> true);
+            if (expected == Double.MAX_VALUE) {
+                assertNull(anchor);
+            } else {
+                assertNotNull(anchor);
+                assertEquals(expected, (anchor.x - x) * (anchor.x - x) + (anchor.y - y) * (anchor.y - y), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testPutAgainReindexesAMovedElement() {
+        grid.put("a", corners(0, 0, 100, 50));
+        grid.put("a", corners(500, 500, 100, 50));
+
+        assertEquals(1, grid.size());
+        assertNull(grid.find(0, 0, TOLERANCE, owner -> true), "The old anchors must be forgotten.");
+        AnchorGrid.Anchor<String> anchor = grid.find(601, 549, TOLERANCE, owner -> true);
+        assertEquals("a", anchor.owner);
+        assertEquals(2, anchor.index);
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        grid.put("a", corners(0, 0, 100, 50));
+        grid.put("b", corners(0, 0, 100, 50));
+
+        assertTrue(grid.remove("a"));
+        assertFalse(grid.remove("a"), "An element is removed only once.");
+        assertEquals("b", grid.find(0, 0, TOLERANCE, owner -> true).owner);
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertNull(grid.find(0, 0, TOLERANCE, owner -> true));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.Rendering;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Records display lists on a worker thread, so that the geometry and text layout of large
+ * models do not stall input handling on the JavaFX Application Thread.
+ *
+ * <p>The editor takes an immutable snapshot of its model on the FX thread and {@link #submit(Object)}s
+ * it. A single daemon thread records the snapshot, e.g. into a new {@link DisplayList} or into the
+ * fragments of a {@link RetainedDisplayList.Patch}, and the result is handed back on the FX thread;
+ * there, only the final draw calls are issued when it is replayed. Snapshots submitted while the
+ * worker is busy replace each other, so at most one recording is queued, and results made obsolete
+ * by a later submission are dropped. A snapshot must therefore contain everything that changed
+ * since the last result was delivered.</p>
+ *
+ * @param <S> the type of the snapshots
+ * @param <R> the type of the recordings
+ */
+public class BackgroundRecorder<S, R> {
+
+    /** Records a snapshot. Called on the worker thread. */
+    public interface Recorder<S, R> {
+
+        /**
+         * Records a snapshot.
+         *
+         * @param snapshot the immutable snapshot to record
+         * @return the recording
+         */
+        R record(S snapshot);
+    }
+
+    /** A submitted snapshot and the number of its submission. */
+    private static final class Job<S> {
+
+        /** The snapshot to record. */
+        final S snapshot;
+
+        /** Number of the submission, used to drop obsolete results. */
+        final long generation;
+
+        Job(S snapshot, long generation) {
+            this.snapshot = snapshot;
+            this.generation = generation;
+        }
+    }
+
+    /** Records the snapshots on the worker thread. */
+    private final Recorder<S, R> recorder;
+
+    /** Receives the recordings on the FX thread. */
+    private final Consumer<R> onRecorded;
+
+    /** Worker thread, a daemon so that it never keeps the application alive. */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "display-list-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Latest snapshot not yet taken by the worker. */
+    private final AtomicReference<Job<S>> next = new AtomicReference<>();
+
+    /** Flag indicating whether the worker is draining submitted snapshots. */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** Number of the latest submission; only accessed on the FX thread. */
+    private long submitted = 0;
+
+    /** Number of the submission whose result was delivered last; only accessed on the FX thread. */
+    private long delivered = 0;
+
+    /**
+     * Creates a background recorder.
+     *
+     * @param recorder   records a snapshot on the worker thread
+     * @param onRecorded receives every up-to-date recording on the FX thread
+     */
+    public BackgroundRecorder(Recorder<S, R> recorder, Consumer<R> onRecorded) {
+        this.recorder = recorder;
+        this.onRecorded = onRecorded;
+    }
+
+    /**
+     * Submits a snapshot to be recorded. Must be called on the FX thread.
+     *
+     * @param snapshot the immutable snapshot
+     */
+    public void submit(S snapshot) {
+        submitted++;
+        next.set(new Job<>(snapshot, submitted));
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Drops the results of every submitted snapshot, e.g. because the model was recorded
+     * synchronously in the meantime. Must be called on the FX thread.
+     */
+    public void cancel() {
+        submitted++;
+        delivered = submitted;
+        next.set(null);
+    }
+
+    /**
+     * Checks whether the result of the latest submission is still outstanding.
+     * Must be called on the FX thread.
+     *
+     * @return {@code true} if a recording is pending
+     */
+    public boolean isPending() {
+        return delivered != submitted;
+    }
+
+    /**
+     * Records submitted snapshots until none is left. Runs on the worker thread.
+     */
+    private void drain() {
+        while (true) {
+            Job<S> job = next.getAndSet(null);
+            if (job == null) {
+                running.set(false);
+
+                // A snapshot submitted after the check above would otherwise never be recorded
+                if (next.get() == null || !running.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            R recording;
+            try {
+                recording = recorder.record(job.snapshot);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                continue;
+            }
+
+            Platform.runLater(() -> {
+                // A newer snapshot has been submitted, its result will follow
+                if (job.generation == submitted) {
+                    delivered = job.generation;
+                    onRecorded.accept(recording);
+                }
+            });
+        }
+    }
+}
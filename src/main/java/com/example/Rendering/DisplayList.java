@@ -0,0 +1,635 @@
+package com.example.Rendering;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+
+import java.util.Arrays;
+
+/**
+ * Records drawing operations once and replays them onto any number of {@link GraphicsContext}s.
+ *
+ * <p>The recording methods have the same names and parameters as their counterparts in
+ * {@code GraphicsContext}, so drawing code only has to change the type of its target. Operations
+ * are stored compactly: one opcode byte per operation, its numeric arguments in a shared
+ * coordinate buffer and paints, fonts and texts in a shared reference buffer. Replaying the list
+ * therefore costs no more than the drawing calls themselves, without walking the model again,
+ * and the same recording can be shown on the canvas, exported to an image and drawn scaled
+ * down in a minimap.</p>
+ *
+ * <p>Operations can be grouped into elements with {@link #beginElement(Object, double, double, double, double)}
+ * and {@link #endElement()}. Every element has bounds, so that a replay limited to a
+ * {@link VisibleRegion} skips elements outside of it, and an optional key, so that a replay can
+ * draw the element from an {@link ElementImageCache} instead. Elements must therefore set every
+ * paint, line width and font they rely on themselves.</p>
+ */
+public class DisplayList {
+
+    /** Opcodes of the recorded operations. */
+    private static final byte SET_FILL = 0, SET_STROKE = 1, SET_LINE_WIDTH = 2, SET_FONT = 3,
+            FILL_RECT = 4, STROKE_RECT = 5, STROKE_LINE = 6, FILL_OVAL = 7, FILL_TEXT = 8,
+            BEGIN_PATH = 9, MOVE_TO = 10, LINE_TO = 11, ARC = 12, CLOSE_PATH = 13, STROKE = 14, FILL = 15,
+            STROKE_POLYGON = 16, FILL_POLYGON = 17;
+
+    /** One opcode per recorded operation. */
+    private byte[] ops = new byte[256];
+
+    /** Numeric arguments of all operations, in recording order. */
+    private double[] coords = new double[1024];
+
+    /** Paints, fonts and texts used by the operations, in recording order. */
+    private Object[] refs = new Object[64];
+
+    /** Number of used entries in {@link #ops}, {@link #coords} and {@link #refs}. */
+    private int opCount, coordCount, refCount;
+
+    /** Per element: the first opcode, coordinate and reference, then the ones after its last. */
+    private int[] elementRanges = new int[96];
+
+    /** Per element: its bounds as {minX, minY, maxX, maxY}. */
+    private double[] elementBounds = new double[64];
+
+    /** Per element: the key used to look up its cached image, or {@code null}. */
+    private Object[] elementKeys = new Object[16];
+
+    /** Number of recorded elements. */
+    private int elementCount;
+
+    /** Flag indicating whether an element is being recorded. */
+    private boolean inElement;
+
+    /** Font set by the last recorded {@code setFont}, needed to measure text while recording. */
+    private Font font = Font.getDefault();
+
+    /** Number of elements replayed and skipped by the last culled replay. */
+    private int replayedCount, skippedCount;
+
+    /** Corners of the polygon being replayed, reused for every polygon; allocated by the first one. */
+    private double[] polygonX = new double[0], polygonY = new double[0];
+
+    /**
+     * Discards all recorded operations.
+     */
+    public void clear() {
+        opCount = 0;
+        coordCount = 0;
+        Arrays.fill(refs, 0, refCount, null);
+        refCount = 0;
+        Arrays.fill(elementKeys, 0, elementCount, null);
+        elementCount = 0;
+        inElement = false;
+        font = Font.getDefault();
+    }
+
+    /**
+     * Shrinks the buffers to the recorded operations and elements. Lists kept for a long time,
+     * such as the fragments of a {@link RetainedDisplayList}, call this once they are recorded,
+     * as the buffers start out large enough for a whole frame. Recording may go on afterwards.
+     */
+    public void trimToSize() {
+        ops = Arrays.copyOf(ops, opCount);
+        coords = Arrays.copyOf(coords, coordCount);
+        refs = Arrays.copyOf(refs, refCount);
+        elementRanges = Arrays.copyOf(elementRanges, 6 * elementCount);
+        elementBounds = Arrays.copyOf(elementBounds, 4 * elementCount);
+        elementKeys = Arrays.copyOf(elementKeys, elementCount);
+    }
+
+    /**
+     * Checks whether nothing has been recorded.
+     *
+     * @return {@code true} if the list is empty
+     */
+    public boolean isEmpty() {
+        return opCount == 0;
+    }
+
+    /**
+     * Returns the number of recorded operations.
+     *
+     * @return the number of operations
+     */
+    public int getOperationCount() {
+        return opCount;
+    }
+
+    /**
+     * Returns the number of recorded elements.
+     *
+     * @return the number of elements
+     */
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the number of elements drawn by the last replay limited to a region.
+     *
+     * @return the number of replayed elements
+     */
+    public int getReplayedCount() {
+        return replayedCount;
+    }
+
+    /**
+     * Returns the number of elements skipped by the last replay limited to a region.
+     *
+     * @return the number of skipped elements
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Starts an element. Every operation recorded until {@link #endElement()} belongs to it.
+     *
+     * @param key  the key of the element's cached image, or {@code null} to always replay its operations
+     * @param minX the left edge of everything the element draws
+     * @param minY the top edge of everything the element draws
+     * @param maxX the right edge of everything the element draws
+     * @param maxY the bottom edge of everything the element draws
+     */
+    public void beginElement(Object key, double minX, double minY, double maxX, double maxY) {
+        if (inElement) {
+            throw new IllegalStateException("Elements cannot be nested");
+        }
+        if (6 * (elementCount + 1) > elementRanges.length) {
+            elementRanges = Arrays.copyOf(elementRanges, Math.max(elementRanges.length * 2, 6 * (elementCount + 1)));
+        }
+        if (4 * (elementCount + 1) > elementBounds.length) {
+            elementBounds = Arrays.copyOf(elementBounds, Math.max(elementBounds.length * 2, 4 * (elementCount + 1)));
+        }
+        if (elementCount + 1 > elementKeys.length) {
+            elementKeys = Arrays.copyOf(elementKeys, Math.max(elementKeys.length * 2, elementCount + 1));
+        }
+        int range = 6 * elementCount;
+        elementRanges[range] = opCount;
+        elementRanges[range + 1] = coordCount;
+        elementRanges[range + 2] = refCount;
+        int base = 4 * elementCount;
+        elementBounds[base] = minX;
+        elementBounds[base + 1] = minY;
+        elementBounds[base + 2] = maxX;
+        elementBounds[base + 3] = maxY;
+        elementKeys[elementCount] = key;
+        inElement = true;
+    }
+
+    /**
+     * Ends the element started by the last {@link #beginElement(Object, double, double, double, double)}.
+     */
+    public void endElement() {
+        if (!inElement) {
+            throw new IllegalStateException("No element has been started");
+        }
+        int range = 6 * elementCount;
+        elementRanges[range + 3] = opCount;
+        elementRanges[range + 4] = coordCount;
+        elementRanges[range + 5] = refCount;
+        elementCount++;
+        inElement = false;
+    }
+
+    /**
+     * Returns the bounds of all recorded elements together.
+     *
+     * @return the bounds as {minX, minY, maxX, maxY}, or {@code null} if there are no elements
+     */
+    public double[] getBounds() {
+        if (elementCount == 0) {
+            return null;
+        }
+        double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = 0; i < elementCount; i++) {
+            bounds[0] = Math.min(bounds[0], elementBounds[4 * i]);
+            bounds[1] = Math.min(bounds[1], elementBounds[4 * i + 1]);
+            bounds[2] = Math.max(bounds[2], elementBounds[4 * i + 2]);
+            bounds[3] = Math.max(bounds[3], elementBounds[4 * i + 3]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the font set by the last recorded {@code setFont}, e.g. to measure text
+     * while recording.
+     *
+     * @return the current font
+     */
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * Records {@link GraphicsContext#setFill(Paint)}.
+     *
+     * @param paint the fill paint
+     */
+    public void setFill(Paint paint) {
+        op(SET_FILL);
+        ref(paint);
+    }
+
+    /**
+     * Records {@link GraphicsContext#setStroke(Paint)}.
+     *
+     * @param paint the stroke paint
+     */
+    public void setStroke(Paint paint) {
+        op(SET_STROKE);
+        ref(paint);
+    }
+
+    /**
+     * Records {@link GraphicsContext#setLineWidth(double)}.
+     *
+     * @param width the line width
+     */
+    public void setLineWidth(double width) {
+        op(SET_LINE_WIDTH);
+        coord(width);
+    }
+
+    /**
+     * Records {@link GraphicsContext#setFont(Font)}.
+     *
+     * @param font the font
+     */
+    public void setFont(Font font) {
+        op(SET_FONT);
+        ref(font);
+        this.font = font;
+    }
+
+    /**
+     * Records {@link GraphicsContext#fillRect(double, double, double, double)}.
+     *
+     * @param x the x-coordinate of the rectangle
+     * @param y the y-coordinate of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    public void fillRect(double x, double y, double w, double h) {
+        op(FILL_RECT);
+        coords(x, y, w, h);
+    }
+
+    /**
+     * Records {@link GraphicsContext#strokeRect(double, double, double, double)}.
+     *
+     * @param x the x-coordinate of the rectangle
+     * @param y the y-coordinate of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    public void strokeRect(double x, double y, double w, double h) {
+        op(STROKE_RECT);
+        coords(x, y, w, h);
+    }
+
+    /**
+     * Records {@link GraphicsContext#strokeLine(double, double, double, double)}.
+     *
+     * @param x1 the x-coordinate of the start point
+     * @param y1 the y-coordinate of the start point
+     * @param x2 the x-coordinate of the end point
+     * @param y2 the y-coordinate of the end point
+     */
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        op(STROKE_LINE);
+        coords(x1, y1, x2, y2);
+    }
+
+    /**
+     * Records {@link GraphicsContext#fillOval(double, double, double, double)}.
+     *
+     * @param x the x-coordinate of the bounding box
+     * @param y the y-coordinate of the bounding box
+     * @param w the width of the oval
+     * @param h the height of the oval
+     */
+    public void fillOval(double x, double y, double w, double h) {
+        op(FILL_OVAL);
+        coords(x, y, w, h);
+    }
+
+    /**
+     * Records {@link GraphicsContext#fillText(String, double, double)}.
+     *
+     * @param text the text
+     * @param x    the x-coordinate of the text
+     * @param y    the y-coordinate of the baseline
+     */
+    public void fillText(String text, double x, double y) {
+        op(FILL_TEXT);
+        ref(text);
+        coord(x);
+        coord(y);
+    }
+
+    /** Records {@link GraphicsContext#beginPath()}. */
+    public void beginPath() {
+        op(BEGIN_PATH);
+    }
+
+    /**
+     * Records {@link GraphicsContext#moveTo(double, double)}.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void moveTo(double x, double y) {
+        op(MOVE_TO);
+        coord(x);
+        coord(y);
+    }
+
+    /**
+     * Records {@link GraphicsContext#lineTo(double, double)}.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void lineTo(double x, double y) {
+        op(LINE_TO);
+        coord(x);
+        coord(y);
+    }
+
+    /**
+     * Records {@link GraphicsContext#arc(double, double, double, double, double, double)}.
+     *
+     * @param centerX    the x-coordinate of the centre
+     * @param centerY    the y-coordinate of the centre
+     * @param radiusX    the horizontal radius
+     * @param radiusY    the vertical radius
+     * @param startAngle the start angle in degrees
+     * @param length     the length of the arc in degrees
+     */
+    public void arc(double centerX, double centerY, double radiusX, double radiusY, double startAngle, double length) {
+        op(ARC);
+        coords(centerX, centerY, radiusX, radiusY);
+        coord(startAngle);
+        coord(length);
+    }
+
+    /** Records {@link GraphicsContext#closePath()}. */
+    public void closePath() {
+        op(CLOSE_PATH);
+    }
+
+    /** Records {@link GraphicsContext#stroke()}. */
+    public void stroke() {
+        op(STROKE);
+    }
+
+    /** Records {@link GraphicsContext#fill()}. */
+    public void fill() {
+        op(FILL);
+    }
+
+    /**
+     * Records {@link GraphicsContext#strokePolygon(double[], double[], int)}.
+     *
+     * @param xPoints the x-coordinates of the corners
+     * @param yPoints the y-coordinates of the corners
+     * @param nPoints the number of corners
+     */
+    public void strokePolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        op(STROKE_POLYGON);
+        polygon(xPoints, yPoints, nPoints);
+    }
+
+    /**
+     * Records {@link GraphicsContext#fillPolygon(double[], double[], int)}.
+     *
+     * @param xPoints the x-coordinates of the corners
+     * @param yPoints the y-coordinates of the corners
+     * @param nPoints the number of corners
+     */
+    public void fillPolygon(double[] xPoints, double[] yPoints, int nPoints) {
+        op(FILL_POLYGON);
+        polygon(xPoints, yPoints, nPoints);
+    }
+
+    /**
+     * Replays every recorded operation.
+     *
+     * @param gc the GraphicsContext to draw on
+     */
+    public void replay(GraphicsContext gc) {
+        replay(gc, 0, opCount, 0, 0);
+    }
+
+    /**
+     * Replays the operations of the elements intersecting a region, and all operations
+     * recorded outside of elements. Elements with a key are drawn from their cached image.
+     *
+     * @param gc     the GraphicsContext to draw on, transformed to the coordinates of the recording
+     * @param region the region to draw, or {@code null} to draw every element; elements are
+     *               counted as drawn or culled by it
+     * @param cache  the cache holding images of keyed elements, or {@code null} to replay their operations
+     * @param scale  the zoom factor the GraphicsContext draws at, used to render cached images
+     */
+    public void replay(GraphicsContext gc, VisibleRegion region, ElementImageCache<Object> cache, double scale) {
+        replayedCount = 0;
+        skippedCount = 0;
+        int op = 0, coord = 0, ref = 0;
+        for (int i = 0; i < elementCount; i++) {
+            int range = 6 * i;
+            int start = elementRanges[range];
+            int elementCoord = elementRanges[range + 1];
+            int elementRef = elementRanges[range + 2];
+            int end = elementRanges[range + 3];
+
+            // Operations recorded between the previous element and this one
+            if (op < start) {
+                replay(gc, op, start, coord, ref);
+            }
+
+            int base = 4 * i;
+            double minX = elementBounds[base], minY = elementBounds[base + 1];
+            double maxX = elementBounds[base + 2], maxY = elementBounds[base + 3];
+            if (region == null || region.isVisible(minX, minY, maxX, maxY)) {
+                Object key = elementKeys[i];
+                if (key != null && cache != null) {
+                    cache.draw(gc, key, minX, minY, maxX - minX, maxY - minY, scale,
+                            imageGc -> replay(imageGc, start, end, elementCoord, elementRef));
+                } else {
+                    replay(gc, start, end, elementCoord, elementRef);
+                }
+                replayedCount++;
+            } else {
+                skippedCount++;
+            }
+
+            op = end;
+            coord = elementRanges[range + 4];
+            ref = elementRanges[range + 5];
+        }
+
+        // Operations recorded after the last element
+        if (op < opCount) {
+            replay(gc, op, opCount, coord, ref);
+        }
+    }
+
+    /**
+     * Replays a range of operations.
+     *
+     * @param gc    the GraphicsContext to draw on
+     * @param from  the index of the first operation
+     * @param to    the index after the last operation
+     * @param coord the index of the first coordinate used by the range
+     * @param ref   the index of the first reference used by the range
+     */
+    private void replay(GraphicsContext gc, int from, int to, int coord, int ref) {
+        double[] c = coords;
+        for (int i = from; i < to; i++) {
+            switch (ops[i]) {
+                case SET_FILL:
+                    gc.setFill((Paint) refs[ref++]);
+                    break;
+                case SET_STROKE:
+                    gc.setStroke((Paint) refs[ref++]);
+                    break;
+                case SET_LINE_WIDTH:
+                    gc.setLineWidth(c[coord++]);
+                    break;
+                case SET_FONT:
+                    gc.setFont((Font) refs[ref++]);
+                    break;
+                case FILL_RECT:
+                    gc.fillRect(c[coord], c[coord + 1], c[coord + 2], c[coord + 3]);
+                    coord += 4;
+                    break;
+                case STROKE_RECT:
+                    gc.strokeRect(c[coord], c[coord + 1], c[coord + 2], c[coord + 3]);
+                    coord += 4;
+                    break;
+                case STROKE_LINE:
+                    gc.strokeLine(c[coord], c[coord + 1], c[coord + 2], c[coord + 3]);
+                    coord += 4;
+                    break;
+                case FILL_OVAL:
+                    gc.fillOval(c[coord], c[coord + 1], c[coord + 2], c[coord + 3]);
+                    coord += 4;
+                    break;
+                case FILL_TEXT:
+                    gc.fillText((String) refs[ref++], c[coord], c[coord + 1]);
+                    coord += 2;
+                    break;
+                case BEGIN_PATH:
+                    gc.beginPath();
+                    break;
+                case MOVE_TO:
+                    gc.moveTo(c[coord], c[coord + 1]);
+                    coord += 2;
+                    break;
+                case LINE_TO:
+                    gc.lineTo(c[coord], c[coord + 1]);
+                    coord += 2;
+                    break;
+                case ARC:
+                    gc.arc(c[coord], c[coord + 1], c[coord + 2], c[coord + 3], c[coord + 4], c[coord + 5]);
+                    coord += 6;
+                    break;
+                case CLOSE_PATH:
+                    gc.closePath();
+                    break;
+                case STROKE:
+                    gc.stroke();
+                    break;
+                case FILL:
+                    gc.fill();
+                    break;
+                case STROKE_POLYGON:
+                case FILL_POLYGON: {
+                    int n = (int) c[coord++];
+                    if (n > polygonX.length) {
+                        polygonX = new double[n];
+                        polygonY = new double[n];
+                    }
+                    System.arraycopy(c, coord, polygonX, 0, n);
+                    System.arraycopy(c, coord + n, polygonY, 0, n);
+                    coord += 2 * n;
+                    if (ops[i] == STROKE_POLYGON) {
+                        gc.strokePolygon(polygonX, polygonY, n);
+                    } else {
+                        gc.fillPolygon(polygonX, polygonY, n);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown opcode " + ops[i]);
+            }
+        }
+    }
+
+    /**
+     * Appends an opcode.
+     *
+     * @param op the opcode
+     */
+    private void op(byte op) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(ops.length * 2, 16));
+        }
+        ops[opCount++] = op;
+    }
+
+    /**
+     * Appends a numeric argument.
+     *
+     * @param value the argument
+     */
+    private void coord(double value) {
+        if (coordCount == coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(coords.length * 2, 16));
+        }
+        coords[coordCount++] = value;
+    }
+
+    /**
+     * Appends four numeric arguments.
+     *
+     * @param a the first argument
+     * @param b the second argument
+     * @param c the third argument
+     * @param d the fourth argument
+     */
+    private void coords(double a, double b, double c, double d) {
+        coord(a);
+        coord(b);
+        coord(c);
+        coord(d);
+    }
+
+    /**
+     * Appends the corners of a polygon, preceded by their number.
+     *
+     * @param xPoints the x-coordinates of the corners
+     * @param yPoints the y-coordinates of the corners
+     * @param nPoints the number of corners
+     */
+    private void polygon(double[] xPoints, double[] yPoints, int nPoints) {
+        coord(nPoints);
+        for (int i = 0; i < nPoints; i++) {
+            coord(xPoints[i]);
+        }
+        for (int i = 0; i < nPoints; i++) {
+            coord(yPoints[i]);
+        }
+    }
+
+    /**
+     * Appends a paint, font or text.
+     *
+     * @param value the reference
+     */
+    private void ref(Object value) {
+        if (refCount == refs.length) {
+            refs = Arrays.copyOf(refs, Math.max(refs.length * 2, 16));
+        }
+        refs[refCount++] = value;
+    }
+}
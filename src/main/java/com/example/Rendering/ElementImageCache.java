@@ -0,0 +1,280 @@
+package com.example.Rendering;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Screen;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a rendered image of every element that has not changed since it was last drawn.
+ *
+ * <p>Drawing a class box means filling and stroking its rectangle and laying out every text row.
+ * Most boxes look the same from one frame to the next, so the cache renders an element into an
+ * image once and copies it with a single {@code drawImage} call afterwards. Images are rendered at
+ * the zoom factor they are shown at, and the whole cache is discarded when the zoom factor
+ * changes. The owner discards the image of an element whenever its content changes, using
+ * {@link #invalidate(Object)}; moving an element keeps its image.</p>
+ *
+ * <p>The total size of the cached images is bounded by a memory budget. When it is exceeded, the
+ * images of the least recently drawn elements are discarded first. Elements too large to fit a
+ * quarter of the budget are never cached, but drawn directly.</p>
+ *
+ * @param <K> the type of the elements, compared by identity
+ */
+public class ElementImageCache<K> {
+
+    /** Default memory budget: 32 MB of pixels. */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /** Maximum number of bytes used by all cached images together. */
+    private final long maxBytes;
+
+    /** Cached images, in least recently used order. */
+    private final LinkedHashMap<Object, WritableImage> images = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** Number of bytes used by all cached images together. */
+    private long usedBytes = 0;
+
+    /** Zoom factor the cached images were rendered at. */
+    private double scale = 1;
+
+    /** Flag indicating whether images are cached at all; if not, elements are always drawn directly. */
+    private boolean enabled = true;
+
+    /** Offscreen canvas reused to render the elements, grown when needed. */
+    private Canvas renderCanvas;
+
+    /** Number of times an element was drawn from its cached image. */
+    private long hitCount = 0;
+
+    /** Number of times an element had to be rendered. */
+    private long missCount = 0;
+
+    /**
+     * Creates a cache with a memory budget of {@link #DEFAULT_MAX_BYTES}.
+     */
+    public ElementImageCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache with the given memory budget.
+     *
+     * @param maxBytes the maximum number of bytes used by all cached images together
+     */
+    public ElementImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Draws an element, from its cached image if possible.
+     *
+     * @param gc       the GraphicsContext to draw on, transformed to world coordinates
+     * @param element  the element to draw
+     * @param minX     the left edge of everything the element draws, in world coordinates
+     * @param minY     the top edge of everything the element draws, in world coordinates
+     * @param width    the width of everything the element draws
+     * @param height   the height of everything the element draws
+     * @param scale    the zoom factor the element is shown at
+     * @param renderer draws the element in world coordinates on the given GraphicsContext
+     */
+    public void draw(GraphicsContext gc, K element, double minX, double minY, double width, double height,
+                     double scale, Consumer<GraphicsContext> renderer) {
+        if (!enabled) {
+            renderer.accept(gc);
+            return;
+        }
+
+        // Images rendered at another zoom factor have the wrong resolution and level of detail
+        if (scale != this.scale) {
+            clear();
+            this.scale = scale;
+        }
+
+        WritableImage image = images.get(new IdentityKey(element));
+        if (image == null) {
+            double outputScale = Screen.getPrimary().getOutputScaleX();
+            int pixelWidth = (int) Math.ceil(width * scale * outputScale);
+            int pixelHeight = (int) Math.ceil(height * scale * outputScale);
+            long bytes = 4L * pixelWidth * pixelHeight;
+            if (pixelWidth <= 0 || pixelHeight <= 0 || bytes > maxBytes / 4) {
+                renderer.accept(gc); // Not worth caching
+                return;
+            }
+
+            image = render(minX, minY, width, height, outputScale, pixelWidth, pixelHeight, renderer);
+            images.put(new IdentityKey(element), image);
+            usedBytes += bytes;
+            evict();
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        gc.drawImage(image, minX, minY, width, height);
+    }
+
+    /**
+     * Discards the image of an element, e.g. after its content changed.
+     *
+     * @param element the element whose image is discarded
+     */
+    public void invalidate(K element) {
+        WritableImage image = images.remove(new IdentityKey(element));
+        if (image != null) {
+            usedBytes -= bytesOf(image);
+        }
+    }
+
+    /**
+     * Discards every cached image.
+     */
+    public void clear() {
+        images.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Enables or disables the cache. Disabling it discards every cached image.
+     *
+     * @param enabled {@code true} to cache images, {@code false} to always draw directly
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Checks whether images are cached.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of cached images.
+     *
+     * @return the number of images
+     */
+    public int size() {
+        return images.size();
+    }
+
+    /**
+     * Returns the number of bytes used by all cached images together.
+     *
+     * @return the used memory in bytes
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns how many times an element was drawn from its cached image.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns how many times an element had to be rendered into a new image.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Renders an element into a new image.
+     *
+     * @param minX        the left edge of the element in world coordinates
+     * @param minY        the top edge of the element in world coordinates
+     * @param width       the width of the element in world coordinates
+     * @param height      the height of the element in world coordinates
+     * @param outputScale the output scale of the screen
+     * @param pixelWidth  the width of the image in pixels
+     * @param pixelHeight the height of the image in pixels
+     * @param renderer    draws the element
+     * @return the rendered image
+     */
+    private WritableImage render(double minX, double minY, double width, double height, double outputScale,
+                                 int pixelWidth, int pixelHeight, Consumer<GraphicsContext> renderer) {
+        double canvasWidth = Math.ceil(width * scale);
+        double canvasHeight = Math.ceil(height * scale);
+        if (renderCanvas == null) {
+            renderCanvas = new Canvas(canvasWidth, canvasHeight);
+        } else if (renderCanvas.getWidth() < canvasWidth || renderCanvas.getHeight() < canvasHeight) {
+            renderCanvas.setWidth(Math.max(renderCanvas.getWidth(), canvasWidth));
+            renderCanvas.setHeight(Math.max(renderCanvas.getHeight(), canvasHeight));
+        }
+
+        GraphicsContext gc = renderCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, renderCanvas.getWidth(), renderCanvas.getHeight());
+        gc.save();
+        gc.setTransform(scale, 0, 0, scale, -minX * scale, -minY * scale);
+        renderer.accept(gc);
+        gc.restore();
+
+        // The size of the image limits the snapshot to the part of the canvas covered by the element
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(outputScale, outputScale));
+        return renderCanvas.snapshot(parameters, new WritableImage(pixelWidth, pixelHeight));
+    }
+
+    /**
+     * Discards the least recently drawn images until the memory budget is met.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Object, WritableImage>> entries = images.entrySet().iterator();
+        while (usedBytes > maxBytes && entries.hasNext()) {
+            usedBytes -= bytesOf(entries.next().getValue());
+            entries.remove();
+        }
+    }
+
+    /**
+     * Returns the number of bytes used by an image.
+     *
+     * @param image the image
+     * @return its size in bytes, assuming four bytes per pixel
+     */
+    private static long bytesOf(WritableImage image) {
+        return 4L * (long) image.getWidth() * (long) image.getHeight();
+    }
+
+    /** Wraps an element so that it is compared by identity rather than by {@code equals}. */
+    private static final class IdentityKey {
+
+        /** The wrapped element. */
+        private final Object element;
+
+        IdentityKey(Object element) {
+            this.element = element;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey) other).element == element;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(element);
+        }
+    }
+}
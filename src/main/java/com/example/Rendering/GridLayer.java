@@ -0,0 +1,210 @@
+package com.example.Rendering;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Screen;
+
+/**
+ * Background grid shared by the class diagram and use case diagram editors.
+ *
+ * <p>Instead of stroking one line every few pixels on every redraw, the grid is rendered once
+ * into an image and copied onto the canvas with a single {@code drawImage} call. The image is
+ * only rebuilt when the size of the canvas or the zoom factor changes, so the cost of painting
+ * the grid no longer grows with the area of the canvas.</p>
+ */
+public class GridLayer {
+
+    /** Distance between two grid lines at a zoom factor of 1. */
+    private final double spacing;
+
+    /** Colour of the grid lines. */
+    private final Color lineColor;
+
+    /** Width of the grid lines. */
+    private final double lineWidth;
+
+    /** Cached image of the grid, or {@code null} if it has to be rebuilt. */
+    private WritableImage image;
+
+    /** Width and height of the area covered by the cached image. */
+    private double imageWidth, imageHeight;
+
+    /** Zoom factor the cached image was rendered with. */
+    private double imageScale = 1;
+
+    /** Zoom factor requested for the next rebuild. */
+    private double scale = 1;
+
+    /** Number of times the grid image has been rebuilt, useful to verify the caching. */
+    private int rebuildCount = 0;
+
+    /**
+     * Creates a grid layer with the default look used by both editors:
+     * light gray lines, 0.5 px wide, every 10 px.
+     */
+    public GridLayer() {
+        this(10, Color.rgb(180, 180, 180), 0.5);
+    }
+
+    /**
+     * Creates a grid layer with a custom look.
+     *
+     * @param spacing   the distance between two grid lines at a zoom factor of 1
+     * @param lineColor the colour of the grid lines
+     * @param lineWidth the width of the grid lines
+     */
+    public GridLayer(double spacing, Color lineColor, double lineWidth) {
+        this.spacing = spacing;
+        this.lineColor = lineColor;
+        this.lineWidth = lineWidth;
+    }
+
+    /**
+     * Sets the zoom factor of the grid. The grid image is rebuilt on the next draw
+     * if the factor has changed.
+     *
+     * @param scale the zoom factor, 1 meaning no zoom
+     */
+    public void setScale(double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Returns the distance between two grid lines on screen at the current zoom factor.
+     *
+     * @return the spacing in canvas pixels
+     */
+    public double getScaledSpacing() {
+        return spacing * scale;
+    }
+
+    /**
+     * Discards the cached image, forcing a rebuild on the next draw.
+     */
+    public void invalidate() {
+        image = null;
+    }
+
+    /**
+     * Returns how often the grid image has been rebuilt.
+     *
+     * @return the number of rebuilds since this layer was created
+     */
+    public int getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * Draws the grid over the whole area of a canvas.
+     *
+     * @param gc     the GraphicsContext of the canvas
+     * @param width  the width of the area to cover
+     * @param height the height of the area to cover
+     */
+    public void draw(GraphicsContext gc, double width, double height) {
+        drawRegion(gc, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * Draws the part of the grid lying inside the given rectangle.
+     *
+     * @param gc     the GraphicsContext of the canvas
+     * @param width  the width of the whole canvas area covered by the grid
+     * @param height the height of the whole canvas area covered by the grid
+     * @param minX   the left edge of the rectangle to draw
+     * @param minY   the top edge of the rectangle to draw
+     * @param maxX   the right edge of the rectangle to draw
+     * @param maxY   the bottom edge of the rectangle to draw
+     */
+    public void drawRegion(GraphicsContext gc, double width, double height,
+                           double minX, double minY, double maxX, double maxY) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        ensureImage(width, height);
+
+        // Clamp the rectangle to the area covered by the image
+        minX = Math.max(0, minX);
+        minY = Math.max(0, minY);
+        maxX = Math.min(imageWidth, maxX);
+        maxY = Math.min(imageHeight, maxY);
+        if (maxX <= minX || maxY <= minY) {
+            return;
+        }
+
+        // The image may have more pixels than the canvas area on HiDPI screens
+        double pixelsPerUnit = image.getWidth() / imageWidth;
+        gc.drawImage(image,
+                minX * pixelsPerUnit, minY * pixelsPerUnit,
+                (maxX - minX) * pixelsPerUnit, (maxY - minY) * pixelsPerUnit,
+                minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Draws the grid over the whole area of a canvas showing a panned view, so that the grid
+     * lines pass through the screen position of the world origin.
+     *
+     * <p>The image is one grid cell larger than the area and is shifted by less than a cell,
+     * so panning never requires a rebuild.</p>
+     *
+     * @param gc      the GraphicsContext of the canvas
+     * @param width   the width of the area to cover
+     * @param height  the height of the area to cover
+     * @param originX the horizontal screen position of the world origin
+     * @param originY the vertical screen position of the world origin
+     */
+    public void drawAligned(GraphicsContext gc, double width, double height, double originX, double originY) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        double scaledSpacing = getScaledSpacing();
+        ensureImage(width + scaledSpacing, height + scaledSpacing);
+
+        // Shift the image left and up by less than one cell, keeping a line on the origin
+        double offsetX = ((originX % scaledSpacing) + scaledSpacing) % scaledSpacing - scaledSpacing;
+        double offsetY = ((originY % scaledSpacing) + scaledSpacing) % scaledSpacing - scaledSpacing;
+        gc.drawImage(image, offsetX, offsetY, imageWidth, imageHeight);
+    }
+
+    /**
+     * Rebuilds the grid image if it is missing, too small or was rendered at another zoom factor.
+     *
+     * @param width  the width the image has to cover
+     * @param height the height the image has to cover
+     */
+    private void ensureImage(double width, double height) {
+        if (image != null && imageWidth == width && imageHeight == height && imageScale == scale) {
+            return;
+        }
+
+        // Render at the output scale of the screen so the lines stay sharp on HiDPI displays
+        double outputScale = Screen.getPrimary().getOutputScaleX();
+        Canvas offscreen = new Canvas(width, height);
+        GraphicsContext gc = offscreen.getGraphicsContext2D();
+        gc.setLineWidth(lineWidth);
+        gc.setStroke(lineColor);
+
+        double scaledSpacing = getScaledSpacing();
+        for (double x = 0; x <= width; x += scaledSpacing) {
+            gc.strokeLine(x, 0, x, height);
+        }
+        for (double y = 0; y <= height; y += scaledSpacing) {
+            gc.strokeLine(0, y, width, y);
+        }
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(outputScale, outputScale));
+        image = offscreen.snapshot(parameters, new WritableImage(
+                (int) Math.ceil(width * outputScale), (int) Math.ceil(height * outputScale)));
+
+        imageWidth = width;
+        imageHeight = height;
+        imageScale = scale;
+        rebuildCount++;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Rendering;
+
+/**
+ * Chooses how much detail to draw depending on the zoom factor.
+ *
+ * <p>When the diagram is zoomed far out, attribute and operation texts become too small to read
+ * but still cost the most to draw. Below {@link #getNamesOnlyBelow()} only boxes and names are
+ * drawn; below {@link #getOutlineBelow()} diagrams become plain rectangles and lines are drawn
+ * as straight segments without end shapes or labels.</p>
+ */
+public class LevelOfDetail {
+
+    /** Amount of detail drawn, from the most to the least. */
+    public enum Tier {
+        /** Everything: names, attributes, operations, connection points, end shapes and labels. */
+        FULL,
+        /** Boxes with their names and full lines, but no members and no connection points. */
+        NAMES_ONLY,
+        /** Plain rectangles and straight lines without end shapes or labels. */
+        OUTLINE
+    }
+
+    /** Default zoom factor below which only boxes and names are drawn. */
+    public static final double DEFAULT_NAMES_ONLY_BELOW = 0.6;
+
+    /** Default zoom factor below which only outlines are drawn. */
+    public static final double DEFAULT_OUTLINE_BELOW = 0.35;
+
+    /** Zoom factor below which only boxes and names are drawn. */
+    private double namesOnlyBelow = DEFAULT_NAMES_ONLY_BELOW;
+
+    /** Zoom factor below which only outlines are drawn. */
+    private double outlineBelow = DEFAULT_OUTLINE_BELOW;
+
+    /**
+     * Returns the tier to draw with at the given zoom factor.
+     *
+     * @param scale the current zoom factor, 1 meaning no zoom
+     * @return the tier of detail
+     */
+    public Tier forScale(double scale) {
+        if (scale < outlineBelow) {
+            return Tier.OUTLINE;
+        }
+        if (scale < namesOnlyBelow) {
+            return Tier.NAMES_ONLY;
+        }
+        return Tier.FULL;
+    }
+
+    /**
+     * Returns the zoom factor below which only boxes and names are drawn.
+     *
+     * @return the threshold
+     */
+    public double getNamesOnlyBelow() {
+        return namesOnlyBelow;
+    }
+
+    /**
+     * Returns the zoom factor below which only outlines are drawn.
+     *
+     * @return the threshold
+     */
+    public double getOutlineBelow() {
+        return outlineBelow;
+    }
+
+    /**
+     * Sets both thresholds.
+     *
+     * @param namesOnlyBelow the zoom factor below which only boxes and names are drawn
+     * @param outlineBelow   the zoom factor below which only outlines are drawn;
+     *                       must not be greater than {@code namesOnlyBelow}
+     */
+    public void setThresholds(double namesOnlyBelow, double outlineBelow) {
+        if (outlineBelow > namesOnlyBelow) {
+            throw new IllegalArgumentException("The outline threshold (" + outlineBelow
+                    + ") must not be greater than the names-only threshold (" + namesOnlyBelow + ")");
+        }
+        this.namesOnlyBelow = namesOnlyBelow;
+        this.outlineBelow = outlineBelow;
+    }
+}
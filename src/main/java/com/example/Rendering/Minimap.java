@@ -0,0 +1,269 @@
+package com.example.Rendering;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Small overview of the whole model, showing where the current viewport lies and letting the
+ * user jump to any part of the world with a click.
+ *
+ * <p>The model is drawn into a low-resolution thumbnail canvas that is kept between updates.
+ * When the model changes, the owner reports the changed world rectangles with
+ * {@link #invalidate(double, double, double, double)}, and only these parts of the thumbnail are
+ * drawn again, at the tiny scale of the minimap. The viewport rectangle lives on a separate canvas
+ * above the thumbnail, so zooming and panning the editor never touch the thumbnail at all.</p>
+ *
+ * <p>The world area covered by the thumbnail grows when the model outgrows it, with some room
+ * to spare, so that adding elements near the edge does not redraw the whole thumbnail each time.</p>
+ */
+public class Minimap {
+
+    /** Part of the model size added around it when the covered world area has to grow. */
+    private static final double GROWTH_MARGIN = 0.25;
+
+    /** Smallest width and height of the covered world area. */
+    private static final double MIN_WORLD_SIZE = 400;
+
+    /** Colour of the viewport rectangle. */
+    private static final Color VIEWPORT_COLOR = Color.web("#5DADE2");
+
+    /** Cached low-resolution image of the model. */
+    private final Canvas thumbnail;
+
+    /** Canvas above the thumbnail showing the viewport rectangle, receiving the mouse events. */
+    private final Canvas viewportLayer;
+
+    /** Node holding both canvases, to be placed in the user interface. */
+    private final Pane node = new Pane();
+
+    /** World rectangles, as {minX, minY, maxX, maxY}, whose part of the thumbnail is outdated. */
+    private final List<double[]> dirtyRectangles = new ArrayList<>();
+
+    /** Flag indicating whether the whole thumbnail is outdated. */
+    private boolean fullRepaint = true;
+
+    /** World area covered by the thumbnail as {minX, minY, maxX, maxY}, or {@code null} if not known yet. */
+    private double[] worldBounds;
+
+    /** Scale from world coordinates to minimap pixels. */
+    private double scale = 1;
+
+    /** Minimap position of the world origin. */
+    private double originX, originY;
+
+    /** Receives the world point clicked in the minimap. */
+    private BiConsumer<Double, Double> onNavigate;
+
+    /** Number of thumbnail patches drawn, useful to verify the incremental updates. */
+    private int patchCount = 0;
+
+    /**
+     * Creates a minimap of the given size.
+     *
+     * @param width  the width of the minimap in pixels
+     * @param height the height of the minimap in pixels
+     */
+    public Minimap(double width, double height) {
+        thumbnail = new Canvas(width, height);
+        viewportLayer = new Canvas(width, height);
+        node.getChildren().addAll(thumbnail, viewportLayer);
+        node.setPrefSize(width, height);
+        node.setMinSize(width, height);
+        node.setMaxSize(width, height);
+        node.setStyle("-fx-border-color: #dcdcdc; -fx-background-color: white;");
+
+        viewportLayer.setOnMousePressed(this::navigate);
+        viewportLayer.setOnMouseDragged(this::navigate);
+
+        // Clicks must not reach the panels below, which would clear the selection
+        viewportLayer.setOnMouseClicked(MouseEvent::consume);
+    }
+
+    /**
+     * Returns the node to place in the user interface.
+     *
+     * @return the minimap node
+     */
+    public Pane getNode() {
+        return node;
+    }
+
+    /**
+     * Sets the action called with the world coordinates of the point the user clicks
+     * or drags to in the minimap.
+     *
+     * @param onNavigate receives the x and y world coordinates
+     */
+    public void setOnNavigate(BiConsumer<Double, Double> onNavigate) {
+        this.onNavigate = onNavigate;
+    }
+
+    /**
+     * Marks a changed world rectangle, so that its part of the thumbnail is drawn again
+     * on the next {@link #update(double[], double[], TileCache.TileRenderer)}.
+     *
+     * @param minX the left edge in world coordinates
+     * @param minY the top edge in world coordinates
+     * @param maxX the right edge in world coordinates
+     * @param maxY the bottom edge in world coordinates
+     */
+    public void invalidate(double minX, double minY, double maxX, double maxY) {
+        if (!fullRepaint) {
+            dirtyRectangles.add(new double[]{minX, minY, maxX, maxY});
+        }
+    }
+
+    /**
+     * Marks the whole thumbnail as outdated.
+     */
+    public void invalidateAll() {
+        fullRepaint = true;
+        dirtyRectangles.clear();
+    }
+
+    /**
+     * Forgets the covered world area, so that it is fitted to the model again on the next
+     * update, e.g. after loading another model.
+     */
+    public void reset() {
+        worldBounds = null;
+        invalidateAll();
+    }
+
+    /**
+     * Brings the minimap up to date: grows the covered world area if the model outgrew it,
+     * draws the outdated parts of the thumbnail and draws the viewport rectangle.
+     *
+     * @param contentBounds the bounds of the model as {minX, minY, maxX, maxY}, or {@code null} if it is empty
+     * @param viewBounds    the visible part of the world as {minX, minY, maxX, maxY}
+     * @param renderer      draws the model inside a world rectangle, on a GraphicsContext
+     *                      transformed to world coordinates
+     */
+    public void update(double[] contentBounds, double[] viewBounds, TileCache.TileRenderer renderer) {
+        if (worldBounds == null || (contentBounds != null && !contains(worldBounds, contentBounds))) {
+            fitWorld(contentBounds != null ? contentBounds : viewBounds);
+        }
+
+        if (fullRepaint) {
+            patch(worldBounds, renderer);
+        } else {
+            for (double[] rectangle : dirtyRectangles) {
+                patch(rectangle, renderer);
+            }
+        }
+        fullRepaint = false;
+        dirtyRectangles.clear();
+
+        drawViewport(viewBounds);
+    }
+
+    /**
+     * Returns how many parts of the thumbnail have been drawn.
+     *
+     * @return the number of patches since this minimap was created
+     */
+    public int getPatchCount() {
+        return patchCount;
+    }
+
+    /**
+     * Chooses the world area covered by the thumbnail so that it holds the given bounds with some
+     * room to spare, and marks the whole thumbnail as outdated.
+     *
+     * @param bounds the world bounds to cover as {minX, minY, maxX, maxY}
+     */
+    private void fitWorld(double[] bounds) {
+        double width = Math.max(MIN_WORLD_SIZE, (bounds[2] - bounds[0]) * (1 + 2 * GROWTH_MARGIN));
+        double height = Math.max(MIN_WORLD_SIZE, (bounds[3] - bounds[1]) * (1 + 2 * GROWTH_MARGIN));
+        double centerX = (bounds[0] + bounds[2]) / 2;
+        double centerY = (bounds[1] + bounds[3]) / 2;
+
+        // Keep the aspect ratio of the world and centre it in the minimap
+        scale = Math.min(thumbnail.getWidth() / width, thumbnail.getHeight() / height);
+        width = thumbnail.getWidth() / scale;
+        height = thumbnail.getHeight() / scale;
+        worldBounds = new double[]{centerX - width / 2, centerY - height / 2, centerX + width / 2, centerY + height / 2};
+        originX = -worldBounds[0] * scale;
+        originY = -worldBounds[1] * scale;
+        invalidateAll();
+    }
+
+    /**
+     * Draws the part of the thumbnail covering a world rectangle.
+     *
+     * @param rectangle the world rectangle as {minX, minY, maxX, maxY}
+     * @param renderer  draws the model inside the rectangle
+     */
+    private void patch(double[] rectangle, TileCache.TileRenderer renderer) {
+        // Whole pixels, so that neighbouring patches do not leave seams
+        double left = Math.max(0, Math.floor(rectangle[0] * scale + originX));
+        double top = Math.max(0, Math.floor(rectangle[1] * scale + originY));
+        double right = Math.min(thumbnail.getWidth(), Math.ceil(rectangle[2] * scale + originX));
+        double bottom = Math.min(thumbnail.getHeight(), Math.ceil(rectangle[3] * scale + originY));
+        if (right <= left || bottom <= top) {
+            return;
+        }
+
+        GraphicsContext gc = thumbnail.getGraphicsContext2D();
+        gc.save();
+        gc.beginPath();
+        gc.rect(left, top, right - left, bottom - top);
+        gc.clip();
+        gc.clearRect(left, top, right - left, bottom - top);
+        gc.setTransform(scale, 0, 0, scale, originX, originY);
+        renderer.render(gc, (left - originX) / scale, (top - originY) / scale,
+                (right - originX) / scale, (bottom - originY) / scale);
+        gc.restore();
+        patchCount++;
+    }
+
+    /**
+     * Draws the rectangle showing the visible part of the world.
+     *
+     * @param viewBounds the visible part of the world as {minX, minY, maxX, maxY}
+     */
+    private void drawViewport(double[] viewBounds) {
+        GraphicsContext gc = viewportLayer.getGraphicsContext2D();
+        gc.clearRect(0, 0, viewportLayer.getWidth(), viewportLayer.getHeight());
+
+        double x = viewBounds[0] * scale + originX;
+        double y = viewBounds[1] * scale + originY;
+        double width = (viewBounds[2] - viewBounds[0]) * scale;
+        double height = (viewBounds[3] - viewBounds[1]) * scale;
+        gc.setFill(VIEWPORT_COLOR.deriveColor(0, 1, 1, 0.2));
+        gc.fillRect(x, y, width, height);
+        gc.setStroke(VIEWPORT_COLOR);
+        gc.setLineWidth(1.5);
+        gc.strokeRect(x, y, width, height);
+    }
+
+    /**
+     * Reports the world point under the mouse to the navigation action.
+     *
+     * @param event the mouse event on the viewport layer
+     */
+    private void navigate(MouseEvent event) {
+        if (onNavigate != null && worldBounds != null) {
+            onNavigate.accept((event.getX() - originX) / scale, (event.getY() - originY) / scale);
+        }
+        event.consume();
+    }
+
+    /**
+     * Checks whether a rectangle lies completely inside another one.
+     *
+     * @param outer the outer rectangle as {minX, minY, maxX, maxY}
+     * @param inner the inner rectangle as {minX, minY, maxX, maxY}
+     * @return {@code true} if {@code inner} is inside {@code outer}
+     */
+    private static boolean contains(double[] outer, double[] inner) {
+        return inner[0] >= outer[0] && inner[1] >= outer[1] && inner[2] <= outer[2] && inner[3] <= outer[3];
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.Rendering;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index over the bounding rectangles of the elements of a diagram, used to find the
+ * elements under the mouse without looking at every element of the model.
+ *
+ * <p>The world is divided into square nodes, every node being split into four equally sized
+ * children once it holds more than {@link #MAX_ITEMS} elements. An element is stored in the
+ * smallest node that contains its rectangle completely, so a query only visits the nodes
+ * intersecting the queried area: picking takes logarithmic time in the size of the model.
+ * The world has no boundaries; the root node grows when an element is placed outside of it.</p>
+ *
+ * <p>Elements are compared by identity. Moving or resizing an element is an update of its
+ * rectangle, which usually leaves it in the same node and then costs constant time.</p>
+ *
+ * @param <T> the type of the indexed elements
+ */
+public class QuadTree<T> {
+
+    /** Number of elements a node holds before it is split into four children. */
+    public static final int MAX_ITEMS = 8;
+
+    /** Smallest width and height of a node; smaller nodes are never split. */
+    public static final double MIN_NODE_SIZE = 16;
+
+    /** Width and height of the root node created for the first element. */
+    private static final double INITIAL_SIZE = 1024;
+
+    /** A square part of the world with the elements that fit in no smaller node. */
+    private static final class Node<T> {
+
+        /** Top-left corner and size of the node. */
+        final double minX, minY, size;
+
+        /** The four children, or {@code null} while the node is a leaf. */
+        Node<T>[] children;
+
+        /** Elements stored in this node. */
+        final List<Entry<T>> entries = new ArrayList<>(4);
+
+        Node(double minX, double minY, double size) {
+            this.minX = minX;
+            this.minY = minY;
+            this.size = size;
+        }
+
+        boolean contains(double minX, double minY, double maxX, double maxY) {
+            return minX >= this.minX && minY >= this.minY && maxX <= this.minX + size && maxY <= this.minY + size;
+        }
+
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return minX <= this.minX + size && maxX >= this.minX && minY <= this.minY + size && maxY >= this.minY;
+        }
+
+        /**
+         * Creates the array of the four children of a node; Java cannot create an array of a
+         * generic type directly.
+         */
+        @SuppressWarnings("unchecked")
+        static <T> Node<T>[] newChildren() {
+            return (Node<T>[]) new Node<?>[4];
+        }
+    }
+
+    /** An indexed element with its rectangle and the node it is stored in. */
+    private static final class Entry<T> {
+
+        /** The indexed element. */
+        final T item;
+
+        /** Bounding rectangle of the element. */
+        double minX, minY, maxX, maxY;
+
+        /** Node the entry is stored in. */
+        Node<T> node;
+
+        Entry(T item) {
+            this.item = item;
+        }
+
+        boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return minX <= this.maxX && maxX >= this.minX && minY <= this.maxY && maxY >= this.minY;
+        }
+    }
+
+    /** Root of the tree, or {@code null} while the tree is empty. */
+    private Node<T> root;
+
+    /** Entries of all indexed elements, for constant time updates and removals. */
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    /**
+     * Adds an element, or updates its rectangle if it is already indexed.
+     *
+     * @param item the element
+     * @param minX the left edge of its rectangle
+     * @param minY the top edge of its rectangle
+     * @param maxX the right edge of its rectangle
+     * @param maxY the bottom edge of its rectangle
+     */
+    public void put(T item, double minX, double minY, double maxX, double maxY) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+        } else if (fitsNode(entry.node, minX, minY, maxX, maxY)) {
+            // Still in the right node, e.g. after a small move
+            setBounds(entry, minX, minY, maxX, maxY);
+            return;
+        } else {
+            entry.node.entries.remove(entry);
+        }
+
+        setBounds(entry, minX, minY, maxX, maxY);
+        growRoot(entry);
+        insert(root, entry);
+    }
+
+    /**
+     * Removes an element.
+     *
+     * @param item the element
+     * @return {@code true} if the element was indexed
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.node.entries.remove(entry);
+        return true;
+    }
+
+    /**
+     * Checks whether an element is indexed.
+     *
+     * @param item the element
+     * @return {@code true} if the element is indexed
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Removes every element.
+     */
+    public void clear() {
+        entries.clear();
+        root = null;
+    }
+
+    /**
+     * Returns the number of indexed elements.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the elements whose rectangles intersect or touch a rectangle.
+     *
+     * @param minX the left edge of the rectangle
+     * @param minY the top edge of the rectangle
+     * @param maxX the right edge of the rectangle
+     * @param maxY the bottom edge of the rectangle
+     * @return the elements found, in no particular order
+     */
+    public List<T> query(double minX, double minY, double maxX, double maxY) {
+        List<T> result = new ArrayList<>();
+        if (root != null) {
+            query(root, minX, minY, maxX, maxY, result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the elements whose rectangles contain a point, including their edges.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the elements found, in no particular order
+     */
+    public List<T> queryPoint(double x, double y) {
+        return query(x, y, x, y);
+    }
+
+    /**
+     * Collects the elements of a node and its children intersecting a rectangle.
+     */
+    private void query(Node<T> node, double minX, double minY, double maxX, double maxY, List<T> result) {
+        for (Entry<T> entry : node.entries) {
+            if (entry.intersects(minX, minY, maxX, maxY)) {
+                result.add(entry.item);
+            }
+        }
+        if (node.children != null) {
+            for (Node<T> child : node.children) {
+                if (child.intersects(minX, minY, maxX, maxY)) {
+                    query(child, minX, minY, maxX, maxY, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores an entry in the smallest node below the given one that contains it,
+     * splitting a leaf that becomes too full.
+     */
+    private void insert(Node<T> node, Entry<T> entry) {
+        while (node.children != null) {
+            Node<T> child = childContaining(node, entry.minX, entry.minY, entry.maxX, entry.maxY);
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        node.entries.add(entry);
+        entry.node = node;
+
+        if (node.children == null && node.entries.size() > MAX_ITEMS && node.size / 2 >= MIN_NODE_SIZE) {
+            split(node);
+        }
+    }
+
+    /**
+     * Splits a leaf into four children and moves down every entry that fits into one of them.
+     */
+    private void split(Node<T> node) {
+        double half = node.size / 2;
+        node.children = Node.newChildren();
+        for (int i = 0; i < 4; i++) {
+            node.children[i] = new Node<>(node.minX + (i % 2) * half, node.minY + (i / 2) * half, half);
+        }
+
+        List<Entry<T>> stored = new ArrayList<>(node.entries);
+        node.entries.clear();
+        for (Entry<T> entry : stored) {
+            insert(node, entry);
+        }
+    }
+
+    /**
+     * Returns the child of a node containing a rectangle completely.
+     *
+     * @return the child, or {@code null} if the node is a leaf or the rectangle straddles children
+     */
+    private Node<T> childContaining(Node<T> node, double minX, double minY, double maxX, double maxY) {
+        if (node.children == null) {
+            return null;
+        }
+        for (Node<T> child : node.children) {
+            if (child.contains(minX, minY, maxX, maxY)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a rectangle belongs into a node: the node contains it, but none of its children does.
+     */
+    private boolean fitsNode(Node<T> node, double minX, double minY, double maxX, double maxY) {
+        return node.contains(minX, minY, maxX, maxY) && childContaining(node, minX, minY, maxX, maxY) == null;
+    }
+
+    /**
+     * Creates the root or doubles its size until it contains the rectangle of an entry.
+     */
+    private void growRoot(Entry<T> entry) {
+        if (root == null) {
+            double size = INITIAL_SIZE;
+            while (size < entry.maxX - entry.minX || size < entry.maxY - entry.minY) {
+                size *= 2;
+            }
+            root = new Node<>(entry.minX, entry.minY, size);
+            return;
+        }
+
+        while (!root.contains(entry.minX, entry.minY, entry.maxX, entry.maxY)) {
+            // Grow towards the entry; the old root becomes one of the four children
+            boolean left = entry.minX < root.minX;
+            boolean up = entry.minY < root.minY;
+            double size = root.size;
+            double minX = left ? root.minX - size : root.minX;
+            double minY = up ? root.minY - size : root.minY;
+
+            Node<T> grown = new Node<>(minX, minY, 2 * size);
+            grown.children = Node.newChildren();
+            int rootIndex = (left ? 1 : 0) + (up ? 2 : 0);
+            for (int i = 0; i < 4; i++) {
+                grown.children[i] = i == rootIndex ? root
+                        : new Node<>(minX + (i % 2) * size, minY + (i / 2) * size, size);
+            }
+            root = grown;
+        }
+    }
+
+    /**
+     * Sets the rectangle of an entry.
+     */
+    private static void setBounds(Entry<?> entry, double minX, double minY, double maxX, double maxY) {
+        entry.minX = minX;
+        entry.minY = minY;
+        entry.maxX = maxX;
+        entry.maxY = maxY;
+    }
+}
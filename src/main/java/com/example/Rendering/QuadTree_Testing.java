@@ -0,0 +1,146 @@
+package com.example.Rendering;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuadTree_Testing {
+    private QuadTree<String> tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new QuadTree<>();
+    }
+
+    @Test
+    void testQueryPointFindsContainingRectangles() {
+        tree.put("a", 0, 0, 100, 100);
+        tree.put("b", 50, 50, 150, 150);
+        tree.put("c", 300, 300, 400, 400);
+
+        assertEquals(Set.of("a", "b"), new HashSet<>(tree.queryPoint(75, 75)));
+        assertEquals(List.of("c"), tree.queryPoint(350, 350));
+        assertTrue(tree.queryPoint(200, 200).isEmpty(), "No rectangle contains the point.");
+    }
+
+    @Test
+    void testQueryIncludesEdges() {
+        tree.put("a", 0, 0, 100, 100);
+
+        assertEquals(List.of("a"), tree.queryPoint(100, 100), "The edges belong to the rectangle.");
+        assertEquals(List.of("a"), tree.query(100, 50, 200, 60), "A touching rectangle intersects.");
+        assertTrue(tree.queryPoint(100.5, 100).isEmpty());
+    }
+
+    @Test
+    void testQueryMatchesBruteForceAfterSplits() {
+        Random random = new Random(42);
+        List<double[]> rectangles = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 5000;
+            double y = random.nextDouble() * 5000;
+            double[] rectangle = {x, y, x + 10 + random.nextDouble() * 200, y + 10 + random.nextDouble() * 100};
+            rectangles.add(rectangle);
+            tree.put(String.valueOf(i), rectangle[0], rectangle[1], rectangle[2], rectangle[3]);
+        }
+        assertEquals(2000, tree.size());
+
+        for (int q = 0; q < 200; q++) {
+            double minX = random.nextDouble() * 5000;
+            double minY = random.nextDouble() * 5000;
+            double maxX = minX + random.nextDouble() * 400;
+            double maxY = minY + random.nextDouble() * 400;
+
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < rectangles.size(); i++) {
+                double[] r = rectangles.get(i);
+                if (r[0] <= maxX && r[2] >= minX && r[1] <= maxY && r[3] >= minY) {
+                    expected.add(String.valueOf(i));
+                }
+            }
+            List<String> found = tree.query(minX, minY, maxX, maxY);
+            assertEquals(expected.size(), found.size(), "An element must be found exactly once.");
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    @Test
+    void testRootGrowsTowardsElementsOutsideOfIt() {
+        tree.put("origin", 0, 0, 50, 50);
+        // Far outside the initial root, in every direction
+        tree.put("left", -5000, 10, -4950, 60);
+        tree.put("above", 10, -70000, 60, -69950);
+        tree.put("right", 250000, 250000, 250050, 250050);
+        tree.put("huge", -100, -100, 9000, 9000);
+
+        assertEquals(5, tree.size());
+        assertEquals(Set.of("origin", "huge"), new HashSet<>(tree.queryPoint(25, 25)));
+        assertEquals(List.of("left"), tree.queryPoint(-4975, 35));
+        assertEquals(List.of("above"), tree.queryPoint(35, -69975));
+        assertEquals(List.of("right"), tree.queryPoint(250025, 250025));
+        assertEquals(5, tree.query(-1e6, -1e6, 1e6, 1e6).size());
+    }
+
+    @Test
+    void testRootGrowsAfterSplits() {
+        // Fill the initial root so that it is split before it grows
+        for (int i = 0; i < 100; i++) {
+            tree.put("inside" + i, i * 10, i * 10, i * 10 + 5, i * 10 + 5);
+        }
+        tree.put("outside", -3000, -3000, -2990, -2990);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(List.of("inside" + i), tree.queryPoint(i * 10 + 2, i * 10 + 2));
+        }
+        assertEquals(List.of("outside"), tree.queryPoint(-2995, -2995));
+    }
+
+    @Test
+    void testPutUpdatesTheRectangle() {
+        tree.put("a", 0, 0, 100, 100);
+        tree.put("a", 3000, 3000, 3100, 3100);
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.queryPoint(50, 50).isEmpty(), "The old rectangle must be forgotten.");
+        assertEquals(List.of("a"), tree.queryPoint(3050, 3050));
+
+        // A small move stays in the same node
+        tree.put("a", 3001, 3001, 3101, 3101);
+        assertEquals(List.of("a"), tree.queryPoint(3101, 3101));
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        tree.put("a", 0, 0, 100, 100);
+        tree.put("b", 0, 0, 100, 100);
+
+        assertTrue(tree.remove("a"));
+        assertFalse(tree.remove("a"), "An element is removed only once.");
+        assertFalse(tree.contains("a"));
+        assertEquals(List.of("b"), tree.queryPoint(50, 50));
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertTrue(tree.queryPoint(50, 50).isEmpty());
+    }
+
+    @Test
+    void testElementsAreComparedByIdentity() {
+        QuadTree<String> identityTree = new QuadTree<>();
+        String first = new String("same");
+        String second = new String("same");
+        identityTree.put(first, 0, 0, 10, 10);
+        identityTree.put(second, 20, 20, 30, 30);
+
+        assertEquals(2, identityTree.size());
+        assertTrue(identityTree.remove(second));
+        assertSame(first, identityTree.queryPoint(5, 5).getFirst());
+    }
+}
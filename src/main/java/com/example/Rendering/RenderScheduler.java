@@ -0,0 +1,105 @@
+package com.example.Rendering;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Coalesces repaint requests of an editor so that its canvas is painted at most once per
+ * JavaFX pulse.
+ *
+ * <p>A mouse with a high polling rate delivers several drag or scroll events between two frames.
+ * Painting synchronously in every event handler renders frames that are never shown. Instead,
+ * event handlers only update the model and call {@link #requestRender()}; the actual paint runs
+ * once, from an {@link AnimationTimer}, at the start of the next pulse. The timer is stopped
+ * again as soon as nothing is left to paint, so an idle editor costs nothing.</p>
+ *
+ * <p>All methods must be called on the JavaFX Application Thread.</p>
+ */
+public class RenderScheduler {
+
+    /** Paints the canvas; called at most once per pulse. */
+    private final Runnable renderer;
+
+    /** Timer running only while a paint is pending, created on the first request. */
+    private AnimationTimer timer;
+
+    /** Flag indicating whether a paint has been requested and not yet performed. */
+    private boolean pending = false;
+
+    /** Number of paints requested since creation. */
+    private long requestCount = 0;
+
+    /** Number of paints performed since creation. */
+    private long renderCount = 0;
+
+    /**
+     * Creates a scheduler for the given paint routine.
+     *
+     * @param renderer the routine that paints the canvas
+     */
+    public RenderScheduler(Runnable renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Requests a paint on the next pulse. Any number of requests before that pulse
+     * result in a single paint.
+     */
+    public void requestRender() {
+        requestCount++;
+        if (pending) {
+            return;
+        }
+        pending = true;
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flush();
+                }
+            };
+        }
+        timer.start();
+    }
+
+    /**
+     * Performs a pending paint immediately instead of waiting for the next pulse, e.g. before
+     * taking a snapshot of the canvas. Does nothing if no paint is pending.
+     */
+    public void flush() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        timer.stop();
+        renderCount++;
+        renderer.run();
+    }
+
+    /**
+     * Checks whether a paint has been requested and not yet performed.
+     *
+     * @return {@code true} if a paint is pending
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Returns the number of paints requested since creation.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of paints performed since creation. Compared with
+     * {@link #getRequestCount()}, it shows how many paints were coalesced.
+     *
+     * @return the number of paints
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.Rendering;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A display list kept as one small {@link DisplayList} fragment per element, so that a change to
+ * the model records only the elements it touched again.
+ *
+ * <p>Fragments belong to layers, which are replayed one after the other. Within a layer, the
+ * fragments are replayed by increasing order, e.g. the z-order of the boxes. A {@link Patch}
+ * puts, replaces and removes fragments; it can be recorded on any thread and is applied on the
+ * JavaFX Application Thread in one step, so that a replay never sees half of a change. Every
+ * element has at most one fragment, in any layer.</p>
+ *
+ * <p>A fragment may keep the immutable data it was recorded from, its source. When only the look
+ * of the elements changes, e.g. at another level of detail, the sources are recorded again
+ * without copying the model.</p>
+ *
+ * <p>The bounds of all fragments are kept up to date while patches are applied. They are only
+ * computed again from every fragment after a fragment on their edge was removed or moved
+ * inwards.</p>
+ */
+public class RetainedDisplayList {
+
+    /** Changes to the fragments of a retained display list, applied together. */
+    public static final class Patch {
+
+        /** Flag indicating whether the patch replaces every fragment. */
+        private final boolean replacesAll;
+
+        /** Fragments to put, or elements to remove, in the order they were added. */
+        private final List<Fragment> changes = new ArrayList<>();
+
+        /**
+         * Creates an empty patch.
+         *
+         * @param replacesAll whether applying the patch first removes every fragment
+         */
+        public Patch(boolean replacesAll) {
+            this.replacesAll = replacesAll;
+        }
+
+        /**
+         * Adds a fragment, replacing the one recorded for the same element before.
+         *
+         * @param layer    the layer of the element
+         * @param element  the element drawn by the fragment
+         * @param order    the position of the fragment within its layer
+         * @param fragment the recorded drawing of the element
+         * @param source   the immutable data the fragment was recorded from, or {@code null}
+         */
+        public void put(int layer, Object element, long order, DisplayList fragment, Object source) {
+            changes.add(new Fragment(layer, element, order, fragment, source));
+        }
+
+        /**
+         * Removes the fragment of an element, if there is one.
+         *
+         * @param layer   the layer of the element
+         * @param element the element no longer drawn
+         */
+        public void remove(int layer, Object element) {
+            changes.add(new Fragment(layer, element, 0, null, null));
+        }
+
+        /**
+         * Checks whether applying the patch first removes every fragment.
+         *
+         * @return {@code true} if the patch replaces the whole list
+         */
+        public boolean replacesAll() {
+            return replacesAll;
+        }
+
+        /**
+         * Returns the number of fragments put and removed by the patch.
+         *
+         * @return the number of changes
+         */
+        public int size() {
+            return changes.size();
+        }
+    }
+
+    /** The recording of one element, or the removal of an element within a patch. */
+    private static final class Fragment {
+
+        /** Layer of the element. */
+        final int layer;
+
+        /** The element drawn by the fragment. */
+        final Object element;
+
+        /** Position of the fragment within its layer. */
+        final long order;
+
+        /** The recorded drawing, or {@code null} if the element is removed. */
+        final DisplayList list;
+
+        /** The immutable data the drawing was recorded from, or {@code null}. */
+        final Object source;
+
+        /** Bounds of the drawing as {minX, minY, maxX, maxY}, or {@code null} if it has no elements. */
+        final double[] bounds;
+
+        Fragment(int layer, Object element, long order, DisplayList list, Object source) {
+            this.layer = layer;
+            this.element = element;
+            this.order = order;
+            this.list = list;
+            this.source = source;
+            this.bounds = list == null ? null : list.getBounds();
+        }
+    }
+
+    /** Fragments of every layer, by their order. */
+    private final List<TreeMap<Long, Fragment>> layers = new ArrayList<>();
+
+    /** Fragment of every element. */
+    private final Map<Object, Fragment> fragments = new HashMap<>();
+
+    /** Number of {@link DisplayList} elements in all fragments. */
+    private int elementCount;
+
+    /** Bounds of all fragments, or {@code null} if they have to be computed again. */
+    private double[] bounds;
+
+    /**
+     * Creates an empty retained display list.
+     *
+     * @param layerCount the number of layers
+     */
+    public RetainedDisplayList(int layerCount) {
+        for (int i = 0; i < layerCount; i++) {
+            layers.add(new TreeMap<>());
+        }
+        bounds = emptyBounds();
+    }
+
+    /**
+     * Applies a patch.
+     *
+     * @param patch the fragments to put and remove
+     */
+    public void apply(Patch patch) {
+        if (patch.replacesAll) {
+            clear();
+        }
+        for (Fragment change : patch.changes) {
+            remove(change.element);
+            if (change.list != null) {
+                put(change);
+            }
+        }
+    }
+
+    /**
+     * Removes every fragment.
+     */
+    public void clear() {
+        for (TreeMap<Long, Fragment> layer : layers) {
+            layer.clear();
+        }
+        fragments.clear();
+        elementCount = 0;
+        bounds = emptyBounds();
+    }
+
+    /**
+     * Returns the number of fragments.
+     *
+     * @return the number of elements drawn by the list
+     */
+    public int getFragmentCount() {
+        return fragments.size();
+    }
+
+    /**
+     * Returns the number of {@link DisplayList} elements in all fragments.
+     *
+     * @return the number of elements
+     */
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the bounds of all fragments together.
+     *
+     * @return the bounds as {minX, minY, maxX, maxY}, or {@code null} if nothing is drawn
+     */
+    public double[] getBounds() {
+        if (bounds == null) {
+            bounds = emptyBounds();
+            for (Fragment fragment : fragments.values()) {
+                include(fragment.bounds);
+            }
+        }
+        return bounds[0] > bounds[2] ? null : bounds.clone();
+    }
+
+    /**
+     * Returns the sources of the fragments of a layer, e.g. to record them again in another way.
+     * Only the references are copied.
+     *
+     * @param layer the layer
+     * @return the source of every fragment having one, by its element, in the order of the layer
+     */
+    public Map<Object, Object> getSources(int layer) {
+        Map<Object, Object> sources = new LinkedHashMap<>();
+        for (Fragment fragment : layers.get(layer).values()) {
+            if (fragment.source != null) {
+                sources.put(fragment.element, fragment.source);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Replays the fragments intersecting a region, layer by layer and in order within each layer.
+     * Elements with a key are drawn from their cached image.
+     *
+     * @param gc     the GraphicsContext to draw on, transformed to the coordinates of the recording
+     * @param region the region to draw, or {@code null} to draw every element; elements are
+     *               counted as drawn or culled by it
+     * @param cache  the cache holding images of keyed elements, or {@code null} to replay their operations
+     * @param scale  the zoom factor the GraphicsContext draws at, used to render cached images
+     * @see DisplayList#replay(GraphicsContext, VisibleRegion, ElementImageCache, double)
+     */
+    public void replay(GraphicsContext gc, VisibleRegion region, ElementImageCache<Object> cache, double scale) {
+        for (TreeMap<Long, Fragment> layer : layers) {
+            for (Fragment fragment : layer.values()) {
+                fragment.list.replay(gc, region, cache, scale);
+            }
+        }
+    }
+
+    /**
+     * Adds a fragment, replacing another element's fragment at the same order.
+     */
+    private void put(Fragment fragment) {
+        Fragment replaced = layers.get(fragment.layer).put(fragment.order, fragment);
+        if (replaced != null) {
+            fragments.remove(replaced.element);
+            forget(replaced);
+        }
+        fragments.put(fragment.element, fragment);
+        elementCount += fragment.list.getElementCount();
+        if (bounds != null) {
+            include(fragment.bounds);
+        }
+    }
+
+    /**
+     * Removes the fragment of an element, if there is one.
+     */
+    private void remove(Object element) {
+        Fragment fragment = fragments.remove(element);
+        if (fragment != null) {
+            layers.get(fragment.layer).remove(fragment.order);
+            forget(fragment);
+        }
+    }
+
+    /**
+     * Updates the element count and bounds for a fragment that was taken out of its layer.
+     */
+    private void forget(Fragment fragment) {
+        elementCount -= fragment.list.getElementCount();
+        double[] removed = fragment.bounds;
+        if (bounds != null && removed != null && (removed[0] <= bounds[0] || removed[1] <= bounds[1]
+                || removed[2] >= bounds[2] || removed[3] >= bounds[3])) {
+            bounds = null; // The bounds may shrink
+        }
+    }
+
+    /**
+     * Extends the {@link #bounds} by the bounds of a fragment.
+     */
+    private void include(double[] fragmentBounds) {
+        if (fragmentBounds == null) {
+            return;
+        }
+        bounds[0] = Math.min(bounds[0], fragmentBounds[0]);
+        bounds[1] = Math.min(bounds[1], fragmentBounds[1]);
+        bounds[2] = Math.max(bounds[2], fragmentBounds[2]);
+        bounds[3] = Math.max(bounds[3], fragmentBounds[3]);
+    }
+
+    /**
+     * Returns bounds containing nothing, which any fragment extends.
+     */
+    private static double[] emptyBounds() {
+        return new double[]{Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    }
+}
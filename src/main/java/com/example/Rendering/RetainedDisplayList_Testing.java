@@ -0,0 +1,141 @@
+package com.example.Rendering;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetainedDisplayList_Testing {
+    private RetainedDisplayList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new RetainedDisplayList(2);
+    }
+
+    /**
+     * Records a fragment holding one rectangle as one element.
+     */
+    private static DisplayList fragment(double minX, double minY, double maxX, double maxY) {
+        DisplayList fragment = new DisplayList();
+        fragment.beginElement(null, minX, minY, maxX, maxY);
+        fragment.fillRect(minX, minY, maxX - minX, maxY - minY);
+        fragment.endElement();
+        fragment.trimToSize();
+        return fragment;
+    }
+
+    @Test
+    void testPutReplacesTheFragmentOfAnElement() {
+        RetainedDisplayList.Patch patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "a", 1, fragment(0, 0, 10, 10), null);
+        patch.put(1, "group", 7, fragment(5, 5, 50, 50), null);
+        list.apply(patch);
+        assertEquals(2, list.getFragmentCount());
+        assertArrayEquals(new double[]{0, 0, 50, 50}, list.getBounds());
+
+        // Moved to another position in the drawing order
+        patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "a", 2, fragment(100, 100, 110, 110), null);
+        list.apply(patch);
+        assertEquals(2, list.getFragmentCount());
+        assertEquals(2, list.getElementCount());
+        assertArrayEquals(new double[]{5, 5, 110, 110}, list.getBounds(), "The old bounds of the element must be forgotten.");
+    }
+
+    @Test
+    void testRemoveShrinksTheBounds() {
+        RetainedDisplayList.Patch patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "a", 1, fragment(0, 0, 10, 10), null);
+        patch.put(0, "b", 2, fragment(20, 20, 30, 30), null);
+        patch.put(0, "c", 3, fragment(-500, 5, 8, 9), null);
+        list.apply(patch);
+        assertArrayEquals(new double[]{-500, 0, 30, 30}, list.getBounds());
+
+        patch = new RetainedDisplayList.Patch(false);
+        patch.remove(0, "c");
+        patch.remove(0, "unknown");
+        list.apply(patch);
+        assertEquals(2, list.getFragmentCount());
+        assertArrayEquals(new double[]{0, 0, 30, 30}, list.getBounds());
+
+        patch = new RetainedDisplayList.Patch(false);
+        patch.remove(0, "a");
+        patch.remove(0, "b");
+        list.apply(patch);
+        assertEquals(0, list.getFragmentCount());
+        assertEquals(0, list.getElementCount());
+        assertNull(list.getBounds(), "An empty list has no bounds.");
+    }
+
+    @Test
+    void testSameOrderReplacesAnotherElement() {
+        RetainedDisplayList.Patch patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "deleted", 5, fragment(0, 0, 10, 10), null);
+        list.apply(patch);
+
+        // A new element takes the order of a deleted one before the deletion is applied
+        patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "created", 5, fragment(40, 40, 50, 50), null);
+        patch.remove(0, "deleted");
+        list.apply(patch);
+
+        assertEquals(1, list.getFragmentCount());
+        assertArrayEquals(new double[]{40, 40, 50, 50}, list.getBounds());
+    }
+
+    @Test
+    void testPatchReplacingAllClearsFirst() {
+        RetainedDisplayList.Patch patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "a", 1, fragment(0, 0, 10, 10), null);
+        patch.put(1, "group", 1, fragment(0, 0, 100, 100), null);
+        list.apply(patch);
+
+        patch = new RetainedDisplayList.Patch(true);
+        patch.put(0, "b", 1, fragment(20, 20, 30, 30), null);
+        assertTrue(patch.replacesAll());
+        assertEquals(1, patch.size());
+        list.apply(patch);
+
+        assertEquals(1, list.getFragmentCount());
+        assertArrayEquals(new double[]{20, 20, 30, 30}, list.getBounds());
+    }
+
+    @Test
+    void testSourcesAreKeptInTheOrderOfTheLayer() {
+        RetainedDisplayList.Patch patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "top", 9, fragment(0, 0, 10, 10), "top source");
+        patch.put(0, "bottom", -3, fragment(0, 0, 10, 10), "bottom source");
+        patch.put(0, "plain", 4, fragment(0, 0, 10, 10), null);
+        patch.put(1, "group", 0, fragment(0, 0, 10, 10), "group source");
+        list.apply(patch);
+
+        assertEquals(List.of("bottom", "top"), new ArrayList<>(list.getSources(0).keySet()));
+        assertEquals(List.of("bottom source", "top source"), new ArrayList<>(list.getSources(0).values()));
+        assertEquals(Map.of("group", "group source"), list.getSources(1));
+
+        // Replaced and removed fragments take their sources with them
+        patch = new RetainedDisplayList.Patch(false);
+        patch.put(0, "top", 9, fragment(0, 0, 10, 10), "new source");
+        patch.remove(0, "bottom");
+        list.apply(patch);
+        assertEquals(Map.of("top", "new source"), list.getSources(0));
+    }
+
+    @Test
+    void testTrimmedFragmentKeepsRecording() {
+        DisplayList fragment = fragment(0, 0, 10, 10);
+        fragment.beginElement("key", 20, 20, 30, 30);
+        fragment.setLineWidth(2);
+        fragment.strokeRect(20, 20, 10, 10);
+        fragment.endElement();
+
+        assertEquals(2, fragment.getElementCount());
+        assertEquals(3, fragment.getOperationCount());
+        assertArrayEquals(new double[]{0, 0, 30, 30}, fragment.getBounds());
+    }
+}
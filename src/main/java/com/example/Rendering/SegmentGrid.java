@@ -0,0 +1,168 @@
+package com.example.Rendering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid over the segments of polylines, used to find the lines passing near the mouse
+ * without testing every segment of the model.
+ *
+ * <p>The world is divided into square cells of {@link #CELL_SIZE} world units. A polyline is
+ * registered in every cell that lies within the tolerance of one of its segments, so that the
+ * cell under the mouse already lists every line that may be close enough to be hit. Looking up
+ * a point costs a single hash lookup, whatever the number of segments in the model; the exact
+ * distance test is then done by the caller on the few candidates.</p>
+ *
+ * <p>Polylines are compared by identity and registered again as a whole whenever their points
+ * change.</p>
+ *
+ * @param <T> the type of the indexed polylines
+ */
+public class SegmentGrid<T> {
+
+    /** Width and height of a cell in world units. */
+    public static final double CELL_SIZE = 64;
+
+    /** Largest distance from a segment at which a point still finds the polyline. */
+    private final double tolerance;
+
+    /** Polylines registered in every non-empty cell. */
+    private final Map<Long, List<T>> cells = new HashMap<>();
+
+    /** Cells every polyline is registered in, for removals. */
+    private final Map<T, Set<Long>> cellsOf = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param tolerance the largest distance from a segment at which a point still finds the polyline
+     */
+    public SegmentGrid(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Registers a polyline, replacing its previous points if it is already registered.
+     *
+     * @param item   the polyline
+     * @param points its points as {x, y} pairs, in order
+     */
+    public void put(T item, List<double[]> points) {
+        remove(item);
+        Set<Long> occupied = new HashSet<>();
+        cellsOf.put(item, occupied);
+
+        // Sample every segment at half a cell; every point within the tolerance of the segment is
+        // then within the tolerance plus a quarter of a cell of a sample, in every direction
+        double step = CELL_SIZE / 2;
+        double reach = tolerance + step / 2;
+        for (int i = 0; i < points.size() - 1; i++) {
+            double[] start = points.get(i);
+            double[] end = points.get(i + 1);
+            double dx = end[0] - start[0];
+            double dy = end[1] - start[1];
+            int samples = (int) Math.ceil(Math.sqrt(dx * dx + dy * dy) / step);
+            for (int s = 0; s <= samples; s++) {
+                double t = samples == 0 ? 0 : (double) s / samples;
+                addCells(item, occupied, start[0] + t * dx, start[1] + t * dy, reach);
+            }
+        }
+    }
+
+    /**
+     * Removes a polyline.
+     *
+     * @param item the polyline
+     * @return {@code true} if the polyline was registered
+     */
+    public boolean remove(T item) {
+        Set<Long> occupied = cellsOf.remove(item);
+        if (occupied == null) {
+            return false;
+        }
+        for (Long key : occupied) {
+            List<T> items = cells.get(key);
+            items.remove(item);
+            if (items.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a polyline is registered.
+     *
+     * @param item the polyline
+     * @return {@code true} if the polyline is registered
+     */
+    public boolean contains(T item) {
+        return cellsOf.containsKey(item);
+    }
+
+    /**
+     * Removes every polyline.
+     */
+    public void clear() {
+        cells.clear();
+        cellsOf.clear();
+    }
+
+    /**
+     * Returns the number of registered polylines.
+     *
+     * @return the number of polylines
+     */
+    public int size() {
+        return cellsOf.size();
+    }
+
+    /**
+     * Returns the polylines that may pass within the tolerance of a point. The caller still has
+     * to test the distance exactly.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the candidates, in registration order; must not be modified
+     */
+    public List<T> candidatesNear(double x, double y) {
+        List<T> items = cells.get(cellKey(cell(x), cell(y)));
+        return items == null ? Collections.emptyList() : items;
+    }
+
+    /**
+     * Registers a polyline in every cell intersecting a square around a point.
+     */
+    private void addCells(T item, Set<Long> occupied, double x, double y, double reach) {
+        long minColumn = cell(x - reach), maxColumn = cell(x + reach);
+        long minRow = cell(y - reach), maxRow = cell(y + reach);
+        for (long column = minColumn; column <= maxColumn; column++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                long key = cellKey(column, row);
+                if (occupied.add(key)) {
+                    cells.computeIfAbsent(key, k -> new ArrayList<>(2)).add(item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the column or row of the cell containing a coordinate.
+     */
+    private static long cell(double coordinate) {
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    /**
+     * Packs the column and row of a cell into one key.
+     */
+    private static long cellKey(long column, long row) {
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
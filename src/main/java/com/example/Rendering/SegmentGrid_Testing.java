@@ -0,0 +1,143 @@
+package com.example.Rendering;
+
+import com.example.ClassDiagram.Controller;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentGrid_Testing {
+    private static final double TOLERANCE = 15;
+
+    private SegmentGrid<String> grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new SegmentGrid<>(TOLERANCE);
+    }
+
+    @Test
+    void testPointAtTheToleranceIsACandidate() {
+        // A horizontal segment ending right before a cell boundary
+        grid.put("line", List.of(new double[]{10, 49}, new double[]{300, 49}));
+
+        // Exactly at the tolerance above, below and past both ends, across cell boundaries
+        assertTrue(grid.candidatesNear(100, 49 + TOLERANCE).contains("line"));
+        assertTrue(grid.candidatesNear(100, 49 - TOLERANCE).contains("line"));
+        assertTrue(grid.candidatesNear(10 - TOLERANCE, 49).contains("line"));
+        assertTrue(grid.candidatesNear(300 + TOLERANCE, 49).contains("line"));
+        double diagonal = TOLERANCE / Math.sqrt(2);
+        assertTrue(grid.candidatesNear(300 + diagonal, 49 + diagonal).contains("line"));
+
+        // Two cells away the line is never a candidate
+        assertTrue(grid.candidatesNear(100, 49 + TOLERANCE + 2 * SegmentGrid.CELL_SIZE).isEmpty());
+    }
+
+    @Test
+    void testLongSegmentsFillEveryCellAlongThem() {
+        // Long, steep and diagonal segments, sampled at half a cell
+        grid.put("diagonal", List.of(new double[]{-5000, -4000}, new double[]{7000, 9000}));
+        grid.put("steep", List.of(new double[]{1000, -10000}, new double[]{1003, 10000}));
+        grid.put("polyline", List.of(new double[]{0, 0}, new double[]{4000, 30}, new double[]{4100, 6000}));
+
+        assertEveryNearPointFindsItsLine(List.of(new double[]{-5000, -4000}, new double[]{7000, 9000}), "diagonal");
+        assertEveryNearPointFindsItsLine(List.of(new double[]{1000, -10000}, new double[]{1003, 10000}), "steep");
+        assertEveryNearPointFindsItsLine(List.of(new double[]{0, 0}, new double[]{4000, 30}, new double[]{4100, 6000}), "polyline");
+    }
+
+    @Test
+    void testNoLineWithinTheToleranceIsMissed() {
+        Random random = new Random(7);
+        List<List<double[]>> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<double[]> points = new ArrayList<>();
+            for (int p = 0, count = 2 + random.nextInt(3); p < count; p++) {
+                points.add(new double[]{random.nextDouble() * 3000, random.nextDouble() * 3000});
+            }
+            lines.add(points);
+            grid.put(String.valueOf(i), points);
+        }
+
+        for (int q = 0; q < 20000; q++) {
+            double x = random.nextDouble() * 3000;
+            double y = random.nextDouble() * 3000;
+            List<String> candidates = grid.candidatesNear(x, y);
+            for (int i = 0; i < lines.size(); i++) {
+                if (distanceSquared(x, y, lines.get(i)) <= TOLERANCE * TOLERANCE) {
+                    assertTrue(candidates.contains(String.valueOf(i)), "Line " + i + " missed at " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSquaredDistanceHitTest() {
+        // Perpendicular to the segment, past its ends and on a segment of length zero
+        assertEquals(100, Controller.pointToSegmentDistanceSquared(50, 10, 0, 0, 100, 0));
+        assertEquals(25, Controller.pointToSegmentDistanceSquared(-3, 4, 0, 0, 100, 0));
+        assertEquals(25, Controller.pointToSegmentDistanceSquared(103, -4, 0, 0, 100, 0));
+        assertEquals(25, Controller.pointToSegmentDistanceSquared(3, 4, 0, 0, 0, 0));
+        assertEquals(0, Controller.pointToSegmentDistanceSquared(50, 50, 0, 0, 100, 100), 1e-9);
+
+        // A candidate of the grid is only hit within the tolerance
+        grid.put("line", List.of(new double[]{0, 0}, new double[]{100, 0}));
+        double toleranceSquared = TOLERANCE * TOLERANCE;
+        assertTrue(grid.candidatesNear(50, 14).contains("line"));
+        assertTrue(Controller.pointToSegmentDistanceSquared(50, 14, 0, 0, 100, 0) < toleranceSquared);
+        assertTrue(grid.candidatesNear(50, 20).contains("line"), "The grid may return lines slightly too far away.");
+        assertFalse(Controller.pointToSegmentDistanceSquared(50, 20, 0, 0, 100, 0) < toleranceSquared);
+    }
+
+    @Test
+    void testPutReplacesAndRemoveForgetsTheLine() {
+        grid.put("line", List.of(new double[]{0, 0}, new double[]{100, 0}));
+        grid.put("line", List.of(new double[]{0, 1000}, new double[]{100, 1000}));
+
+        assertEquals(1, grid.size());
+        assertFalse(grid.candidatesNear(50, 0).contains("line"), "The old points must be forgotten.");
+        assertTrue(grid.candidatesNear(50, 1000).contains("line"));
+
+        assertTrue(grid.remove("line"));
+        assertFalse(grid.remove("line"));
+        assertFalse(grid.contains("line"));
+        assertTrue(grid.candidatesNear(50, 1000).isEmpty());
+    }
+
+    /**
+     * Checks the points around a polyline, at and within the tolerance of each of its segments.
+     */
+    private void assertEveryNearPointFindsItsLine(List<double[]> points, String line) {
+        for (int i = 0; i < points.size() - 1; i++) {
+            double[] start = points.get(i);
+            double[] end = points.get(i + 1);
+            double length = Math.hypot(end[0] - start[0], end[1] - start[1]);
+            double normalX = -(end[1] - start[1]) / length;
+            double normalY = (end[0] - start[0]) / length;
+            for (double t = 0; t <= 1; t += 1 / length) {
+                double x = start[0] + t * (end[0] - start[0]);
+                double y = start[1] + t * (end[1] - start[1]);
+                for (double offset : new double[]{-TOLERANCE, -TOLERANCE / 2, 0, TOLERANCE / 2, TOLERANCE}) {
+                    assertTrue(grid.candidatesNear(x + offset * normalX, y + offset * normalY).contains(line),
+                            line + " missed at " + (x + offset * normalX) + ", " + (y + offset * normalY));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the squared distance from a point to the nearest segment of a polyline.
+     */
+    private static double distanceSquared(double x, double y, List<double[]> points) {
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < points.size() - 1; i++) {
+            double[] start = points.get(i);
+            double[] end = points.get(i + 1);
+            nearest = Math.min(nearest, Controller.pointToSegmentDistanceSquared(x, y, start[0], start[1], end[0], end[1]));
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.Rendering;
+
+import javafx.geometry.Bounds;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of measured text sizes, shared by the class diagram and use case diagram editors.
+ *
+ * <p>Measuring a string in JavaFX requires a {@link Text} node and a layout pass. Both editors used
+ * to create a new node for the class name, every attribute and every operation on every redraw,
+ * although the texts rarely change. This cache measures each combination of font and string once,
+ * with a single reused {@link Text} node, and keeps the result until it becomes one of the least
+ * recently used entries and the cache is full.</p>
+ *
+ * <p>The number of hits and misses is counted, so the effectiveness of the cache can be checked.</p>
+ */
+public class TextMeasureCache {
+
+    /** Number of entries kept by the shared cache. */
+    public static final int DEFAULT_CAPACITY = 2048;
+
+    /** Cache instance shared by both editors. */
+    private static final TextMeasureCache SHARED = new TextMeasureCache(DEFAULT_CAPACITY);
+
+    /** Maximum number of measured strings kept in the cache. */
+    private final int capacity;
+
+    /** Measured sizes as {width, height}, in least recently used order. */
+    private final LinkedHashMap<Key, double[]> entries;
+
+    /** Node reused for every measurement. */
+    private final Text helper = new Text();
+
+    /** Number of lookups answered from the cache. */
+    private long hits = 0;
+
+    /** Number of lookups that required a measurement. */
+    private long misses = 0;
+
+    /**
+     * Creates a cache keeping at most the given number of measured strings.
+     *
+     * @param capacity the maximum number of entries, at least 1
+     */
+    public TextMeasureCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+                return size() > TextMeasureCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by both editors.
+     *
+     * @return the shared cache
+     */
+    public static TextMeasureCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the width of a string rendered with the given font.
+     *
+     * @param text the string to measure; {@code null} is treated as an empty string
+     * @param font the font used for rendering
+     * @return the width in pixels
+     */
+    public double getWidth(String text, Font font) {
+        return measure(text, font)[0];
+    }
+
+    /**
+     * Returns the height of a string rendered with the given font.
+     *
+     * @param text the string to measure; {@code null} is treated as an empty string
+     * @param font the font used for rendering
+     * @return the height in pixels
+     */
+    public double getHeight(String text, Font font) {
+        return measure(text, font)[1];
+    }
+
+    /**
+     * Returns the width and height of a string rendered with the given font, measuring it
+     * only if it is not cached yet.
+     *
+     * @param text the string to measure; {@code null} is treated as an empty string
+     * @param font the font used for rendering; {@code null} means the default font
+     * @return the size as {width, height}; the array must not be modified
+     */
+    public synchronized double[] measure(String text, Font font) {
+        Key key = new Key(text == null ? "" : text, font == null ? Font.getDefault() : font);
+        double[] size = entries.get(key);
+        if (size != null) {
+            hits++;
+            return size;
+        }
+
+        misses++;
+        helper.setFont(key.font);
+        helper.setText(key.text);
+        Bounds bounds = helper.getLayoutBounds();
+        size = new double[]{bounds.getWidth(), bounds.getHeight()};
+        entries.put(key, size);
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits since creation or the last {@link #resetStatistics()}
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that required a measurement.
+     *
+     * @return the number of misses since creation or the last {@link #resetStatistics()}
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of measured strings currently cached.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the maximum number of measured strings kept in the cache.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Resets the hit and miss counters without discarding cached sizes.
+     */
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Discards all cached sizes.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Cache key combining a string with the font it is rendered in.
+     */
+    private static final class Key {
+        final String text;
+        final Font font;
+        final int hash;
+
+        Key(String text, Font font) {
+            this.text = text;
+            this.font = font;
+            this.hash = 31 * text.hashCode() + font.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && text.equals(other.text) && Objects.equals(font, other.font);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
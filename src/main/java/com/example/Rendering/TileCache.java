@@ -0,0 +1,229 @@
+package com.example.Rendering;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Screen;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders an unbounded world in fixed-size tiles and keeps the rendered tiles as images.
+ *
+ * <p>The world is divided into squares that cover {@link #TILE_SIZE} screen pixels at the current
+ * zoom factor. Painting the view only renders the tiles that are visible and not cached yet; all
+ * other tiles are copied with a single {@code drawImage} call each. Changing an element only
+ * invalidates the tiles it touches. The number of cached tiles is bounded, the least recently
+ * used ones being discarded first, so memory use depends on the size of the viewport rather
+ * than on the extent of the model.</p>
+ *
+ * <p>Tiles are transparent, so a background such as the grid can be drawn below them.</p>
+ */
+public class TileCache {
+
+    /** Paints the part of the world inside a rectangle onto a GraphicsContext set up in world coordinates. */
+    public interface TileRenderer {
+
+        /**
+         * Draws every element intersecting the given world rectangle.
+         *
+         * @param gc   the GraphicsContext to draw on, already transformed to world coordinates
+         * @param minX the left edge of the rectangle in world coordinates
+         * @param minY the top edge of the rectangle in world coordinates
+         * @param maxX the right edge of the rectangle in world coordinates
+         * @param maxY the bottom edge of the rectangle in world coordinates
+         */
+        void render(GraphicsContext gc, double minX, double minY, double maxX, double maxY);
+    }
+
+    /** Width and height of a tile in screen pixels. */
+    public static final int TILE_SIZE = 256;
+
+    /** Default maximum number of cached tiles, enough for a 4K viewport. */
+    public static final int DEFAULT_MAX_TILES = 192;
+
+    /** Maximum number of cached tiles. */
+    private final int maxTiles;
+
+    /** Rendered tiles keyed by their column and row, in least recently used order. */
+    private final LinkedHashMap<Long, WritableImage> tiles;
+
+    /** Zoom factor the cached tiles were rendered at. */
+    private double scale = 1;
+
+    /** Offscreen canvas reused to render every tile. */
+    private Canvas tileCanvas;
+
+    /** Number of tiles rendered since creation, useful to verify the caching. */
+    private long renderCount = 0;
+
+    /**
+     * Creates a tile cache keeping at most {@link #DEFAULT_MAX_TILES} tiles.
+     */
+    public TileCache() {
+        this(DEFAULT_MAX_TILES);
+    }
+
+    /**
+     * Creates a tile cache keeping at most the given number of tiles.
+     *
+     * @param maxTiles the maximum number of cached tiles
+     */
+    public TileCache(int maxTiles) {
+        this.maxTiles = maxTiles;
+        this.tiles = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+                return size() > TileCache.this.maxTiles;
+            }
+        };
+    }
+
+    /**
+     * Discards every cached tile.
+     */
+    public void invalidateAll() {
+        tiles.clear();
+    }
+
+    /**
+     * Discards the cached tiles intersecting a world rectangle.
+     *
+     * @param minX the left edge in world coordinates
+     * @param minY the top edge in world coordinates
+     * @param maxX the right edge in world coordinates
+     * @param maxY the bottom edge in world coordinates
+     */
+    public void invalidate(double minX, double minY, double maxX, double maxY) {
+        double tileWorldSize = TILE_SIZE / scale;
+        long firstColumn = (long) Math.floor(minX / tileWorldSize);
+        long lastColumn = (long) Math.floor(maxX / tileWorldSize);
+        long firstRow = (long) Math.floor(minY / tileWorldSize);
+        long lastRow = (long) Math.floor(maxY / tileWorldSize);
+
+        // A large rectangle may cover far more tiles than are cached
+        if ((lastColumn - firstColumn + 1) * (lastRow - firstRow + 1) > tiles.size()) {
+            Iterator<Long> keys = tiles.keySet().iterator();
+            while (keys.hasNext()) {
+                long key = keys.next();
+                long column = key >> 32;
+                long row = (int) key;
+                if (column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow) {
+                    keys.remove();
+                }
+            }
+        } else {
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                for (long row = firstRow; row <= lastRow; row++) {
+                    tiles.remove(key(column, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the visible part of the world, rendering missing tiles on the way.
+     *
+     * @param gc             the GraphicsContext of the canvas showing the view, in screen coordinates
+     * @param view           the transform between world and screen coordinates
+     * @param viewportWidth  the width of the canvas
+     * @param viewportHeight the height of the canvas
+     * @param renderer       draws the elements of a tile that is not cached
+     */
+    public void paint(GraphicsContext gc, ViewTransform view, double viewportWidth, double viewportHeight,
+                      TileRenderer renderer) {
+        // Tiles rendered at another zoom factor have the wrong resolution
+        if (view.getScale() != scale) {
+            scale = view.getScale();
+            tiles.clear();
+        }
+
+        double tileWorldSize = TILE_SIZE / scale;
+        double[] visible = view.getVisibleWorldBounds(viewportWidth, viewportHeight);
+        long firstColumn = (long) Math.floor(visible[0] / tileWorldSize);
+        long lastColumn = (long) Math.floor(visible[2] / tileWorldSize);
+        long firstRow = (long) Math.floor(visible[1] / tileWorldSize);
+        long lastRow = (long) Math.floor(visible[3] / tileWorldSize);
+
+        for (long column = firstColumn; column <= lastColumn; column++) {
+            for (long row = firstRow; row <= lastRow; row++) {
+                long key = key(column, row);
+                WritableImage tile = tiles.get(key);
+                if (tile == null) {
+                    tile = renderTile(column * tileWorldSize, row * tileWorldSize, tileWorldSize, renderer);
+                    tiles.put(key, tile);
+                }
+
+                // Tiles start at whole pixels, as the translation of the view is rounded
+                double screenX = Math.round(view.worldToScreenX(column * tileWorldSize));
+                double screenY = Math.round(view.worldToScreenY(row * tileWorldSize));
+                gc.drawImage(tile, screenX, screenY, TILE_SIZE, TILE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tiles currently cached.
+     *
+     * @return the number of cached tiles
+     */
+    public int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns how many tiles have been rendered.
+     *
+     * @return the number of tiles rendered since creation
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+
+    /**
+     * Renders one tile into an image.
+     *
+     * @param minX          the left edge of the tile in world coordinates
+     * @param minY          the top edge of the tile in world coordinates
+     * @param tileWorldSize the width and height of the tile in world coordinates
+     * @param renderer      draws the elements of the tile
+     * @return the rendered tile
+     */
+    private WritableImage renderTile(double minX, double minY, double tileWorldSize, TileRenderer renderer) {
+        if (tileCanvas == null) {
+            tileCanvas = new Canvas(TILE_SIZE, TILE_SIZE);
+        }
+        GraphicsContext gc = tileCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, TILE_SIZE, TILE_SIZE);
+
+        gc.save();
+        gc.setTransform(scale, 0, 0, scale, -minX * scale, -minY * scale);
+        renderer.render(gc, minX, minY, minX + tileWorldSize, minY + tileWorldSize);
+        gc.restore();
+
+        // Render at the output scale of the screen so the tiles stay sharp on HiDPI displays
+        double outputScale = Screen.getPrimary().getOutputScaleX();
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(Transform.scale(outputScale, outputScale));
+        int pixels = (int) Math.ceil(TILE_SIZE * outputScale);
+        renderCount++;
+        return tileCanvas.snapshot(parameters, new WritableImage(pixels, pixels));
+    }
+
+    /**
+     * Combines the column and row of a tile into a key.
+     *
+     * @param column the column of the tile
+     * @param row    the row of the tile
+     * @return the key
+     */
+    private static long key(long column, long row) {
+        return (column << 32) | (row & 0xFFFFFFFFL);
+    }
+}
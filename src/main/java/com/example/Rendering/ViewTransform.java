@@ -0,0 +1,165 @@
+package com.example.Rendering;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Maps between world coordinates, in which the elements of a diagram are stored, and screen
+ * coordinates of the canvas showing it.
+ *
+ * <p>The world is unbounded: elements may be placed at any coordinate, including negative ones.
+ * The canvas shows a window onto it, defined by a zoom factor and a translation:</p>
+ * <pre>
+ *     screenX = worldX * scale + translateX
+ *     screenY = worldY * scale + translateY
+ * </pre>
+ *
+ * <p>The translation is always kept at whole screen pixels, so that images drawn at world
+ * positions aligned to the zoom factor, such as rendering tiles, never fall between pixels.</p>
+ */
+public class ViewTransform {
+
+    /** Smallest allowed zoom factor. */
+    private final double minScale;
+
+    /** Largest allowed zoom factor. */
+    private final double maxScale;
+
+    /** Current zoom factor, 1 meaning one world unit per screen pixel. */
+    private double scale = 1;
+
+    /** Screen position of the world origin. */
+    private double translateX = 0, translateY = 0;
+
+    /**
+     * Creates a view transform without zoom or translation.
+     *
+     * @param minScale the smallest allowed zoom factor
+     * @param maxScale the largest allowed zoom factor
+     */
+    public ViewTransform(double minScale, double maxScale) {
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+    }
+
+    /**
+     * Returns the current zoom factor.
+     *
+     * @return the zoom factor
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the horizontal screen position of the world origin.
+     *
+     * @return the translation along the x-axis, in screen pixels
+     */
+    public double getTranslateX() {
+        return translateX;
+    }
+
+    /**
+     * Returns the vertical screen position of the world origin.
+     *
+     * @return the translation along the y-axis, in screen pixels
+     */
+    public double getTranslateY() {
+        return translateY;
+    }
+
+    /**
+     * Converts a horizontal screen coordinate into a world coordinate.
+     *
+     * @param screenX the x-coordinate on the canvas
+     * @return the x-coordinate in the world
+     */
+    public double screenToWorldX(double screenX) {
+        return (screenX - translateX) / scale;
+    }
+
+    /**
+     * Converts a vertical screen coordinate into a world coordinate.
+     *
+     * @param screenY the y-coordinate on the canvas
+     * @return the y-coordinate in the world
+     */
+    public double screenToWorldY(double screenY) {
+        return (screenY - translateY) / scale;
+    }
+
+    /**
+     * Converts a horizontal world coordinate into a screen coordinate.
+     *
+     * @param worldX the x-coordinate in the world
+     * @return the x-coordinate on the canvas
+     */
+    public double worldToScreenX(double worldX) {
+        return worldX * scale + translateX;
+    }
+
+    /**
+     * Converts a vertical world coordinate into a screen coordinate.
+     *
+     * @param worldY the y-coordinate in the world
+     * @return the y-coordinate on the canvas
+     */
+    public double worldToScreenY(double worldY) {
+        return worldY * scale + translateY;
+    }
+
+    /**
+     * Moves the view by the given distance on screen.
+     *
+     * @param dx the horizontal distance in screen pixels
+     * @param dy the vertical distance in screen pixels
+     */
+    public void pan(double dx, double dy) {
+        translateX = Math.round(translateX + dx);
+        translateY = Math.round(translateY + dy);
+    }
+
+    /**
+     * Changes the zoom factor while keeping the world point under the given screen position
+     * in place. The factor is clamped to the allowed range.
+     *
+     * @param factor  the factor to multiply the zoom factor with
+     * @param screenX the x-coordinate on the canvas that stays in place
+     * @param screenY the y-coordinate on the canvas that stays in place
+     * @return {@code true} if the zoom factor changed
+     */
+    public boolean zoomAt(double factor, double screenX, double screenY) {
+        double newScale = Math.max(minScale, Math.min(scale * factor, maxScale));
+        if (newScale == scale) {
+            return false;
+        }
+        double worldX = screenToWorldX(screenX);
+        double worldY = screenToWorldY(screenY);
+        scale = newScale;
+        translateX = Math.round(screenX - worldX * scale);
+        translateY = Math.round(screenY - worldY * scale);
+        return true;
+    }
+
+    /**
+     * Returns the world rectangle shown by a viewport of the given size.
+     *
+     * @param viewportWidth  the width of the canvas in screen pixels
+     * @param viewportHeight the height of the canvas in screen pixels
+     * @return the bounds as {minX, minY, maxX, maxY} in world coordinates
+     */
+    public double[] getVisibleWorldBounds(double viewportWidth, double viewportHeight) {
+        return new double[]{screenToWorldX(0), screenToWorldY(0),
+                screenToWorldX(viewportWidth), screenToWorldY(viewportHeight)};
+    }
+
+    /**
+     * Makes a GraphicsContext draw in world coordinates. Callers should {@code save()} the
+     * context before and {@code restore()} it afterwards.
+     *
+     * @param gc the GraphicsContext of a canvas showing this view
+     */
+    public void apply(GraphicsContext gc) {
+        gc.setTransform(scale, 0, 0, scale, translateX, translateY);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.Rendering;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+/**
+ * The part of a diagram canvas that is currently visible, used to skip drawing elements
+ * that lie completely outside of it.
+ *
+ * <p>The class diagram editor sets the region to the part of the world shown at the current
+ * zoom and pan, or to the bounds of the tile being rendered. The use-case editor has no zoom; it
+ * sets the region to the part of its canvas actually shown on screen, see
+ * {@link #setToShownPartOf(Node)}. Both then ask {@link #isVisible(double, double, double, double)}
+ * for every element before drawing it. Elements whose bounds do not intersect the region are
+ * culled.</p>
+ *
+ * <p>The number of drawn and culled elements of the last paint is counted, so the effect of
+ * the culling can be inspected.</p>
+ */
+public class VisibleRegion {
+
+    /** Bounds of the visible region in canvas coordinates. */
+    private double minX, minY, maxX = Double.MAX_VALUE, maxY = Double.MAX_VALUE;
+
+    /** Number of elements drawn since the last {@link #resetCounts()}. */
+    private int drawnCount = 0;
+
+    /** Number of elements skipped since the last {@link #resetCounts()}. */
+    private int culledCount = 0;
+
+    /**
+     * Sets the bounds of the visible region.
+     *
+     * @param minX the left edge in canvas coordinates
+     * @param minY the top edge in canvas coordinates
+     * @param maxX the right edge in canvas coordinates
+     * @param maxY the bottom edge in canvas coordinates
+     */
+    public void set(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Sets the region to the part of a node actually shown on screen, in the coordinates of the
+     * node: its bounds, cut down to the clips of the node and of its ancestors, such as the
+     * content of a split pane, and to the size of the scene. Nothing is visible if the node is
+     * completely hidden.
+     *
+     * <p>A node that is not part of a scene yet is considered visible as a whole.</p>
+     *
+     * @param node the node, e.g. a canvas drawn in its own coordinates
+     */
+    public void setToShownPartOf(Node node) {
+        Bounds bounds = node.getLayoutBounds();
+        Scene scene = node.getScene();
+        if (scene == null) {
+            set(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+            return;
+        }
+
+        // Intersect in scene coordinates, starting with the window
+        Bounds shown = node.localToScene(bounds);
+        double shownMinX = Math.max(shown.getMinX(), 0);
+        double shownMinY = Math.max(shown.getMinY(), 0);
+        double shownMaxX = Math.min(shown.getMaxX(), scene.getWidth());
+        double shownMaxY = Math.min(shown.getMaxY(), scene.getHeight());
+        for (Node current = node; current != null; current = current.getParent()) {
+            if (current.getClip() != null) {
+                Bounds clip = current.localToScene(current.getClip().getBoundsInParent());
+                shownMinX = Math.max(shownMinX, clip.getMinX());
+                shownMinY = Math.max(shownMinY, clip.getMinY());
+                shownMaxX = Math.min(shownMaxX, clip.getMaxX());
+                shownMaxY = Math.min(shownMaxY, clip.getMaxY());
+            }
+        }
+        if (shownMinX > shownMaxX || shownMinY > shownMaxY) {
+            // Nothing intersects an empty region
+            set(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+            return;
+        }
+
+        Bounds local = node.sceneToLocal(new BoundingBox(shownMinX, shownMinY,
+                shownMaxX - shownMinX, shownMaxY - shownMinY));
+        set(local.getMinX(), local.getMinY(), local.getMaxX(), local.getMaxY());
+    }
+
+    /**
+     * Checks whether an element is visible and counts it as drawn or culled.
+     *
+     * @param minX the left edge of the element's bounds
+     * @param minY the top edge of the element's bounds
+     * @param maxX the right edge of the element's bounds
+     * @param maxY the bottom edge of the element's bounds
+     * @return {@code true} if the element has to be drawn
+     */
+    public boolean isVisible(double minX, double minY, double maxX, double maxY) {
+        if (intersects(minX, minY, maxX, maxY)) {
+            drawnCount++;
+            return true;
+        }
+        culledCount++;
+        return false;
+    }
+
+    /**
+     * Checks whether a rectangle intersects the visible region, without counting it.
+     * Used for parts of elements, such as the segments of a line.
+     *
+     * @param minX the left edge of the rectangle
+     * @param minY the top edge of the rectangle
+     * @param maxX the right edge of the rectangle
+     * @param maxY the bottom edge of the rectangle
+     * @return {@code true} if the rectangle is at least partly visible
+     */
+    public boolean intersects(double minX, double minY, double maxX, double maxY) {
+        return minX <= this.maxX && this.minX <= maxX && minY <= this.maxY && this.minY <= maxY;
+    }
+
+    /**
+     * Returns the bounds of the visible region.
+     *
+     * @return the bounds as {minX, minY, maxX, maxY}
+     */
+    public double[] getBounds() {
+        return new double[]{minX, minY, maxX, maxY};
+    }
+
+    /**
+     * Returns the number of elements drawn since the counters were last reset.
+     *
+     * @return the number of drawn elements
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * Returns the number of elements skipped since the counters were last reset.
+     *
+     * @return the number of culled elements
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Resets the drawn and culled counters, typically at the start of a paint.
+     */
+    public void resetCounts() {
+        drawnCount = 0;
+        culledCount = 0;
+    }
+}
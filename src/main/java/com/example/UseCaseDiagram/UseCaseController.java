@@ -1,5 +1,10 @@
 package com.example.UseCaseDiagram;
 
+import com.example.Rendering.AnchorGrid;
+import com.example.Rendering.GridLayer;
+import com.example.Rendering.RenderScheduler;
+import com.example.Rendering.TextMeasureCache;
+import com.example.Rendering.VisibleRegion;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -201,6 +206,39 @@ public class UseCaseController {
     @FXML
     public MenuItem loadClass;
 
+    /** Largest horizontal and vertical distance at which the mouse snaps to a connection point. */
+    public static final double SNAP_TOLERANCE = 10;
+
+    /**
+     * Grid over the connection points of the {@link #actors} and {@link #useCases}, used to find
+     * the connection point under the mouse when a line is started or finished.
+     */
+    final AnchorGrid<Object> anchorIndex = new AnchorGrid<>();
+
+    /** Cached background grid, rebuilt only when the canvas is resized. */
+    final GridLayer gridLayer = new GridLayer();
+
+    /** Part of the canvas shown on screen; elements outside of it are not drawn. */
+    final VisibleRegion visibleRegion = new VisibleRegion();
+
+    /** Measured text sizes, shared with the class diagram editor, so labels are not re-measured on every redraw. */
+    final TextMeasureCache textMeasureCache = TextMeasureCache.getShared();
+
+    /**
+     * Transparent canvas stacked above the diagram canvas. It holds the selection highlight,
+     * the actor or use case being dragged and the preview of a line being drawn.
+     */
+    Canvas overlayCanvas;
+
+    /** Coalesces redraw requests, so the canvas is painted at most once per pulse. */
+    final RenderScheduler renderScheduler = new RenderScheduler(this::paintFrame);
+
+    /** Flag indicating whether the diagram canvas, and not only the overlay, has to be redrawn on the next pulse. */
+    boolean canvasDirty = false;
+
+    /** Actor or use case currently being dragged; it is drawn on the overlay instead of the diagram canvas. */
+    Object draggedElement = null;
+
     /**
      * Initializes the Use Case Diagram controller, setting up event listeners,
      * default configurations, and initial states for the canvas and UI elements.
@@ -222,6 +260,12 @@ public class UseCaseController {
         Canvas canvas = new Canvas(910, 780); // Initial size
         GraphicsContext gc = canvas.getGraphicsContext2D();
         canvasContainer.getChildren().add(canvas);
+
+        // The overlay sits above the canvas and lets mouse events through to it
+        overlayCanvas = new Canvas(910, 780);
+        overlayCanvas.setMouseTransparent(true);
+        canvasContainer.getChildren().add(overlayCanvas);
+
         // Add mouse event listeners to the canvas
         canvas.setOnMousePressed(event -> onMousePressed(event, gc));
         canvas.setOnMouseDragged(event -> onMouseDragged(event, gc));
@@ -256,14 +300,22 @@ public class UseCaseController {
         // Add listeners to ensure the grid is redrawn when the container size changes
         canvasContainer.widthProperty().addListener((observable, oldValue, newValue) -> {
             canvas.setWidth(newValue.doubleValue());
-            drawGrid(gc);
-            redrawCanvas(gc);
+            overlayCanvas.setWidth(newValue.doubleValue());
+            requestRedraw(); // Once on the next pulse, however many resize events arrive
         });
 
         canvasContainer.heightProperty().addListener((observable, oldValue, newValue) -> {
             canvas.setHeight(newValue.doubleValue());
-            drawGrid(gc);
-            redrawCanvas(gc);
+            overlayCanvas.setHeight(newValue.doubleValue());
+            requestRedraw(); // Once on the next pulse, however many resize events arrive
+        });
+
+        // The part of the canvas shown on screen also changes with the size of the window
+        canvasContainer.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene != null) {
+                newScene.widthProperty().addListener(resized -> requestRedraw());
+                newScene.heightProperty().addListener(resized -> requestRedraw());
+            }
         });
         canvasContainer.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.DELETE) {
@@ -303,6 +355,9 @@ public class UseCaseController {
      * components within the diagram. This method ensures the canvas dimensions
      * are cleared and recalculated before redrawing the grid.</p>
      *
+     * <p>The grid lines are copied from the cached {@link GridLayer} image with a single
+     * draw call; the image is only rebuilt when the size of the canvas changes.</p>
+     *
      * @param gc the GraphicsContext of the canvas used for drawing the grid
      */
     public void drawGrid(GraphicsContext gc) {
@@ -313,20 +368,8 @@ public class UseCaseController {
         // Clear the canvas
         gc.clearRect(0, 0, canvasWidth, canvasHeight);
 
-        double gridSpacing = 10; // Grid spacing
-
-        gc.setLineWidth(0.5);
-        gc.setStroke(Color.rgb(180, 180, 180));
-
-        // Draw vertical grid lines
-        for (double x = 0; x <= canvasWidth; x += gridSpacing) {
-            gc.strokeLine(x, 0, x, canvasHeight);
-        }
-
-        // Draw horizontal grid lines
-        for (double y = 0; y <= canvasHeight; y += gridSpacing) {
-            gc.strokeLine(0, y, canvasWidth, y);
-        }
+        // Copy the cached grid image onto the canvas
+        gridLayer.draw(gc, canvasWidth, canvasHeight);
     }
 
     /**
@@ -465,7 +508,8 @@ public class UseCaseController {
     public void saveCanvasToFile(String format) {
         Canvas canvas = (Canvas) canvasContainer.getChildren().get(0);
 
-        // Take a snapshot of the canvas
+        // Paint pending changes first, then take a snapshot of the canvas
+        renderScheduler.flush();
         WritableImage writableImage = new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
         canvas.snapshot(null, writableImage);
 
@@ -562,7 +606,7 @@ public class UseCaseController {
         selectedUseCase = null;
 
         // Redraw canvas
-        redrawCanvas(gc);
+        requestRedraw();
     }
 
     /**
@@ -584,12 +628,14 @@ public class UseCaseController {
             associations.removeIf(line -> line.startElement == selectedActor || line.endElement == selectedActor);
             // Remove the actor
             actors.remove(selectedActor);
+            anchorIndex.remove(selectedActor);
             selectedActor = null;
         } else if (selectedUseCase != null) {
             // Remove associated lines
             associations.removeIf(line -> line.startElement == selectedUseCase || line.endElement == selectedUseCase);
             // Remove from the global useCases list
             useCases.remove(selectedUseCase);
+            anchorIndex.remove(selectedUseCase);
 
             // Check if the use case is inside a subject and remove it from there as well
             for (UseCaseSubject subject : subjects) {
@@ -604,7 +650,7 @@ public class UseCaseController {
         }
 
         // Redraw the canvas to reflect deletions
-        redrawCanvas(gc);
+        requestRedraw();
     }
 
     /**
@@ -630,11 +676,10 @@ public class UseCaseController {
                 useCases = (ArrayList<UseCase>) ois.readObject();
                 subjects = (ArrayList<UseCaseSubject>) ois.readObject();
                 associations = (ArrayList<LineConnection>) ois.readObject();
+                rebuildAnchorIndex();
 
                 // Redraw the canvas with the loaded data
-                GraphicsContext gc = ((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D();
-                gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-                redrawCanvas(gc);
+                requestRedraw();
 
                 showInfo("Diagram loaded successfully from " + file.getName());
             } catch (IOException | ClassNotFoundException e) {
@@ -738,34 +783,10 @@ public class UseCaseController {
             deselectActiveElement(gc);
             startConnectionIndex = -1;
 
-            // Check for actor connection points
-            for (Actor actor : actors) {
-                for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                    double[] point = actor.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startActor = actor;
-                        startConnectionIndex = i;
-                        isDrawingAssociation = true;
-                        return;
-                    }
-                }
-            }
-
-            // Check for use case connection points
-            for (UseCase useCase : useCases) {
-                for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                    double[] point = useCase.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startUseCase = useCase;
-                        startConnectionIndex = i;
-                        isDrawingAssociation = true;
-                        return;
-                    }
-                }
+            // Prefer the connection points of actors over those of use cases
+            if (startLineAt(mouseX, mouseY, Actor.class) || startLineAt(mouseX, mouseY, UseCase.class)) {
+                isDrawingAssociation = true;
+                return;
             }
 
             showError("Start a line from a valid connection point.");
@@ -779,34 +800,10 @@ public class UseCaseController {
             deselectActiveElement(gc);
             startConnectionIndex = -1;
 
-            // Check for UseCase connection points
-            for (UseCase useCase : useCases) {
-                for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                    double[] point = useCase.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startUseCase = useCase;
-                        startConnectionIndex = i;
-                        isDrawingInclude = true;
-                        return;
-                    }
-                }
-            }
-
-            // Check for Actor connection points
-            for (Actor actor : actors) {
-                for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                    double[] point = actor.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startActor = actor;
-                        startConnectionIndex = i;
-                        isDrawingInclude = true;
-                        return;
-                    }
-                }
+            // Prefer the connection points of use cases over those of actors
+            if (startLineAt(mouseX, mouseY, UseCase.class) || startLineAt(mouseX, mouseY, Actor.class)) {
+                isDrawingInclude = true;
+                return;
             }
 
             showError("Start an include line from a valid connection point.");
@@ -820,32 +817,10 @@ public class UseCaseController {
             deselectActiveElement(gc);
             startConnectionIndex = -1;
 
-            // Check for UseCase connection points only
-            for (UseCase useCase : useCases) {
-                for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                    double[] point = useCase.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startUseCase = useCase;
-                        startConnectionIndex = i;
-                        isDrawingExtend = true;
-                        return;
-                    }
-                }
-            }
-            for (Actor actor : actors) {
-                for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                    double[] point = actor.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        startX = point[0];
-                        startY = point[1];
-                        startActor = actor;
-                        startConnectionIndex = i;
-                        isDrawingExtend = true;
-                        return;
-                    }
-                }
+            // Prefer the connection points of use cases over those of actors
+            if (startLineAt(mouseX, mouseY, UseCase.class) || startLineAt(mouseX, mouseY, Actor.class)) {
+                isDrawingExtend = true;
+                return;
             }
 
             showError("Start an extend line from a valid use case connection point.");
@@ -874,8 +849,7 @@ public class UseCaseController {
                         dragOffsetY = mouseY - useCase.getY();
 
                         // Highlight the selected use case
-                        redrawCanvas(gc);
-                        highlightUseCase(gc, useCase);
+                        requestOverlayRedraw();
                         return;
                     }
                 }
@@ -900,8 +874,7 @@ public class UseCaseController {
                         dragOffsetY = mouseY - actor.getY();
 
                         // Highlight the selected actor
-                        redrawCanvas(gc);
-                        highlightActor(gc, actor);
+                        requestOverlayRedraw();
                         return;
                     }
                 }
@@ -913,7 +886,7 @@ public class UseCaseController {
                 selectedActor = null;
                 selectedUseCase = null;
                 selectedSubject = null;
-                redrawCanvas(gc); // Highlight the selected line
+                requestOverlayRedraw(); // Highlight the selected line
                 return;
             }
         }
@@ -954,8 +927,7 @@ public class UseCaseController {
                 dragOffsetY = mouseY - subject.y;
 
                 // Highlight the subject
-                redrawCanvas(gc);
-                highlightUseCaseSubject(gc, subject);
+                requestOverlayRedraw();
                 return;
             }
         }
@@ -980,8 +952,7 @@ public class UseCaseController {
                 dragOffsetY = mouseY - actor.getY();
 
                 // Highlight the selected actor
-                redrawCanvas(gc);
-                highlightActor(gc, actor);
+                requestOverlayRedraw();
                 return;
             }
         }
@@ -1002,8 +973,7 @@ public class UseCaseController {
                 }
 
                 // Highlight the selected use case
-                redrawCanvas(gc);
-                highlightUseCase(gc, useCase);
+                requestOverlayRedraw();
                 return;
             }
         }
@@ -1013,7 +983,7 @@ public class UseCaseController {
         selectedUseCase = null;
         selectedSubject = null;
         selectedLine=null;
-        redrawCanvas(gc);
+        requestOverlayRedraw();
     }
 
     /**
@@ -1052,10 +1022,8 @@ public class UseCaseController {
         // Create a TextField for editing the subject's name
         TextField textField = new TextField(subject.name);
 
-        // Use a Text object to calculate the width of the current text
-        javafx.scene.text.Text textHelper = new javafx.scene.text.Text(subject.name);
-        textHelper.setFont(Font.font("Arial", 14)); // Match the drawing font
-        double textWidth = textHelper.getBoundsInLocal().getWidth();
+        // Look up the width of the current text
+        double textWidth = textMeasureCache.getWidth(subject.name, Font.font("Arial", 14)); // Match the drawing font
 
         // Center the TextField horizontally and align it with the top heading position
         textField.setPrefWidth(subject.width - 20); // Constrain to the subject width
@@ -1075,7 +1043,7 @@ public class UseCaseController {
             if (keyEvent.getCode() == KeyCode.ENTER) {
                 subject.name = textField.getText().trim();
                 canvasContainer.getChildren().remove(textField); // Remove the TextField
-                redrawCanvas(gc); // Redraw to update the heading
+                requestRedraw(); // Redraw to update the heading
             }
         });
 
@@ -1084,7 +1052,7 @@ public class UseCaseController {
             if (!newVal) {
                 subject.name = textField.getText().trim();
                 canvasContainer.getChildren().remove(textField); // Remove the TextField
-                redrawCanvas(gc); // Redraw to update the heading
+                requestRedraw(); // Redraw to update the heading
             }
         });
     }
@@ -1102,8 +1070,81 @@ public class UseCaseController {
      * @return {@code true} if the mouse is within the tolerance of the point, {@code false} otherwise
      */
     public boolean isNear(double mouseX, double mouseY, double pointX, double pointY) {
-        double tolerance = 10.0; // Snap radius
-        return Math.abs(mouseX - pointX) < tolerance && Math.abs(mouseY - pointY) < tolerance;
+        return Math.abs(mouseX - pointX) < SNAP_TOLERANCE && Math.abs(mouseY - pointY) < SNAP_TOLERANCE;
+    }
+
+    /**
+     * Starts a line at the connection point under the mouse, if it belongs to an element of the
+     * given type, by setting the start position, element and connection index.
+     *
+     * @param mouseX the X-coordinate of the mouse pointer
+     * @param mouseY the Y-coordinate of the mouse pointer
+     * @param type   the type of element ({@link Actor} or {@link UseCase}) the line may start at
+     * @return {@code true} if a connection point was found
+     */
+    public boolean startLineAt(double mouseX, double mouseY, Class<?> type) {
+        AnchorGrid.Anchor<Object> anchor = anchorIndex.find(mouseX, mouseY, SNAP_TOLERANCE, type::isInstance);
+        if (anchor == null) {
+            return false;
+        }
+        startX = anchor.x;
+        startY = anchor.y;
+        startActor = anchor.owner instanceof Actor ? (Actor) anchor.owner : null;
+        startUseCase = anchor.owner instanceof UseCase ? (UseCase) anchor.owner : null;
+        startConnectionIndex = anchor.index;
+        return true;
+    }
+
+    /**
+     * Finishes the line being drawn at the connection point under the mouse, if it belongs to an
+     * element of the given type, by adding the connection to the {@link #associations}.
+     *
+     * @param mouseX the X-coordinate of the mouse pointer
+     * @param mouseY the Y-coordinate of the mouse pointer
+     * @param type   the type of element ({@link Actor} or {@link UseCase}) the line may end at
+     * @param lineType the type of the line, e.g. "association", "include" or "extend"
+     * @return {@code true} if a connection point was found and the line was added
+     */
+    public boolean finishLineAt(double mouseX, double mouseY, Class<?> type, String lineType) {
+        AnchorGrid.Anchor<Object> anchor = anchorIndex.find(mouseX, mouseY, SNAP_TOLERANCE, type::isInstance);
+        if (anchor == null) {
+            return false;
+        }
+        associations.add(new LineConnection(
+                startActor != null ? startActor : startUseCase, // Start element
+                startConnectionIndex,                          // Start connection point
+                anchor.owner,                                  // End element
+                anchor.index,                                  // End connection point index
+                lineType                                       // Line type
+        ));
+        return true;
+    }
+
+    /**
+     * Registers the current connection points of an actor or use case in the {@link #anchorIndex}.
+     * Called whenever the element is created, moved or resized.
+     *
+     * @param element the {@link Actor} or {@link UseCase}
+     */
+    public void indexAnchors(Object element) {
+        if (element instanceof Actor) {
+            anchorIndex.put(element, ((Actor) element).getConnectionPoints());
+        } else if (element instanceof UseCase) {
+            anchorIndex.put(element, ((UseCase) element).getConnectionPoints());
+        }
+    }
+
+    /**
+     * Registers the connection points of every actor and use case again, e.g. after loading a diagram.
+     */
+    public void rebuildAnchorIndex() {
+        anchorIndex.clear();
+        for (Actor actor : actors) {
+            indexAnchors(actor);
+        }
+        for (UseCase useCase : useCases) {
+            indexAnchors(useCase);
+        }
     }
 
     /**
@@ -1157,9 +1198,7 @@ public class UseCaseController {
         gc.setFill(Color.BLACK);
         gc.setFont(Font.font("Arial", 14));
 
-        javafx.scene.text.Text textHelper = new javafx.scene.text.Text(subject.name);
-        textHelper.setFont(gc.getFont());
-        double textWidth = textHelper.getBoundsInLocal().getWidth();
+        double textWidth = textMeasureCache.getWidth(subject.name, gc.getFont());
 
         double textX = subject.x + (subject.width / 2) - (textWidth / 2); // Center horizontally
         double textY = subject.y + 20; // Position slightly below the top edge
@@ -1244,7 +1283,8 @@ public class UseCaseController {
         }
 
         useCases.add(useCase); // Add to the global list
-        redrawCanvas(gc); // Redraw to reflect the changes
+        indexAnchors(useCase);
+        requestRedraw(); // Redraw to reflect the changes
     }
 
     /**
@@ -1299,10 +1339,9 @@ public class UseCaseController {
         // Draw use case label
         gc.setFill(Color.BLACK);
         gc.setFont(Font.font("Arial", 12));
-        javafx.scene.text.Text textHelper = new javafx.scene.text.Text(useCase.getName());
-        textHelper.setFont(gc.getFont());
-        double textWidth = textHelper.getBoundsInLocal().getWidth();
-        double textHeight = textHelper.getBoundsInLocal().getHeight();
+        double[] textSize = textMeasureCache.measure(useCase.getName(), gc.getFont());
+        double textWidth = textSize[0];
+        double textHeight = textSize[1];
 
         gc.fillText(useCase.getName(), x - textWidth / 2, y + textHeight / 4); // Center the text
     }
@@ -1333,8 +1372,9 @@ public class UseCaseController {
         textField.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
                 useCase.setName(textField.getText().trim(), gc);
+                indexAnchors(useCase); // The size, and the connection points with it, may have changed
                 canvasContainer.getChildren().remove(textField);
-                redrawCanvas(gc);
+                requestRedraw();
             }
         });
 
@@ -1342,8 +1382,9 @@ public class UseCaseController {
         textField.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal) {
                 useCase.setName(textField.getText().trim(), gc);
+                indexAnchors(useCase); // The size, and the connection points with it, may have changed
                 canvasContainer.getChildren().remove(textField);
-                redrawCanvas(gc);
+                requestRedraw();
             }
         });
     }
@@ -1375,7 +1416,7 @@ public class UseCaseController {
             if (keyEvent.getCode() == KeyCode.ENTER) {
                 actor.name = textField.getText().trim(); // Update the actor's name
                 canvasContainer.getChildren().remove(textField); // Remove the TextField
-                redrawCanvas(gc); // Redraw the canvas to update the name
+                requestRedraw(); // Redraw the canvas to update the name
             }
         });
 
@@ -1384,7 +1425,7 @@ public class UseCaseController {
             if (!newVal) {
                 actor.name = textField.getText().trim(); // Update the actor's name
                 canvasContainer.getChildren().remove(textField); // Remove the TextField
-                redrawCanvas(gc); // Redraw the canvas to update the name
+                requestRedraw(); // Redraw the canvas to update the name
             }
         });
     }
@@ -1409,43 +1450,13 @@ public class UseCaseController {
         double mouseY = event.getY();
 
         // Handle Association Line Preview
-        if (activeButton == associationButton && isDrawingAssociation) {
-            // Clear the canvas and redraw all elements except the association
-            gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-            redrawCanvas(gc); // Redraw other elements
-
-            // Draw the temporary association line
-            gc.setStroke(Color.GRAY);
-            gc.setLineWidth(1);
-            gc.strokeLine(startX, startY, mouseX, mouseY);
-            return;
-        }
-
-        // Handle Include Line Preview
-        else if (activeButton == includeButton && isDrawingInclude) {
-            gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-            redrawCanvas(gc); // Redraw other elements
-
-            // Draw the temporary dotted line
-            gc.setLineDashes(5); // Set dotted style
-            gc.setStroke(Color.GRAY);
-            gc.setLineWidth(1);
-            gc.strokeLine(startX, startY, mouseX, mouseY);
-            gc.setLineDashes(0); // Reset to solid lines
-            return;
-        }
-
-        // Handle Extend Line Preview
-        else if (activeButton == extendButton && isDrawingExtend) {
-            gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
-            redrawCanvas(gc); // Redraw other elements
-
-            // Draw the temporary dotted line with a distinct style for extend
-            gc.setLineDashes(5); // Set dotted style
-            gc.setStroke(Color.DARKBLUE); // Use a distinct color for extend
-            gc.setLineWidth(1);
-            gc.strokeLine(startX, startY, mouseX, mouseY);
-            gc.setLineDashes(0); // Reset to solid lines
+        // Handle Association, Include and Extend Line Previews on the overlay only
+        if ((activeButton == associationButton && isDrawingAssociation)
+                || (activeButton == includeButton && isDrawingInclude)
+                || (activeButton == extendButton && isDrawingExtend)) {
+            endX = mouseX;
+            endY = mouseY;
+            requestOverlayRedraw();
             return;
         }
 
@@ -1458,9 +1469,8 @@ public class UseCaseController {
             selectedSubject.x = newX;
             selectedSubject.y = newY;
 
-            // Redraw the canvas with the updated position
-            redrawCanvas(gc);
-            highlightUseCaseSubject(gc, selectedSubject);
+            // Subjects are background elements, so the canvas below has to be redrawn
+            requestRedraw();
             return;
         }
 
@@ -1474,8 +1484,7 @@ public class UseCaseController {
             selectedSubject.height = Math.min(newHeight, canvasContainer.getHeight() - selectedSubject.y);
 
             // Redraw the canvas with the updated size
-            redrawCanvas(gc);
-            highlightUseCaseSubject(gc, selectedSubject);
+            requestRedraw();
             return;
         }
 
@@ -1483,11 +1492,11 @@ public class UseCaseController {
         if (selectedActor != null) {
             double newX = Math.max(20, Math.min(mouseX - dragOffsetX, canvasContainer.getWidth() - 20));
             double newY = Math.max(40, Math.min(mouseY - dragOffsetY, canvasContainer.getHeight() - 40));
+            liftDraggedElement(selectedActor, gc);
             selectedActor.x = newX;
             selectedActor.y = newY;
-
-            redrawCanvas(gc);
-            highlightActor(gc, selectedActor);
+            indexAnchors(selectedActor);
+            requestOverlayRedraw();
         }
 
         if (selectedUseCase != null) {
@@ -1495,11 +1504,26 @@ public class UseCaseController {
                     Math.min(mouseX - dragOffsetX, canvasContainer.getWidth() - selectedUseCase.getWidth() / 2));
             double newY = Math.max(selectedUseCase.getHeight() / 2,
                     Math.min(mouseY - dragOffsetY, canvasContainer.getHeight() - selectedUseCase.getHeight() / 2));
+            liftDraggedElement(selectedUseCase, gc);
             selectedUseCase.x = newX;
             selectedUseCase.y = newY;
+            indexAnchors(selectedUseCase);
+            requestOverlayRedraw();
+        }
+    }
 
-            redrawCanvas(gc);
-            highlightUseCase(gc, selectedUseCase);
+    /**
+     * Moves an actor or use case from the diagram canvas onto the overlay when it starts being
+     * dragged. The canvas is redrawn once without the element and its lines; after that, every
+     * drag event only redraws the overlay.
+     *
+     * @param element the {@link Actor} or {@link UseCase} about to be dragged
+     * @param gc the {@link GraphicsContext} of the diagram canvas
+     */
+    public void liftDraggedElement(Object element, GraphicsContext gc) {
+        if (draggedElement != element) {
+            draggedElement = element;
+            requestRedraw();
         }
     }
 
@@ -1558,178 +1582,57 @@ public class UseCaseController {
 
         // Handle Association Line
         if (activeButton == associationButton && isDrawingAssociation) {
-            boolean validConnection = false;
-
-            // Check for snapping to an actor's connection point
-            for (Actor actor : actors) {
-                for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                    double[] point = actor.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        // Create a solid association line
-                        associations.add(new LineConnection(
-                                startActor != null ? startActor : startUseCase, // Start element
-                                startConnectionIndex,                          // Start connection point
-                                actor,                                         // End element
-                                i,                                             // End connection point index
-                                "association"                                  // Line type
-                        ));
-                        validConnection = true;
-                        break;
-                    }
-                }
-            }
-
-            // Check for snapping to a use case's connection point
-            if (!validConnection) {
-                for (UseCase useCase : useCases) {
-                    for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                        double[] point = useCase.getConnectionPoints()[i];
-                        if (isNear(mouseX, mouseY, point[0], point[1])) {
-                            // Create a solid association line
-                            associations.add(new LineConnection(
-                                    startActor != null ? startActor : startUseCase, // Start element
-                                    startConnectionIndex,                          // Start connection point
-                                    useCase,                                       // End element
-                                    i,                                             // End connection point index
-                                    "association"                                  // Line type
-                            ));
-                            validConnection = true;
-                            break;
-                        }
-                    }
-                }
-            }
+            // Snap to an actor's connection point, then to a use case's
+            boolean validConnection = finishLineAt(mouseX, mouseY, Actor.class, "association")
+                    || finishLineAt(mouseX, mouseY, UseCase.class, "association");
 
             if (!validConnection) {
                 showError("Cannot draw association line. No valid connection point reached.");
             }
 
             isDrawingAssociation = false; // Reset association line drawing state
-            redrawCanvas(gc);
+            requestRedraw();
         }
 
         // Handle Include Line
         else if (activeButton == includeButton && isDrawingInclude) {
-            boolean validConnection = false;
-
-            // Check for snapping to a use case's connection point
-            for (UseCase useCase : useCases) {
-                for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                    double[] point = useCase.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        // Create a dotted include line
-                        associations.add(new LineConnection(
-                                startActor != null ? startActor : startUseCase, // Start element
-                                startConnectionIndex,                           // Start connection point
-                                useCase,                                        // End element
-                                i,                                              // End connection point index
-                                "include"                                       // Line type
-                        ));
-                        validConnection = true;
-                        break;
-                    }
-                }
-            }
-
-            // Check for snapping to an actor's connection point
-            if (!validConnection) {
-                for (Actor actor : actors) {
-                    for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                        double[] point = actor.getConnectionPoints()[i];
-                        if (isNear(mouseX, mouseY, point[0], point[1])) {
-                            // Create a dotted include line
-                            associations.add(new LineConnection(
-                                    startActor != null ? startActor : startUseCase, // Start element
-                                    startConnectionIndex,                           // Start connection point
-                                    actor,                                          // End element
-                                    i,                                              // End connection point index
-                                    "include"                                       // Line type
-                            ));
-                            validConnection = true;
-                            break;
-                        }
-                    }
-                }
-            }
+            // Snap to a use case's connection point, then to an actor's
+            boolean validConnection = finishLineAt(mouseX, mouseY, UseCase.class, "include")
+                    || finishLineAt(mouseX, mouseY, Actor.class, "include");
 
             if (!validConnection) {
                 showError("Cannot draw include line. No valid connection point reached.");
             }
 
             isDrawingInclude = false; // Reset include line drawing state
-            redrawCanvas(gc);
+            requestRedraw();
         }
 
         // Handle Extend Line
         else if (activeButton == extendButton && isDrawingExtend) {
-            boolean validConnection = false;
-
-            // Check for snapping to an actor's connection point
-            for (Actor actor : actors) {
-                for (int i = 0; i < actor.getConnectionPoints().length; i++) {
-                    double[] point = actor.getConnectionPoints()[i];
-                    if (isNear(mouseX, mouseY, point[0], point[1])) {
-                        // Create a solid association line
-                        associations.add(new LineConnection(
-                                startActor != null ? startActor : startUseCase, // Start element
-                                startConnectionIndex,                          // Start connection point
-                                actor,                                         // End element
-                                i,                                             // End connection point index
-                                "extend"                                  // Line type
-                        ));
-                        validConnection = true;
-                        break;
-                    }
-                }
-            }
-
-            // Check for snapping to a use case's connection point
-            if (!validConnection) {
-                for (UseCase useCase : useCases) {
-                    for (int i = 0; i < useCase.getConnectionPoints().length; i++) {
-                        double[] point = useCase.getConnectionPoints()[i];
-                        if (isNear(mouseX, mouseY, point[0], point[1])) {
-                            // Create a solid association line
-                            associations.add(new LineConnection(
-                                    startActor != null ? startActor : startUseCase, // Start element
-                                    startConnectionIndex,                          // Start connection point
-                                    useCase,                                       // End element
-                                    i,                                             // End connection point index
-                                    "extend"                                  // Line type
-                            ));
-                            validConnection = true;
-                            break;
-                        }
-                    }
-                }
-            }
+            // Snap to an actor's connection point, then to a use case's
+            boolean validConnection = finishLineAt(mouseX, mouseY, Actor.class, "extend")
+                    || finishLineAt(mouseX, mouseY, UseCase.class, "extend");
 
             if (!validConnection) {
                 showError("Cannot draw extend line. No valid connection point reached.");
             }
 
             isDrawingExtend = false; // Reset association line drawing state
-            redrawCanvas(gc);
+            requestRedraw();
         }
 
         // Finalize resizing of UseCaseSubject
         else if (selectedSubject != null && isResizingSubject) {
             isResizingSubject = false;
-            redrawCanvas(gc);
-            highlightUseCaseSubject(gc, selectedSubject);
+            requestRedraw();
             return;
         }
 
-        // Finalize actor position
-        if (selectedActor != null) {
-            redrawCanvas(gc);
-            highlightActor(gc, selectedActor);
-        }
-
-        // Finalize use case position
-        if (selectedUseCase != null) {
-            redrawCanvas(gc);
-            highlightUseCase(gc, selectedUseCase);
+        // Finalize actor or use case position by dropping it back onto the canvas
+        if (draggedElement != null) {
+            draggedElement = null;
+            requestRedraw();
         }
     }
 
@@ -1742,39 +1645,218 @@ public class UseCaseController {
      *   <li>Use cases contained within subjects</li>
      *   <li>Other standalone use cases, actors, and association lines</li>
      * </ol>
-     * <p>If a line is selected, it highlights the line for better visibility.</p>
+     * <p>Elements lying outside the visible part of the canvas are skipped. The element being
+     * dragged and its lines are left out as well, as they are drawn on the overlay.
+     * The overlay, which also highlights the selection, is redrawn afterwards.</p>
      *
      * @param gc the {@link GraphicsContext} used to draw elements on the canvas
      */
 
     public void redrawCanvas(GraphicsContext gc) {
+        canvasDirty = false;
+
         // Clear the canvas and redraw the grid
         gc.clearRect(0, 0, canvasContainer.getWidth(), canvasContainer.getHeight());
         drawGrid(gc);
 
+        // Elements outside the visible part of the canvas are skipped
+        updateVisibleRegion();
+        visibleRegion.resetCounts();
+
         // Draw subjects first (background elements)
         for (UseCaseSubject subject : subjects) {
-            drawUseCaseSubject(gc, subject);
+            if (isSubjectVisible(subject)) {
+                drawUseCaseSubject(gc, subject);
+            }
         }
 
         // Draw contained use cases inside subjects
         for (UseCaseSubject subject : subjects) {
             for (UseCase useCase : subject.containedUseCases) {
-                drawUseCase(gc, useCase);
+                if (isUseCaseVisible(useCase)) {
+                    drawUseCase(gc, useCase);
+                }
             }
         }
 
         // Draw other elements (use cases, actors, and lines)
         for (UseCase useCase : useCases) {
-            if (!isUseCaseInSubject(useCase)) { // Skip use cases already drawn within subjects
+            // Skip use cases already drawn within subjects
+            if (!isUseCaseInSubject(useCase) && useCase != draggedElement && isUseCaseVisible(useCase)) {
                 drawUseCase(gc, useCase);
             }
         }
         for (Actor actor : actors) {
-            drawActor(gc, actor);
+            if (actor != draggedElement && isActorVisible(actor)) {
+                drawActor(gc, actor);
+            }
         }
         for (LineConnection line : associations) {
-            drawAssociationLine(gc, line);
+            if (!isAttachedToDraggedElement(line) && isAssociationVisible(line)) {
+                drawAssociationLine(gc, line);
+            }
+        }
+
+        redrawOverlay();
+    }
+
+    /**
+     * Requests a redraw of the diagram canvas and the overlay on the next pulse.
+     *
+     * <p>Event handlers call this instead of redrawing directly, so that several mouse events
+     * arriving within one frame result in a single redraw.</p>
+     */
+    public void requestRedraw() {
+        canvasDirty = true;
+        renderScheduler.requestRender();
+    }
+
+    /**
+     * Requests a redraw of the overlay only on the next pulse, e.g. after the selection
+     * changed or the dragged element moved.
+     */
+    public void requestOverlayRedraw() {
+        renderScheduler.requestRender();
+    }
+
+    /**
+     * Redraws everything requested since the last pulse. Called by the {@link RenderScheduler}
+     * at most once per pulse.
+     */
+    public void paintFrame() {
+        if (canvasDirty) {
+            redrawCanvas(((Canvas) canvasContainer.getChildren().get(0)).getGraphicsContext2D()); // Redraws the overlay as well
+        } else {
+            redrawOverlay();
+        }
+    }
+
+    /**
+     * Updates the visible region to the part of the canvas shown on screen.
+     *
+     * <p>Elements are kept inside the container while they are dragged, but the container, and
+     * with it the canvas, may be larger than the part the window and the split pane show, and
+     * elements placed before the window was made smaller lie outside of it.</p>
+     */
+    public void updateVisibleRegion() {
+        visibleRegion.setToShownPartOf(canvasContainer.getChildren().get(0));
+    }
+
+    /**
+     * Returns the number of elements drawn by the last redraw of the canvas.
+     *
+     * @return the number of drawn elements
+     */
+    public int getDrawnElementCount() {
+        return visibleRegion.getDrawnCount();
+    }
+
+    /**
+     * Returns the number of elements skipped by the last redraw of the canvas because they lay
+     * outside of the part of the canvas shown on screen.
+     *
+     * @return the number of culled elements
+     */
+    public int getCulledElementCount() {
+        return visibleRegion.getCulledCount();
+    }
+
+    /**
+     * Checks whether a use case subject intersects the visible region and counts it as drawn or culled.
+     *
+     * @param subject the {@link UseCaseSubject} to check
+     * @return {@code true} if the subject has to be drawn
+     */
+    public boolean isSubjectVisible(UseCaseSubject subject) {
+        return visibleRegion.isVisible(subject.x - 2, subject.y - 2,
+                subject.x + subject.width + 2, subject.y + subject.height + 2);
+    }
+
+    /**
+     * Checks whether a use case, including its connection points, intersects the visible region
+     * and counts it as drawn or culled.
+     *
+     * @param useCase the {@link UseCase} to check
+     * @return {@code true} if the use case has to be drawn
+     */
+    public boolean isUseCaseVisible(UseCase useCase) {
+        double halfWidth = useCase.getWidth() / 2 + 3;
+        double halfHeight = useCase.getHeight() / 2 + 3;
+        return visibleRegion.isVisible(useCase.getX() - halfWidth, useCase.getY() - halfHeight,
+                useCase.getX() + halfWidth, useCase.getY() + halfHeight);
+    }
+
+    /**
+     * Checks whether an actor, including its label, intersects the visible region and counts it
+     * as drawn or culled.
+     *
+     * @param actor the {@link Actor} to check
+     * @return {@code true} if the actor has to be drawn
+     */
+    public boolean isActorVisible(Actor actor) {
+        // The label below the figure may be wider than the arms
+        double halfWidth = Math.max(22, textMeasureCache.getWidth(actor.getName(), Font.font("Arial", 12)) / 2);
+        return visibleRegion.isVisible(actor.getX() - halfWidth, actor.getY() - 44,
+                actor.getX() + halfWidth, actor.getY() + 45);
+    }
+
+    /**
+     * Checks whether an association, include or extend line, including its arrow and label,
+     * intersects the visible region and counts it as drawn or culled.
+     *
+     * @param line the {@link LineConnection} to check
+     * @return {@code true} if the line has to be drawn
+     */
+    public boolean isAssociationVisible(LineConnection line) {
+        double[] start = line.getStartPoint();
+        double[] end = line.getEndPoint();
+        double padding = 12; // Covers the line width and the arrowhead
+
+        // The label starts at the middle of the line and extends to the right
+        double midX = (start[0] + end[0]) / 2;
+        double midY = (start[1] + end[1]) / 2;
+        return visibleRegion.isVisible(
+                Math.min(Math.min(start[0], end[0]) - padding, midX),
+                Math.min(Math.min(start[1], end[1]) - padding, midY - 20),
+                Math.max(Math.max(start[0], end[0]) + padding, midX + 80),
+                Math.max(start[1], end[1]) + padding);
+    }
+
+    /**
+     * Redraws the interaction overlay above the diagram canvas.
+     *
+     * <p>The overlay holds the element being dragged with its lines, the highlight of the selected
+     * element and the preview of an association, include or extend line being drawn. Redrawing it
+     * costs one clear and a few shapes, so selecting, dragging or drawing a line never requires the
+     * diagram canvas below to be repainted.</p>
+     */
+    public void redrawOverlay() {
+        GraphicsContext gc = overlayCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, overlayCanvas.getWidth(), overlayCanvas.getHeight());
+
+        // Element being dragged, lifted off the diagram canvas
+        if (draggedElement != null) {
+            for (LineConnection line : associations) {
+                if (isAttachedToDraggedElement(line)) {
+                    drawAssociationLine(gc, line);
+                }
+            }
+            if (draggedElement instanceof Actor) {
+                drawActor(gc, (Actor) draggedElement);
+            } else if (draggedElement instanceof UseCase) {
+                drawUseCase(gc, (UseCase) draggedElement);
+            }
+        }
+
+        // Selection highlight
+        if (selectedSubject != null) {
+            highlightUseCaseSubject(gc, selectedSubject);
+        }
+        if (selectedActor != null) {
+            highlightActor(gc, selectedActor);
+        }
+        if (selectedUseCase != null) {
+            highlightUseCase(gc, selectedUseCase);
         }
         if (selectedLine != null) {
             gc.setStroke(Color.web("#5DADE2"));
@@ -1783,6 +1865,26 @@ public class UseCaseController {
             double[] end = selectedLine.getEndPoint();
             gc.strokeLine(start[0], start[1], end[0], end[1]);
         }
+
+        // Preview of a line being drawn
+        if (isDrawingAssociation || isDrawingInclude || isDrawingExtend) {
+            gc.setLineDashes(isDrawingAssociation ? 0 : 5); // Dotted style for include and extend
+            gc.setStroke(isDrawingExtend ? Color.DARKBLUE : Color.GRAY); // Distinct color for extend
+            gc.setLineWidth(1);
+            gc.strokeLine(startX, startY, endX, endY);
+            gc.setLineDashes(0); // Reset to solid lines
+        }
+    }
+
+    /**
+     * Checks whether a line is attached to the actor or use case being dragged.
+     *
+     * @param line the {@link LineConnection} to check
+     * @return {@code true} if the line is drawn on the overlay while dragging
+     */
+    public boolean isAttachedToDraggedElement(LineConnection line) {
+        return draggedElement != null
+                && (line.startElement == draggedElement || line.endElement == draggedElement);
     }
 
     /**
@@ -2043,6 +2145,7 @@ public class UseCaseController {
     public void createActor(GraphicsContext gc, double x, double y) {
         Actor actor = new Actor(x, y); // Create a new Actor object
         actors.add(actor); // Add to the list of actors
+        indexAnchors(actor);
         drawActor(gc, actor); // Draw the actor on the canvas
     }
 
@@ -2078,9 +2181,7 @@ public class UseCaseController {
         // Draw actor label centered horizontally below the figure
         gc.setFill(Color.BLACK);
         gc.setFont(Font.font("Arial", 12));
-        javafx.scene.text.Text textHelper = new javafx.scene.text.Text(actor.getName());
-        textHelper.setFont(gc.getFont());
-        double textWidth = textHelper.getBoundsInLocal().getWidth();
+        double textWidth = textMeasureCache.getWidth(actor.getName(), gc.getFont());
 
         // Position the text centered horizontally relative to the actor figure
         gc.fillText(actor.getName(), x - textWidth / 2, y + 40); // 40px below the actor's head
@@ -2253,11 +2354,10 @@ public class UseCaseController {
          */
         public void adjustSize(GraphicsContext gc) {
             gc.setFont(Font.font("Arial", 12));
-            javafx.scene.text.Text textHelper = new javafx.scene.text.Text(name);
-            textHelper.setFont(gc.getFont());
+            double[] textSize = TextMeasureCache.getShared().measure(name, gc.getFont());
 
-            double textWidth = textHelper.getBoundsInLocal().getWidth();
-            double textHeight = textHelper.getBoundsInLocal().getHeight();
+            double textWidth = textSize[0];
+            double textHeight = textSize[1];
 
             this.width = Math.max(120, textWidth + 20); // Minimum width 120
             this.height = Math.max(60, textHeight + 20); // Minimum height 60
@@ -87,6 +87,20 @@ public class UseCase_Testing extends ApplicationTest {
         assertFalse(controller.subjects.isEmpty(), "UseCases list should not be empty after creating a UseCase!");
     }
 
+    @Test
+    void testElementsOutsideTheShownCanvasAreCulled() {
+        Canvas canvas = (Canvas) controller.canvasContainer.getChildren().get(0);
+        interact(() -> {
+            controller.actors.add(new UseCaseController.Actor(100, 100));
+            // Beyond the right edge of the canvas, as if placed before the window was made smaller
+            controller.actors.add(new UseCaseController.Actor(canvas.getWidth() + 500, 100));
+            controller.redrawCanvas(canvas.getGraphicsContext2D());
+        });
+
+        assertEquals(1, controller.getDrawnElementCount(), "The actor on the canvas should be drawn.");
+        assertEquals(1, controller.getCulledElementCount(), "The actor outside of the canvas should be culled.");
+    }
+
     @Test
     void testDeleteActor() {
         // Step 1: Click on the "Actor" button in the toolbox
@@ -15,11 +15,13 @@ module com.example.pscd {
 
     opens com.example.ClassDiagram to javafx.fxml,org.testfx,org.junit.platform.commons;
     opens com.example.UseCaseDiagram to javafx.fxml,org.testfx,org.junit.platform.commons;
+    opens com.example.Rendering to org.junit.platform.commons;
 
     opens com.example to javafx.fxml;
     exports com.example.ClassDiagram;
     exports com.example.UseCaseDiagram;
     exports com.example;
+    exports com.example.Rendering;
 
 
 }
\ No newline at end of file